@@ -12,6 +12,11 @@ permissions and limitations under the License.
 
 package org.apache.tinkerpop.gremlin.driver;
 
+import software.amazon.utils.Clock;
+
+import java.util.Collection;
+import java.util.Collections;
+
 class AcquireConnectionConfig {
 
     private final int maxWaitForConnection;
@@ -19,17 +24,96 @@ class AcquireConnectionConfig {
     private final OnEagerRefresh onEagerRefresh;
     private final int eagerRefreshBackoffMillis;
     private final int acquireConnectionBackoffMillis;
+    private final Collection<ErrorClassifier> eagerRefreshErrorClassifiers;
+    private final int eagerRefreshErrorThreshold;
+    private final int eagerRefreshErrorWindowMillis;
+    private final OnEagerRefresh onWriterFailover;
+    private final int writerFailoverInitialBackoffMillis;
+    private final int writerFailoverMaxBackoffMillis;
+    private final int writerFailoverTimeoutMillis;
+    private final ExecutionMode executionMode;
+    private final Clock clock;
 
     AcquireConnectionConfig(int maxWaitForConnection,
                             int eagerRefreshWaitTimeMillis,
                             OnEagerRefresh onEagerRefresh,
                             int eagerRefreshBackoffMillis,
                             int acquireConnectionBackoffMillis) {
+        this(maxWaitForConnection,
+                eagerRefreshWaitTimeMillis,
+                onEagerRefresh,
+                eagerRefreshBackoffMillis,
+                acquireConnectionBackoffMillis,
+                Collections.emptyList(),
+                0,
+                0,
+                null,
+                0,
+                0,
+                0,
+                ExecutionMode.PLATFORM_THREADS);
+    }
+
+    AcquireConnectionConfig(int maxWaitForConnection,
+                            int eagerRefreshWaitTimeMillis,
+                            OnEagerRefresh onEagerRefresh,
+                            int eagerRefreshBackoffMillis,
+                            int acquireConnectionBackoffMillis,
+                            Collection<ErrorClassifier> eagerRefreshErrorClassifiers,
+                            int eagerRefreshErrorThreshold,
+                            int eagerRefreshErrorWindowMillis,
+                            OnEagerRefresh onWriterFailover,
+                            int writerFailoverInitialBackoffMillis,
+                            int writerFailoverMaxBackoffMillis,
+                            int writerFailoverTimeoutMillis,
+                            ExecutionMode executionMode) {
+        this(maxWaitForConnection,
+                eagerRefreshWaitTimeMillis,
+                onEagerRefresh,
+                eagerRefreshBackoffMillis,
+                acquireConnectionBackoffMillis,
+                eagerRefreshErrorClassifiers,
+                eagerRefreshErrorThreshold,
+                eagerRefreshErrorWindowMillis,
+                onWriterFailover,
+                writerFailoverInitialBackoffMillis,
+                writerFailoverMaxBackoffMillis,
+                writerFailoverTimeoutMillis,
+                executionMode,
+                Clock.SYSTEM);
+    }
+
+    /**
+     * @param clock source of time for connection acquisition, request and failover timings
+     */
+    AcquireConnectionConfig(int maxWaitForConnection,
+                            int eagerRefreshWaitTimeMillis,
+                            OnEagerRefresh onEagerRefresh,
+                            int eagerRefreshBackoffMillis,
+                            int acquireConnectionBackoffMillis,
+                            Collection<ErrorClassifier> eagerRefreshErrorClassifiers,
+                            int eagerRefreshErrorThreshold,
+                            int eagerRefreshErrorWindowMillis,
+                            OnEagerRefresh onWriterFailover,
+                            int writerFailoverInitialBackoffMillis,
+                            int writerFailoverMaxBackoffMillis,
+                            int writerFailoverTimeoutMillis,
+                            ExecutionMode executionMode,
+                            Clock clock) {
         this.maxWaitForConnection = maxWaitForConnection;
         this.eagerRefreshWaitTimeMillis = eagerRefreshWaitTimeMillis;
         this.onEagerRefresh = onEagerRefresh;
         this.eagerRefreshBackoffMillis = eagerRefreshBackoffMillis;
         this.acquireConnectionBackoffMillis = acquireConnectionBackoffMillis;
+        this.eagerRefreshErrorClassifiers = eagerRefreshErrorClassifiers;
+        this.eagerRefreshErrorThreshold = eagerRefreshErrorThreshold;
+        this.eagerRefreshErrorWindowMillis = eagerRefreshErrorWindowMillis;
+        this.onWriterFailover = onWriterFailover;
+        this.writerFailoverInitialBackoffMillis = writerFailoverInitialBackoffMillis;
+        this.writerFailoverMaxBackoffMillis = writerFailoverMaxBackoffMillis;
+        this.writerFailoverTimeoutMillis = writerFailoverTimeoutMillis;
+        this.executionMode = executionMode;
+        this.clock = clock;
     }
 
     public ConnectionAttemptManager createConnectionAttemptManager(GremlinClient gremlinClient) {
@@ -39,10 +123,39 @@ class AcquireConnectionConfig {
                 eagerRefreshWaitTimeMillis,
                 onEagerRefresh,
                 eagerRefreshBackoffMillis,
-                () -> System.currentTimeMillis());
+                clock,
+                executionMode.newSerialExecutor(),
+                ConnectionAttemptManager.NEVER_REFRESHED,
+                false,
+                new ErrorBurstDetector(
+                        eagerRefreshErrorClassifiers,
+                        eagerRefreshErrorThreshold,
+                        eagerRefreshErrorWindowMillis));
+    }
+
+    public WriterFailoverManager createWriterFailoverManager(GremlinClient gremlinClient) {
+        if (onWriterFailover == null) {
+            return WriterFailoverManager.disabled();
+        }
+        return new WriterFailoverManager(
+                gremlinClient,
+                onWriterFailover,
+                writerFailoverInitialBackoffMillis,
+                writerFailoverMaxBackoffMillis,
+                writerFailoverTimeoutMillis,
+                clock,
+                executionMode.newScheduledExecutor("gremlin-client-writer-failover-"));
     }
 
     public int acquireConnectionBackoffMillis() {
         return acquireConnectionBackoffMillis;
     }
+
+    public ExecutionMode executionMode() {
+        return executionMode;
+    }
+
+    public Clock clock() {
+        return clock;
+    }
 }
@@ -16,13 +16,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.utils.Clock;
 
+import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 class ConnectionAttemptManager implements AutoCloseable {
 
+    static final long NEVER_REFRESHED = Long.MIN_VALUE;
+
     private final Refreshable client;
     private final AtomicBoolean refreshing;
     private final AtomicLong latestRefreshTime;
@@ -32,6 +36,7 @@ class ConnectionAttemptManager implements AutoCloseable {
     private final ExecutorService executorService;
     private final int eagerRefreshBackoffMillis;
     private final Clock clock;
+    private final ErrorBurstDetector errorBurstDetector;
 
     private static final Logger logger = LoggerFactory.getLogger(ConnectionAttemptManager.class);
 
@@ -41,6 +46,22 @@ class ConnectionAttemptManager implements AutoCloseable {
                              OnEagerRefresh onEagerRefresh,
                              int eagerRefreshBackoffMillis,
                              Clock clock) {
+        this(client,
+                maxWaitForConnection,
+                eagerRefreshWaitTimeMillis,
+                onEagerRefresh,
+                eagerRefreshBackoffMillis,
+                clock,
+                null);
+    }
+
+    ConnectionAttemptManager(Refreshable client,
+                             int maxWaitForConnection,
+                             int eagerRefreshWaitTimeMillis,
+                             OnEagerRefresh onEagerRefresh,
+                             int eagerRefreshBackoffMillis,
+                             Clock clock,
+                             ErrorBurstDetector errorBurstDetector) {
         this(client,
                 maxWaitForConnection,
                 eagerRefreshWaitTimeMillis,
@@ -48,8 +69,9 @@ class ConnectionAttemptManager implements AutoCloseable {
                 eagerRefreshBackoffMillis,
                 clock,
                 Executors.newSingleThreadExecutor(),
-                0,
-                false
+                NEVER_REFRESHED,
+                false,
+                errorBurstDetector
         );
     }
 
@@ -62,6 +84,28 @@ class ConnectionAttemptManager implements AutoCloseable {
                              ExecutorService executorService,
                              long latestRefreshTime,
                              boolean isRefreshing) {
+        this(client,
+                maxWaitForConnection,
+                eagerRefreshWaitTimeMillis,
+                onEagerRefresh,
+                eagerRefreshBackoffMillis,
+                clock,
+                executorService,
+                latestRefreshTime,
+                isRefreshing,
+                null);
+    }
+
+    ConnectionAttemptManager(Refreshable client,
+                             int maxWaitForConnection,
+                             int eagerRefreshWaitTimeMillis,
+                             OnEagerRefresh onEagerRefresh,
+                             int eagerRefreshBackoffMillis,
+                             Clock clock,
+                             ExecutorService executorService,
+                             long latestRefreshTime,
+                             boolean isRefreshing,
+                             ErrorBurstDetector errorBurstDetector) {
         this.client = client;
         this.maxWaitForConnection = maxWaitForConnection;
         this.eagerRefreshWaitTimeMillis = eagerRefreshWaitTimeMillis;
@@ -71,34 +115,89 @@ class ConnectionAttemptManager implements AutoCloseable {
         this.executorService = executorService;
         this.latestRefreshTime = new AtomicLong(latestRefreshTime);
         this.refreshing = new AtomicBoolean(isRefreshing);
+        this.errorBurstDetector = errorBurstDetector;
 
         logger.info("maxWaitForConnection: {}, eagerRefreshWaitTimeMillis: {}, eagerRefreshBackoffMillis: {}",
                 this.maxWaitForConnection,
                 this.eagerRefreshWaitTimeMillis,
                 this.eagerRefreshBackoffMillis);
+
+        if (isErrorTriggeredRefreshEnabled()) {
+            logger.info("Error-triggered eager refresh enabled [threshold: {}, windowMillis: {}]",
+                    errorBurstDetector.threshold(),
+                    errorBurstDetector.windowMillis());
+        }
     }
 
-    public boolean maxWaitTimeExceeded(long start) {
-        return waitTime(start) > maxWaitForConnection;
+    /**
+     * Start times are monotonic nanos from the manager's clock (see {@link Clock#nanoTime()}).
+     */
+    public boolean maxWaitTimeExceeded(long startNanos) {
+        return waitTimeMillis(startNanos) > maxWaitForConnection;
     }
 
-    public boolean eagerRefreshWaitTimeExceeded(long start) {
-        return eagerRefreshWaitTimeMillis > 0 && waitTime(start) > eagerRefreshWaitTimeMillis;
+    public boolean eagerRefreshWaitTimeExceeded(long startNanos) {
+        return eagerRefreshWaitTimeMillis > 0 && waitTimeMillis(startNanos) > eagerRefreshWaitTimeMillis;
     }
 
-    public void triggerEagerRefresh(EagerRefreshContext context) {
+    /**
+     * Submits a task to get new endpoints, unless a refresh is already in progress or occurred within the
+     * backoff interval.
+     *
+     * @return true if a refresh task was submitted
+     */
+    public boolean triggerEagerRefresh(EagerRefreshContext context) {
+        return triggerEagerRefresh(
+                context,
+                String.format("Wait time to get connection has exceeded threshold [%s millis]", eagerRefreshWaitTimeMillis));
+    }
 
-        String message = String.format("Wait time to get connection has exceeded threshold [%s millis]", eagerRefreshWaitTimeMillis);
+    /**
+     * Records a request error against the endpoint that returned it. If the error completes a burst of
+     * classified errors for the endpoint, submits a task to get new endpoints, subject to the same
+     * backoff as {@link #triggerEagerRefresh(EagerRefreshContext)}.
+     *
+     * @return true if a refresh task was submitted
+     */
+    public boolean onRequestError(String address, Throwable e) {
+
+        if (!isErrorTriggeredRefreshEnabled() || !errorBurstDetector.recordError(address, e, clock.nanoTime())) {
+            return false;
+        }
+
+        return triggerEagerRefresh(
+                new EagerRefreshContext(address, e),
+                String.format("Endpoint %s returned %s classified errors within %s millis [last error: %s]",
+                        address,
+                        errorBurstDetector.threshold(),
+                        errorBurstDetector.windowMillis(),
+                        e.getClass().getSimpleName()));
+    }
+
+    /**
+     * Forgets recorded errors for endpoints that are no longer in use.
+     */
+    void retainErrorsFor(Collection<String> addresses) {
+        if (errorBurstDetector != null) {
+            errorBurstDetector.retainAll(addresses);
+        }
+    }
+
+    private boolean isErrorTriggeredRefreshEnabled() {
+        return onEagerRefresh != null && errorBurstDetector != null && errorBurstDetector.isEnabled();
+    }
+
+    private boolean triggerEagerRefresh(EagerRefreshContext context, String message) {
 
         if (onEagerRefresh == null) {
-            return;
+            return false;
         }
 
         long lastRefreshTime = latestRefreshTime.get();
 
-        if (lastRefreshTime > 0 && waitTime(lastRefreshTime) < eagerRefreshBackoffMillis) {
+        if (lastRefreshTime != NEVER_REFRESHED && waitTimeMillis(lastRefreshTime) < eagerRefreshBackoffMillis) {
             logger.warn("{} but last refresh occurred within backoff interval, so not getting new endpoints", message);
-            return;
+            return false;
         }
 
         boolean isRefreshing = refreshing.get();
@@ -107,13 +206,19 @@ class ConnectionAttemptManager implements AutoCloseable {
             logger.warn("{} so getting new endpoints", message);
             executorService.submit(
                     new RefreshEventTask(context, client, refreshing, latestRefreshTime, onEagerRefresh, clock));
+            return true;
         } else {
             logger.warn("{} but already refreshing, so not getting new endpoints", message);
+            return false;
         }
     }
 
-    private long waitTime(long start) {
-        return clock.currentTimeMillis() - start;
+    long nanoTime() {
+        return clock.nanoTime();
+    }
+
+    private long waitTimeMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - startNanos);
     }
 
     public void shutdownNow() {
@@ -152,9 +257,14 @@ class ConnectionAttemptManager implements AutoCloseable {
             boolean allowRefresh = refreshing.compareAndSet(false, true);
 
             if (allowRefresh) {
-                client.refreshEndpoints(onEagerRefresh.getEndpoints(context));
-                refreshing.set(false);
-                latestRefreshTime.getAndUpdate(currentValue -> Math.max(clock.currentTimeMillis(), currentValue));
+                try {
+                    client.refreshEndpoints(onEagerRefresh.getEndpoints(context));
+                } finally {
+                    refreshing.set(false);
+                }
+                long now = clock.nanoTime();
+                latestRefreshTime.getAndUpdate(currentValue ->
+                        currentValue == NEVER_REFRESHED || now - currentValue > 0 ? now : currentValue);
             } else {
                 logger.warn("Already refreshing, so taking no action");
             }
@@ -34,39 +34,39 @@ public class ConnectionMetricsCollector {
         return totalConnectionAttempts;
     }
 
-    void succeeded(String address, long startMillis){
+    void succeeded(String address, long durationNanos){
         if (connectionMetrics.containsKey(address)){
-            connectionMetrics.get(address).succeeded(startMillis);
+            connectionMetrics.get(address).succeeded(durationNanos);
         }
     }
 
-    void unavailable(String address, long startMillis){
+    void unavailable(String address, long durationNanos){
         if (connectionMetrics.containsKey(address)) {
-            connectionMetrics.get(address).unavailable(startMillis);
+            connectionMetrics.get(address).unavailable(durationNanos);
         }
     }
 
-    void closing(String address, long startMillis){
+    void closing(String address, long durationNanos){
         if (connectionMetrics.containsKey(address)) {
-            connectionMetrics.get(address).closing(startMillis);
+            connectionMetrics.get(address).closing(durationNanos);
         }
     }
 
-    void dead(String address, long startMillis){
+    void dead(String address, long durationNanos){
         if (connectionMetrics.containsKey(address)) {
-            connectionMetrics.get(address).dead(startMillis);
+            connectionMetrics.get(address).dead(durationNanos);
         }
     }
 
-    void npe(String address, long startMillis){
+    void npe(String address, long durationNanos){
         if (connectionMetrics.containsKey(address)) {
-            connectionMetrics.get(address).npe(startMillis);
+            connectionMetrics.get(address).npe(durationNanos);
         }
     }
 
-    void nha(String address, long startMillis){
+    void nha(String address, long durationNanos){
         if (connectionMetrics.containsKey(address)) {
-            connectionMetrics.get(address).nha(startMillis);
+            connectionMetrics.get(address).nha(durationNanos);
         }
     }
 
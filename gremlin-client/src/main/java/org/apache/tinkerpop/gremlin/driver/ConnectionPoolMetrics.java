@@ -0,0 +1,44 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import java.util.Collection;
+
+public class ConnectionPoolMetrics {
+
+    private final Collection<EndpointConnectionPoolMetrics> metrics;
+
+    ConnectionPoolMetrics(Collection<EndpointConnectionPoolMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    public int getPendingAcquisitions() {
+        int pendingAcquisitions = 0;
+        for (EndpointConnectionPoolMetrics m : metrics) {
+            pendingAcquisitions += m.getPendingAcquisitions();
+        }
+        return pendingAcquisitions;
+    }
+
+    public int getInFlightRequests() {
+        int inFlightRequests = 0;
+        for (EndpointConnectionPoolMetrics m : metrics) {
+            inFlightRequests += m.getInFlightRequests();
+        }
+        return inFlightRequests;
+    }
+
+    public Collection<EndpointConnectionPoolMetrics> getMetrics() {
+        return metrics;
+    }
+}
@@ -11,5 +11,35 @@ permissions and limitations under the License.
 */
 
 package org.apache.tinkerpop.gremlin.driver;
+
+/**
+ * Describes why an eager refresh was triggered. If the refresh was triggered by a burst of classified errors
+ * (see {@link ErrorClassifier}), the context contains the address of the endpoint and the error that completed
+ * the burst; if it was triggered by waiting too long for a connection, both are null.
+ */
 public class EagerRefreshContext {
+
+    private final String endpointAddress;
+    private final Throwable error;
+
+    public EagerRefreshContext() {
+        this(null, null);
+    }
+
+    EagerRefreshContext(String endpointAddress, Throwable error) {
+        this.endpointAddress = endpointAddress;
+        this.error = error;
+    }
+
+    public String getEndpointAddress() {
+        return endpointAddress;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isTriggeredByError() {
+        return error != null;
+    }
 }
@@ -0,0 +1,114 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent eager refreshes for the same key into a single fetch. When several clients in the same
+ * JVM trigger an eager refresh at the same time - for example, because they all saw the same failover - the
+ * first caller fetches endpoints using its handler, and the others wait for and share its result, rather than
+ * each making its own call to the Neptune Management API or Lambda proxy.
+ * <p>
+ * Only concurrent refreshes are coalesced: a refresh that starts after the previous fetch for its key has
+ * completed triggers a new fetch.
+ */
+public class EagerRefreshCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EagerRefreshCoordinator.class);
+
+    private static final EagerRefreshCoordinator SHARED = new EagerRefreshCoordinator();
+
+    /**
+     * The JVM-wide coordinator.
+     */
+    public static EagerRefreshCoordinator shared() {
+        return SHARED;
+    }
+
+    private final ConcurrentMap<Object, CompletableFuture<EndpointCollection>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Returns a handler that coalesces concurrent calls with the same key into a single call to the supplied
+     * handler. Keys are compared using {@code equals()}, so should identify the cluster and the selector
+     * whose endpoints the handler fetches.
+     */
+    public OnEagerRefresh coalesce(Object key, OnEagerRefresh onEagerRefresh) {
+        return context -> getEndpoints(key, onEagerRefresh, context);
+    }
+
+    EndpointCollection getEndpoints(Object key, OnEagerRefresh onEagerRefresh, EagerRefreshContext context) {
+
+        CompletableFuture<EndpointCollection> future = new CompletableFuture<>();
+        CompletableFuture<EndpointCollection> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            logger.debug("Joining in-flight eager refresh [key: {}]", key);
+            return await(existing);
+        }
+
+        fetchCount.incrementAndGet();
+
+        try {
+            future.complete(onEagerRefresh.getEndpoints(context));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+
+        return await(future);
+    }
+
+    /**
+     * Number of fetches made by handlers on behalf of this coordinator.
+     */
+    public long fetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * Number of refreshes that were satisfied by joining another caller's in-flight fetch.
+     */
+    public long coalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private static EndpointCollection await(CompletableFuture<EndpointCollection> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for eager refresh", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
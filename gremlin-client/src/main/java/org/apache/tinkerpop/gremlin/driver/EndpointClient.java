@@ -12,6 +12,7 @@ permissions and limitations under the License.
 
 package org.apache.tinkerpop.gremlin.driver;
 
+import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,6 +22,10 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 class EndpointClient implements IgnoresSelectedExceptions {
@@ -67,6 +72,13 @@ class EndpointClient implements IgnoresSelectedExceptions {
 
     private final Endpoint endpoint;
     private final Client client;
+    // Connections currently borrowed through this client. A connection is untracked once it has been returned to
+    // its pool, or is closing, dead or being replaced, so the set never grows beyond the connections in use.
+    // Connections that are dead or closing when acquired, or when untracked, are counted by reason.
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingAcquisitions = new AtomicInteger();
+    private final AtomicLong closingConnections = new AtomicLong();
+    private final AtomicLong deadConnections = new AtomicLong();
 
     EndpointClient(Endpoint endpoint, Client client) {
         this.endpoint = endpoint;
@@ -93,4 +105,86 @@ class EndpointClient implements IgnoresSelectedExceptions {
         return client.closeAsync();
     }
 
+    Connection acquireConnection(RequestMessage msg) throws TimeoutException {
+        pendingAcquisitions.incrementAndGet();
+        try {
+            Connection connection = client.chooseConnection(msg);
+            if (connection.isDead()) {
+                deadConnections.incrementAndGet();
+            } else if (connection.isClosing()) {
+                closingConnections.incrementAndGet();
+            } else {
+                connections.add(connection);
+            }
+            untrackReleasedConnections();
+            return connection;
+        } finally {
+            pendingAcquisitions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the live state of the connection pool for this endpoint.
+     */
+    EndpointConnectionPoolMetrics poolMetrics() {
+
+        int openConnections = 0;
+        int connectionsAwaitingClose = 0;
+        int maxPoolSize = 0;
+        int maxInProcessPerConnection = 0;
+
+        if (client instanceof Client.ClusteredClient) {
+            for (ConnectionPool pool : ((Client.ClusteredClient) client).hostConnectionPools.values()) {
+                openConnections += pool.getConnectionIDs().size();
+                connectionsAwaitingClose += pool.numConnectionsWaitingToCleanup();
+                maxPoolSize += pool.settings().maxSize;
+                maxInProcessPerConnection = pool.settings().maxInProcessPerConnection;
+            }
+        }
+
+        int borrowedConnections = 0;
+        int inFlightRequests = 0;
+        int maxInFlightPerConnection = 0;
+
+        untrackReleasedConnections();
+
+        for (Connection connection : connections) {
+            borrowedConnections++;
+            int inFlight = connection.getPending().size();
+            inFlightRequests += inFlight;
+            maxInFlightPerConnection = Math.max(maxInFlightPerConnection, inFlight);
+        }
+
+        return new EndpointConnectionPoolMetrics(
+                endpoint.getAddress(),
+                openConnections,
+                maxPoolSize,
+                borrowedConnections,
+                inFlightRequests,
+                maxInFlightPerConnection,
+                maxInProcessPerConnection,
+                pendingAcquisitions.get(),
+                connectionsAwaitingClose,
+                closingConnections.get(),
+                deadConnections.get());
+    }
+
+    // Dead and closing connections are counted as they are untracked, so that a borrowed connection that dies or
+    // starts closing while in use is reported. Only the thread that removes a connection counts it.
+    private void untrackReleasedConnections() {
+        for (Connection connection : connections) {
+            if (connection.isDead()) {
+                if (connections.remove(connection)) {
+                    deadConnections.incrementAndGet();
+                }
+            } else if (connection.isClosing()) {
+                if (connections.remove(connection)) {
+                    closingConnections.incrementAndGet();
+                }
+            } else if (connection.borrowed.get() <= 0 || connection.isBeingReplaced.get()) {
+                connections.remove(connection);
+            }
+        }
+    }
+
 }
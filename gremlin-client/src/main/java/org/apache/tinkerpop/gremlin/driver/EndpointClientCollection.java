@@ -16,6 +16,7 @@ import org.apache.tinkerpop.gremlin.driver.exception.NoHostAvailableException;
 import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.utils.Clock;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -35,7 +36,9 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
     private final boolean collectMetrics;
     private final ConnectionMetricsCollector connectionMetrics;
     private final RequestMetricsCollector requestMetrics;
-    private final long startMillis = System.currentTimeMillis();
+    private final MetricsHandler metricsHandler;
+    private final Clock clock;
+    private final long startNanos;
     private final ExecutorService executorService;
     private volatile boolean allowSubmitMetrics = true;
 
@@ -45,9 +48,12 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         this.rejectedEndpoints = builder.getRejectedEndpoints();
         this.endpointClients = builder.getEndpointClients();
         this.collectMetrics = builder.collectMetrics();
-        this.executorService = collectMetrics ? Executors.newSingleThreadExecutor() : null;
+        this.clock = builder.clock();
+        this.startNanos = clock.nanoTime();
+        this.executorService = collectMetrics ? builder.executionMode().newSerialExecutor() : null;
         this.connectionMetrics = collectMetrics ? initConnectionMetrics(endpointClients) : null;
         this.requestMetrics = collectMetrics ? initRequestMetrics(endpointClients) : null;
+        this.metricsHandler = builder.getMetricsHandler();
         validateEndpointClients(endpointClients);
     }
 
@@ -67,7 +73,7 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         Map<String, EndpointRequestMetrics> requestMetrics = new ConcurrentHashMap<>();
         for (EndpointClient endpointClient : endpointClients) {
             String address = endpointClient.endpoint().getAddress();
-            requestMetrics.put(address, new EndpointRequestMetrics(address));
+            requestMetrics.put(address, new EndpointRequestMetrics(address, clock));
         }
         return new RequestMetricsCollector(requestMetrics);
     }
@@ -93,55 +99,51 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         return results;
     }
 
-    Connection chooseConnection(RequestMessage msg, ChooseEndpointStrategy strategy) throws TimeoutException {
+    RequestContext chooseConnection(RequestMessage msg, ChooseEndpointStrategy strategy) throws TimeoutException {
 
-        UUID traceId = msg.getRequestId();
-
-        long startMillis = System.currentTimeMillis();
+        long startNanos = clock.nanoTime();
 
         EndpointClient endpointClient = strategy.choose(this);
+
+        if (endpointClient == null) {
+            return null;
+        }
+
         String address = endpointClient.endpoint().getAddress();
 
         if (!endpointClient.isAvailable()) {
             logger.debug("No connections available for {}", address);
-            submitMetrics(() -> connectionMetrics.unavailable(address, startMillis));
+            registerConnectionAttempt(address, "unavailable", startNanos, connectionMetrics::unavailable);
             return null;
         }
 
         try {
 
-            Connection connection = endpointClient.client().chooseConnection(msg);
+            Connection connection = endpointClient.acquireConnection(msg);
 
             if (connection.isClosing()) {
                 logger.debug("Connection is closing: {}", address);
-                submitMetrics(() -> connectionMetrics.closing(address, startMillis));
+                registerConnectionAttempt(address, "closing", startNanos, connectionMetrics::closing);
                 return null;
             }
 
             if (connection.isDead()) {
                 logger.debug("Connection is dead: {}", address);
-                submitMetrics(() -> connectionMetrics.dead(address, startMillis));
+                registerConnectionAttempt(address, "dead", startNanos, connectionMetrics::dead);
                 return null;
             }
 
-            submitMetrics(() -> {
-                try {
-                    connectionMetrics.succeeded(address, startMillis);
-                    requestMetrics.registerAddressForTraceId(traceId, address);
-                } catch (Exception e) {
-                    logger.error("Error while submitting metrics", e);
-                }
-            });
+            registerConnectionAttempt(address, "succeeded", startNanos, connectionMetrics::succeeded);
 
-            return connection;
+            return new RequestContext(this, endpointClient, connection);
 
         } catch (NullPointerException e) {
             logger.debug("NullPointerException: {}", address, e);
-            submitMetrics(() -> connectionMetrics.npe(address, startMillis));
+            registerConnectionAttempt(address, "npe", startNanos, connectionMetrics::npe);
             return null;
         } catch (NoHostAvailableException e) {
             logger.debug("No connection available: {}", address, e);
-            submitMetrics(() -> connectionMetrics.nha(address, startMillis));
+            registerConnectionAttempt(address, "nha", startNanos, connectionMetrics::nha);
             return null;
         }
     }
@@ -178,12 +180,30 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         return !rejectedEndpoints.isEmpty();
     }
 
+    Collection<EndpointConnectionPoolMetrics> poolMetrics() {
+        return endpointClients.stream()
+                .map(EndpointClient::poolMetrics)
+                .collect(Collectors.toList());
+    }
+
     Collection<String> rejectionReasons() {
         return rejectedEndpoints.stream()
                 .map(e -> e.getAnnotations().getOrDefault(REJECTED_REASON_ANNOTATION, "unknown"))
                 .collect(Collectors.toSet());
     }
 
+    // The duration is measured here, rather than on the metrics thread, so that it doesn't include the time the
+    // attempt spends queued for the metrics thread
+    private void registerConnectionAttempt(String address, String outcome, long startNanos, ConnectionAttemptMetric metric) {
+        long durationNanos = clock.nanoTime() - startNanos;
+        submitMetrics(() -> {
+            metric.record(address, durationNanos);
+            if (metricsHandler != null) {
+                metricsHandler.onConnectionAttempt(address, outcome);
+            }
+        });
+    }
+
     private void submitMetrics(Runnable runnable){
         if (collectMetrics && allowSubmitMetrics) {
             try {
@@ -205,7 +225,7 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         if (handler != null && executorService != null){
 
             Future<?> future = executorService.submit(() -> {
-                long duration = System.currentTimeMillis() - startMillis;
+                long duration = TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - startNanos);
 
                 ConnectionMetrics conMetrics = new ConnectionMetrics(
                         duration,
@@ -216,7 +236,6 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
                         duration,
                         requestMetrics.totalRequests(),
                         requestMetrics.failedRequests(),
-                        requestMetrics.droppedRequests(),
                         requestMetrics.skippedResponses(),
                         requestMetrics.metrics());
 
@@ -236,14 +255,27 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         }
     }
 
-    void registerDurationForTraceId(UUID traceId, long durationMillis, Throwable e) {
-        submitMetrics(() -> requestMetrics.registerDurationForTraceId(traceId, durationMillis, e));
+    void registerRequest(EndpointClient endpointClient, RequestTimings timings, Throwable e) {
+        String address = endpointClient.endpoint().getAddress();
+        submitMetrics(() -> {
+            requestMetrics.registerRequest(address, timings, e);
+            if (metricsHandler != null) {
+                metricsHandler.onRequestCompleted(address, timings, e);
+            }
+        });
+    }
+
+    private interface ConnectionAttemptMetric {
+        void record(String address, long durationNanos);
     }
 
     static class Builder {
         private List<EndpointClient> endpointClients = new ArrayList<>();
         private EndpointCollection rejectedEndpoints = new EndpointCollection();
         private boolean collectMetrics = false;
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+        private MetricsHandler metricsHandler;
+        private Clock clock = Clock.SYSTEM;
 
         private Builder(){
 
@@ -264,6 +296,21 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
             return this;
         }
 
+        public Builder withExecutionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+
+        public Builder withMetricsHandler(MetricsHandler metricsHandler) {
+            this.metricsHandler = metricsHandler;
+            return this;
+        }
+
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
         List<EndpointClient> getEndpointClients() {
             return endpointClients;
         }
@@ -275,5 +322,17 @@ class EndpointClientCollection implements Iterable<EndpointClient> {
         boolean collectMetrics() {
             return collectMetrics;
         }
+
+        ExecutionMode executionMode() {
+            return executionMode;
+        }
+
+        MetricsHandler getMetricsHandler() {
+            return metricsHandler;
+        }
+
+        Clock clock() {
+            return clock;
+        }
     }
 }
@@ -20,42 +20,42 @@ public class EndpointConnectionMetrics {
     private long dead = 0;
     private long npe = 0;
     private long nha = 0;
-    private long minMillis = 0;
-    private long maxMillis = 0;
-    private long totalMillis;
+    private long minNanos = 0;
+    private long maxNanos = 0;
+    private long totalNanos;
 
     EndpointConnectionMetrics(String address) {
         this.address = address;
     }
 
-    void succeeded(long startMillis){
+    void succeeded(long durationNanos){
         succeeded++;
-        updateTimings(startMillis);
+        updateTimings(durationNanos);
     }
 
-    void unavailable(long startMillis){
+    void unavailable(long durationNanos){
         unavailable++;
-        updateTimings(startMillis);
+        updateTimings(durationNanos);
     }
 
-    void closing(long startMillis){
+    void closing(long durationNanos){
         closing++;
-        updateTimings(startMillis);
+        updateTimings(durationNanos);
     }
 
-    void dead(long startMillis){
+    void dead(long durationNanos){
         dead++;
-        updateTimings(startMillis);
+        updateTimings(durationNanos);
     }
 
-    void npe(long startMillis){
+    void npe(long durationNanos){
         npe++;
-        updateTimings(startMillis);
+        updateTimings(durationNanos);
     }
 
-    void nha(long startMillis){
+    void nha(long durationNanos){
         nha++;
-        updateTimings(startMillis);
+        updateTimings(durationNanos);
     }
     public String getAddress() {
         return address;
@@ -85,12 +85,12 @@ public class EndpointConnectionMetrics {
         return nha;
     }
 
-    public long getMinTimeToAcquireMillis() {
-        return minMillis;
+    public double getMinTimeToAcquireMillis() {
+        return RequestTimings.toMillis(minNanos);
     }
 
-    public long getMaxTimeToAcquireMillis() {
-        return maxMillis;
+    public double getMaxTimeToAcquireMillis() {
+        return RequestTimings.toMillis(maxNanos);
     }
 
     public long getTotalAttempts(){
@@ -98,24 +98,22 @@ public class EndpointConnectionMetrics {
     }
 
     public double getAverageTimeToAcquireMillis(){
-        return (double)totalMillis/(double) getTotalAttempts();
+        return RequestTimings.toMillis(totalNanos)/(double) getTotalAttempts();
     }
 
-    private void updateTimings(long startMillis){
-        long endMillis = System.currentTimeMillis();
-        long duration = endMillis - startMillis;
-        totalMillis += duration;
-        if (duration > maxMillis){
-            maxMillis = duration;
+    private void updateTimings(long durationNanos){
+        if (getTotalAttempts() == 1 || durationNanos < minNanos){
+            minNanos = durationNanos;
         }
-        if (duration < minMillis){
-            minMillis = duration;
+        if (durationNanos > maxNanos){
+            maxNanos = durationNanos;
         }
+        totalNanos += durationNanos;
     }
 
     @Override
     public String toString() {
-        return String.format("%s [total: %s, succeeded: %s, unavailable: %s, closing: %s, dead: %s, npe: %s, nha: %s, minMillis: %s, maxMillis: %s, avgMillis: %.2f]",
+        return String.format("%s [total: %s, succeeded: %s, unavailable: %s, closing: %s, dead: %s, npe: %s, nha: %s, minMillis: %.3f, maxMillis: %.3f, avgMillis: %.3f]",
                 getAddress(),
                 getTotalAttempts(),
                 getSucceededCount(),
@@ -0,0 +1,145 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+/**
+ * Point-in-time gauges for the connection pool belonging to a single endpoint.
+ */
+public class EndpointConnectionPoolMetrics {
+    private final String address;
+    private final int openConnections;
+    private final int maxPoolSize;
+    private final int borrowedConnections;
+    private final int inFlightRequests;
+    private final int maxInFlightPerConnection;
+    private final int maxInProcessPerConnection;
+    private final int pendingAcquisitions;
+    private final int connectionsAwaitingClose;
+    private final long closingConnections;
+    private final long deadConnections;
+
+    EndpointConnectionPoolMetrics(String address,
+                                  int openConnections,
+                                  int maxPoolSize,
+                                  int borrowedConnections,
+                                  int inFlightRequests,
+                                  int maxInFlightPerConnection,
+                                  int maxInProcessPerConnection,
+                                  int pendingAcquisitions,
+                                  int connectionsAwaitingClose,
+                                  long closingConnections,
+                                  long deadConnections) {
+        this.address = address;
+        this.openConnections = openConnections;
+        this.maxPoolSize = maxPoolSize;
+        this.borrowedConnections = borrowedConnections;
+        this.inFlightRequests = inFlightRequests;
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        this.maxInProcessPerConnection = maxInProcessPerConnection;
+        this.pendingAcquisitions = pendingAcquisitions;
+        this.connectionsAwaitingClose = connectionsAwaitingClose;
+        this.closingConnections = closingConnections;
+        this.deadConnections = deadConnections;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Number of connections currently open in the pool.
+     */
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Maximum number of connections the pool can grow to.
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Number of connections currently borrowed from the pool.
+     */
+    public int getBorrowedConnections() {
+        return borrowedConnections;
+    }
+
+    /**
+     * Number of requests that have been written to a connection and have not yet completed.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    /**
+     * Highest number of in-flight requests on any single connection. Compare with
+     * {@link #getMaxInProcessPerConnection()} to determine whether connections are saturated.
+     */
+    public int getMaxInFlightPerConnection() {
+        return maxInFlightPerConnection;
+    }
+
+    public int getMaxInProcessPerConnection() {
+        return maxInProcessPerConnection;
+    }
+
+    /**
+     * Number of callers currently waiting to acquire a connection from the pool.
+     */
+    public int getPendingAcquisitions() {
+        return pendingAcquisitions;
+    }
+
+    /**
+     * Number of connections that have been removed from the pool and are waiting for their in-flight
+     * requests to complete before closing.
+     */
+    public int getConnectionsAwaitingClose() {
+        return connectionsAwaitingClose;
+    }
+
+    /**
+     * Number of connections acquired from the pool that were found to be closing, either when acquired, or
+     * while borrowed.
+     */
+    public long getClosingConnectionsCount() {
+        return closingConnections;
+    }
+
+    /**
+     * Number of connections acquired from the pool that were found to be dead, either when acquired, or
+     * while borrowed.
+     */
+    public long getDeadConnectionsCount() {
+        return deadConnections;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [open: %s, maxPoolSize: %s, borrowed: %s, inFlight: %s, maxInFlightPerConnection: %s, maxInProcessPerConnection: %s, pendingAcquisitions: %s, awaitingClose: %s, closing: %s, dead: %s]",
+                getAddress(),
+                getOpenConnections(),
+                getMaxPoolSize(),
+                getBorrowedConnections(),
+                getInFlightRequests(),
+                getMaxInFlightPerConnection(),
+                getMaxInProcessPerConnection(),
+                getPendingAcquisitions(),
+                getConnectionsAwaitingClose(),
+                getClosingConnectionsCount(),
+                getDeadConnectionsCount());
+    }
+}
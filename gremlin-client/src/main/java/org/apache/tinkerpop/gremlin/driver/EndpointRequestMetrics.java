@@ -12,34 +12,54 @@ permissions and limitations under the License.
 
 package org.apache.tinkerpop.gremlin.driver;
 
+import software.amazon.utils.Clock;
+
 import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 public class EndpointRequestMetrics {
-    private final long start = System.currentTimeMillis();
+    private final Clock clock;
+    private final long startNanos;
 
     private final String address;
-    private long totalDurationMillis;
-    private long minMillis = 0L;
-    private long maxMillis = 0L;
     private long successCount;
     private long errorCount;
     private final ConcurrentHashMap<Class<? extends Throwable>, ErrorMetric> errors = new ConcurrentHashMap<>();
+    private final RequestPhaseMetrics latency = new RequestPhaseMetrics("total");
+    private final RequestPhaseMetrics acquisition = new RequestPhaseMetrics("acquisition");
+    private final RequestPhaseMetrics queueing = new RequestPhaseMetrics("queueing");
+    private final RequestPhaseMetrics response = new RequestPhaseMetrics("response");
+    private long acquisitionRetries;
 
     public EndpointRequestMetrics(String address) {
+        this(address, Clock.SYSTEM);
+    }
+
+    EndpointRequestMetrics(String address, Clock clock) {
         this.address = address;
+        this.clock = clock;
+        this.startNanos = clock.nanoTime();
     }
 
-    public void update(long duration, Throwable e) {
-        totalDurationMillis += duration;
-        if (duration > maxMillis) {
-            maxMillis = duration;
-        }
-        if (duration < minMillis) {
-            minMillis = duration;
+    public void update(long durationMillis, Throwable e) {
+        record(TimeUnit.MILLISECONDS.toNanos(durationMillis), e);
+    }
+
+    void update(RequestTimings timings, Throwable e) {
+        record(timings.totalNanos(), e);
+        acquisition.update(timings.acquisitionNanos());
+        acquisitionRetries += timings.acquisitionRetries();
+        queueing.update(timings.queueingNanos());
+        if (timings.hasResponse()) {
+            response.update(timings.responseNanos());
         }
+    }
+
+    private void record(long durationNanos, Throwable e) {
+        latency.update(durationNanos);
         if (e == null) {
             successCount++;
         } else {
@@ -71,27 +91,63 @@ public class EndpointRequestMetrics {
 
     public double getRatePerSecond() {
 
-        long duration = System.currentTimeMillis() - start;
-        return (double) successCount / ((double) (duration) / 1000.00);
+        long durationNanos = clock.nanoTime() - startNanos;
+        return (double) successCount / ((double) durationNanos / 1_000_000_000.00);
 
     }
 
     public double getAverageLatencyMillis() {
-        return (double) totalDurationMillis / (double) successCount;
+        return latency.getTotalMillis() / (double) successCount;
     }
 
-    public long getMinLatencyMillis() {
-        return minMillis;
+    public double getMinLatencyMillis() {
+        return latency.getMinMillis();
     }
 
-    public long getMaxLatencyMillis() {
-        return maxMillis;
+    public double getMaxLatencyMillis() {
+        return latency.getMaxMillis();
     }
 
     public Collection<ErrorMetric> getErrors(){
         return errors.values();
     }
 
+    /**
+     * Latency of requests from choosing a connection to receiving the last result, including a histogram.
+     */
+    public RequestPhaseMetrics getLatencyMetrics() {
+        return latency;
+    }
+
+    /**
+     * Time taken to choose this endpoint and acquire a connection, including any retries.
+     */
+    public RequestPhaseMetrics getAcquisitionMetrics() {
+        return acquisition;
+    }
+
+    /**
+     * Number of times the client had to retry before it could acquire a connection.
+     */
+    public long getAcquisitionRetries() {
+        return acquisitionRetries;
+    }
+
+    /**
+     * Time between acquiring a connection and the request being written to the socket.
+     */
+    public RequestPhaseMetrics getQueueingMetrics() {
+        return queueing;
+    }
+
+    /**
+     * Time between the request being written to the socket and the last result being received.
+     * This covers network transfer and server evaluation.
+     */
+    public RequestPhaseMetrics getResponseMetrics() {
+        return response;
+    }
+
     @Override
     public String toString() {
 
@@ -99,7 +155,7 @@ public class EndpointRequestMetrics {
                 "" :
                 String.format(", errors: [%s]", getErrors().stream().map(ErrorMetric::toString).collect(Collectors.joining(", ")));
 
-        return String.format("%s [succeeded: %s, failed: %s, ratePerSec: %.3f, minMillis: %s, maxMillis: %s, avgMillis: %.2f%s]",
+        return String.format("%s [succeeded: %s, failed: %s, ratePerSec: %.3f, minMillis: %.3f, maxMillis: %.3f, avgMillis: %.3f, acquireAvgMillis: %.3f, retries: %s, queueAvgMillis: %.3f, responseAvgMillis: %.3f%s]",
                 getAddress(),
                 getSuccessCount(),
                 getErrorCount(),
@@ -107,6 +163,10 @@ public class EndpointRequestMetrics {
                 getMinLatencyMillis(),
                 getMaxLatencyMillis(),
                 getAverageLatencyMillis(),
+                acquisition.getAverageMillis(),
+                getAcquisitionRetries(),
+                queueing.getAverageMillis(),
+                response.getAverageMillis(),
                 errorString
         );
     }
@@ -0,0 +1,106 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts classified errors per endpoint, and reports a burst when an endpoint returns {@code threshold}
+ * classified errors within {@code windowMillis}.
+ */
+class ErrorBurstDetector {
+
+    private final Collection<ErrorClassifier> classifiers;
+    private final int threshold;
+    private final int windowMillis;
+    private final long windowNanos;
+    private final Map<String, ErrorWindow> windows = new ConcurrentHashMap<>();
+
+    ErrorBurstDetector(Collection<ErrorClassifier> classifiers, int threshold, int windowMillis) {
+        this.classifiers = classifiers;
+        this.threshold = Math.max(1, threshold);
+        this.windowMillis = windowMillis;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    boolean isEnabled() {
+        return !classifiers.isEmpty();
+    }
+
+    int threshold() {
+        return threshold;
+    }
+
+    int windowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Records the error if it matches one of the classifiers.
+     *
+     * @return true if the error completes a burst of classified errors for the endpoint
+     */
+    boolean recordError(String address, Throwable e, long nowNanos) {
+        if (e == null || !isClassified(e)) {
+            return false;
+        }
+        return windows.computeIfAbsent(address, a -> new ErrorWindow(threshold)).record(nowNanos, windowNanos);
+    }
+
+    /**
+     * Forgets errors for endpoints that are no longer in use.
+     */
+    void retainAll(Collection<String> addresses) {
+        windows.keySet().retainAll(addresses);
+    }
+
+    private boolean isClassified(Throwable e) {
+        for (ErrorClassifier classifier : classifiers) {
+            if (classifier.matches(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ring buffer holding the times of the most recent {@code threshold} errors. A burst has occurred
+     * when the buffer is full and the oldest error is within the window.
+     */
+    private static class ErrorWindow {
+
+        private final long[] times;
+        private int next = 0;
+        private int count = 0;
+
+        ErrorWindow(int threshold) {
+            this.times = new long[threshold];
+        }
+
+        synchronized boolean record(long nowNanos, long windowNanos) {
+            times[next] = nowNanos;
+            next = (next + 1) % times.length;
+            if (count < times.length) {
+                count++;
+            }
+            if (count == times.length && nowNanos - times[next] <= windowNanos) {
+                count = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
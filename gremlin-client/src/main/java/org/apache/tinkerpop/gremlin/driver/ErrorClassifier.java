@@ -0,0 +1,23 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+/**
+ * Identifies request errors that suggest a client's endpoints are out of date - for example, the
+ * ReadOnlyViolationException returned by a former primary after a failover. Bursts of classified errors
+ * from an endpoint trigger an eager refresh (see {@link GremlinClusterBuilder#addEagerRefreshErrorClassifier}).
+ */
+@FunctionalInterface
+public interface ErrorClassifier {
+    boolean matches(Throwable e);
+}
@@ -0,0 +1,76 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Commonly used {@link ErrorClassifier}s.
+ */
+public class ErrorClassifiers {
+
+    /**
+     * Matches the ReadOnlyViolationException returned when a write is sent to an instance that is no longer the
+     * primary, which happens when existing connections to the old primary survive a failover.
+     */
+    public static ErrorClassifier readOnlyViolation() {
+        return messageContains("ReadOnlyViolationException");
+    }
+
+    /**
+     * Matches connections being reset or closed by the server, which happens when an instance is rebooted,
+     * deleted or fails over.
+     */
+    public static ErrorClassifier connectionReset() {
+        ErrorClassifier closedChannel = causedBy(ClosedChannelException.class);
+        ErrorClassifier resetMessage = messageContains(
+                "Connection reset",
+                "Connection to server is no longer active",
+                "Broken pipe");
+        return e -> closedChannel.matches(e) || resetMessage.matches(e);
+    }
+
+    /**
+     * Matches errors with any of the given strings in the message of the error or one of its causes.
+     */
+    public static ErrorClassifier messageContains(String... signatures) {
+        return e -> {
+            for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+                String message = t.getMessage();
+                if (message == null) {
+                    continue;
+                }
+                for (String signature : signatures) {
+                    if (message.contains(signature)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Matches errors that are, or are caused by, an instance of the given class.
+     */
+    public static ErrorClassifier causedBy(Class<? extends Throwable> errorClass) {
+        return e -> {
+            for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+                if (errorClass.isInstance(t)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+}
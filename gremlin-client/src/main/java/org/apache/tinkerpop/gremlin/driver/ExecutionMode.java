@@ -0,0 +1,143 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determines the threads on which a client runs its background tasks: eager refreshes, metrics collection,
+ * writer failover and, for a refresh agent, polling and fan-out.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Each client creates its own single-thread executors, backed by platform threads. The default.
+     */
+    PLATFORM_THREADS {
+        @Override
+        ExecutorService newSerialExecutor() {
+            return Executors.newSingleThreadExecutor();
+        }
+
+        @Override
+        public ScheduledExecutorService newScheduledExecutor(String namePrefix) {
+            return Executors.newSingleThreadScheduledExecutor();
+        }
+
+        @Override
+        public ThreadFactory threadFactory(String namePrefix) {
+            return daemonThreadFactory(namePrefix);
+        }
+    },
+
+    /**
+     * Background tasks run on virtual threads, so that a process with many clients does not need a platform
+     * thread for each of them. On JVMs that do not support virtual threads (before Java 21), tasks run on a pool
+     * of daemon threads shared by all clients.
+     */
+    VIRTUAL_THREADS {
+        @Override
+        ExecutorService newSerialExecutor() {
+            return new SerialExecutorService(SharedThreads.TASK_EXECUTOR);
+        }
+
+        @Override
+        public ScheduledExecutorService newScheduledExecutor(String namePrefix) {
+            return Executors.newSingleThreadScheduledExecutor(threadFactory(namePrefix));
+        }
+
+        @Override
+        public ThreadFactory threadFactory(String namePrefix) {
+            ThreadFactory virtualThreadFactory = SharedThreads.virtualThreadFactory(namePrefix);
+            return virtualThreadFactory != null ? virtualThreadFactory : daemonThreadFactory(namePrefix);
+        }
+    };
+
+    /**
+     * Whether this JVM supports virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return SharedThreads.virtualThreadFactory("probe-") != null;
+    }
+
+    /**
+     * An executor that runs one task at a time, in the order in which they were submitted.
+     */
+    abstract ExecutorService newSerialExecutor();
+
+    /**
+     * A single-threaded scheduled executor.
+     */
+    public abstract ScheduledExecutorService newScheduledExecutor(String namePrefix);
+
+    /**
+     * Creates daemon threads, or virtual threads, whose names start with {@code namePrefix}.
+     */
+    public abstract ThreadFactory threadFactory(String namePrefix);
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class SharedThreads {
+
+        private static final Logger logger = LoggerFactory.getLogger(ExecutionMode.class);
+
+        private static final Executor TASK_EXECUTOR = createTaskExecutor();
+
+        private static Executor createTaskExecutor() {
+            ThreadFactory virtualThreadFactory = virtualThreadFactory("gremlin-client-task-");
+            if (virtualThreadFactory != null) {
+                return runnable -> virtualThreadFactory.newThread(runnable).start();
+            }
+            logger.info("Virtual threads are not supported by this JVM, so background tasks will run on a shared pool of platform threads");
+            return new ThreadPoolExecutor(
+                    0,
+                    Integer.MAX_VALUE,
+                    60,
+                    TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    daemonThreadFactory("gremlin-client-task-"));
+        }
+
+        /**
+         * Uses reflection, so that the library can still be compiled for, and run on, Java 17.
+         */
+        private static ThreadFactory virtualThreadFactory(String namePrefix) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -14,7 +14,6 @@ package org.apache.tinkerpop.gremlin.driver;
 
 import org.apache.tinkerpop.gremlin.driver.exception.ConnectionException;
 import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
-import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.utils.CollectionUtils;
@@ -22,14 +21,19 @@ import software.amazon.utils.CollectionUtils;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
-public class GremlinClient extends Client implements Refreshable, AutoCloseable {
+public class GremlinClient extends Client implements Refreshable, PausableEndpoints, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(GremlinClient.class);
 
@@ -37,11 +41,18 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
     private final AtomicLong index = new AtomicLong(0);
     private final AtomicReference<CompletableFuture<Void>> closing = new AtomicReference<>(null);
     private final ConnectionAttemptManager connectionAttemptManager;
+    private final WriterFailoverManager writerFailoverManager;
+    private final Set<String> pausedEndpoints = ConcurrentHashMap.newKeySet();
     private final ClientClusterCollection clientClusterCollection;
     private final EndpointStrategies endpointStrategies;
     private final AcquireConnectionConfig acquireConnectionConfig;
     private final MetricsConfig metricsConfig;
     private final Map<Class<? extends Exception>, Set<String>> ignoreExceptionsDuringEndpointCreation;
+    // Locks from java.util.concurrent, rather than monitors, so that virtual threads waiting on them don't pin
+    // their carrier threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock endpointsChangedLock = new ReentrantLock();
+    private final Condition endpointsChanged = endpointsChangedLock.newCondition();
 
     GremlinClient(Cluster cluster,
                   Settings settings,
@@ -58,6 +69,7 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
         this.endpointStrategies = endpointStrategies;
         this.acquireConnectionConfig = acquireConnectionConfig;
         this.connectionAttemptManager = acquireConnectionConfig.createConnectionAttemptManager(this);
+        this.writerFailoverManager = acquireConnectionConfig.createWriterFailoverManager(this);
         this.metricsConfig = metricsConfig;
         this.ignoreExceptionsDuringEndpointCreation = ignoreExceptionsDuringEndpointCreation;
 
@@ -90,12 +102,25 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
      * Refreshes the list of endpoint addresses to which the client connects.
      */
     @Override
-    public synchronized void refreshEndpoints(EndpointCollection endpoints) {
+    public void refreshEndpoints(EndpointCollection endpoints) {
+        lock.lock();
+        try {
+            refreshEndpointsWhileLocked(endpoints);
+        } finally {
+            lock.unlock();
+        }
+        signalEndpointsChanged();
+    }
+
+    private void refreshEndpointsWhileLocked(EndpointCollection endpoints) {
 
         if (closing.get() != null) {
             return;
         }
 
+        RefreshEndpointsEvent event = new RefreshEndpointsEvent();
+        event.begin();
+
         EndpointFilter endpointFilter =
                 new EmptyEndpointFilter(endpointStrategies.endpointFilter());
 
@@ -118,37 +143,138 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
                         .withEndpointClients(CollectionUtils.join(survivingEndpointClients, newEndpointClients))
                         .withRejectedEndpoints(rejectedEndpoints)
                         .setCollectMetrics(metricsConfig.enableMetrics())
+                        .withMetricsHandler(metricsConfig.metricsHandlers())
+                        .withExecutionMode(acquireConnectionConfig.executionMode())
+                        .withClock(acquireConnectionConfig.clock())
         );
 
         endpointClientCollection.set(newEndpointClientCollection);
         clientClusterCollection.removeClustersWithNoMatchingEndpoint(newEndpointClientCollection.endpoints());
+        connectionAttemptManager.retainErrorsFor(
+                newEndpointClientCollection.endpoints().stream().map(Endpoint::getAddress).collect(Collectors.toList()));
 
         currentEndpointClientCollection.close(metricsConfig.metricsHandlers());
+
+        if (event.shouldCommit()) {
+            event.added = newEndpointClients.size();
+            event.removed = currentEndpointClientCollection.size() - survivingEndpointClients.size();
+            event.rejected = rejectedEndpoints.size();
+            event.commit();
+        }
     }
 
     public EndpointCollection currentEndpoints(){
         return endpointClientCollection.get().endpoints();
     }
 
+    /**
+     * Takes a snapshot of the live connection pool gauges for each of the client's current endpoints.
+     * Unlike connection and request metrics, pool metrics are available whether or not metrics are enabled.
+     */
+    public ConnectionPoolMetrics poolMetrics(){
+        return new ConnectionPoolMetrics(endpointClientCollection.get().poolMetrics());
+    }
+
     @Override
     protected void initializeImplementation() {
         // Do nothing
     }
 
+    /**
+     * Submits the request to a connection chosen from the client's current endpoints. The endpoint that
+     * services the request is carried alongside the request so that its response can be attributed to
+     * that endpoint in the request metrics. The request is timed from acquiring a connection through to
+     * receiving its last result, with acquisition, queueing and response phases recorded separately.
+     */
+    @Override
+    public CompletableFuture<ResultSet> submitAsync(RequestMessage msg) {
+
+        if (isClosing()) {
+            throw new IllegalStateException("Client is closed");
+        }
+
+        if (!initialized) {
+            init();
+        }
+
+        CompletableFuture<ResultSet> future = new CompletableFuture<>();
+
+        RequestContext requestContext = null;
+
+        try {
+            requestContext = chooseRequestContext(msg);
+
+            RequestContext context = requestContext;
+            requestContext.connection().write(msg, future).addListener(f -> {
+                if (f.isSuccess()) {
+                    context.written(connectionAttemptManager.nanoTime());
+                }
+            });
+
+            future.whenComplete((results, throwable) -> {
+                if (throwable != null) {
+                    onCompleted(msg, context, null, throwable);
+                } else {
+                    results.allItemsAvailableAsync().whenComplete((v, t) -> onCompleted(msg, context, results, t));
+                }
+            });
+
+            return future;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Submitted {} to - {}",
+                        msg,
+                        requestContext == null ? "connection not initialized" : requestContext.connection().toString());
+            }
+        }
+    }
+
+    private void onCompleted(RequestMessage msg, RequestContext context, ResultSet results, Throwable e) {
+        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+        RequestTimings timings = context.completed(connectionAttemptManager.nanoTime(), cause);
+        if (cause != null) {
+            if (!writerFailoverManager.onRequestError(context.address(), cause)) {
+                connectionAttemptManager.onRequestError(context.address(), cause);
+            }
+        }
+        metricsConfig.slowQueryLog().record(
+                msg,
+                context.address(),
+                timings,
+                cluster.getResultIterationBatchSize(),
+                results == null ? 0 : results.getAvailableItemCount(),
+                cause);
+    }
+
     @Override
     protected Connection chooseConnection(RequestMessage msg) throws TimeoutException, ConnectionException {
+        return chooseRequestContext(msg).connection();
+    }
 
-        long start = System.currentTimeMillis();
+    private RequestContext chooseRequestContext(RequestMessage msg) throws TimeoutException {
+
+        long start = connectionAttemptManager.nanoTime();
+
+        ChooseConnectionEvent event = new ChooseConnectionEvent();
+        event.begin();
 
         logger.debug("Choosing connection");
 
-        Connection connection = null;
+        RequestContext requestContext = null;
+        int retries = -1;
+        boolean eagerRefreshTriggered = false;
+
+        while (requestContext == null) {
 
-        while (connection == null) {
+            retries++;
 
             EndpointClientCollection currentEndpointClientCollection = endpointClientCollection.get();
 
-            while (currentEndpointClientCollection.isEmpty()) {
+            while (!hasUnpausedEndpoints(currentEndpointClientCollection)) {
 
                 if (connectionAttemptManager.maxWaitTimeExceeded(start)) {
                     if (currentEndpointClientCollection.hasRejectedEndpoints()) {
@@ -159,42 +285,115 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
                 }
 
                 if (connectionAttemptManager.eagerRefreshWaitTimeExceeded(start)) {
-                    connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+                    eagerRefreshTriggered |= connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
                 }
 
-                try {
-                    Thread.sleep(acquireConnectionConfig.acquireConnectionBackoffMillis());
-                    currentEndpointClientCollection = endpointClientCollection.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                awaitEndpointsChanged();
+                currentEndpointClientCollection = endpointClientCollection.get();
             }
 
-            connection = currentEndpointClientCollection.chooseConnection(
+            requestContext = currentEndpointClientCollection.chooseConnection(
                     msg,
-                    ec -> ec.get((int) (index.getAndIncrement() % ec.size())));
+                    this::chooseUnpausedEndpointClient);
 
-            if (connection == null) {
+            if (requestContext == null) {
 
                 if (connectionAttemptManager.maxWaitTimeExceeded(start)) {
                     throw new TimeoutException("Timed-out waiting for connection");
                 }
 
                 if (connectionAttemptManager.eagerRefreshWaitTimeExceeded(start)) {
-                    connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+                    eagerRefreshTriggered |= connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
                 }
 
-                try {
-                    Thread.sleep(acquireConnectionConfig.acquireConnectionBackoffMillis());
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                awaitEndpointsChanged();
+            }
+        }
+
+        requestContext.acquired(start, connectionAttemptManager.nanoTime(), retries);
+
+        if (event.shouldCommit()) {
+            event.endpoint = requestContext.address();
+            event.retries = retries;
+            event.eagerRefreshTriggered = eagerRefreshTriggered;
+            event.commit();
+        }
+
+        logger.debug("Connection: {} [{} ms, {} retries]", requestContext.connection().getConnectionInfo(), RequestTimings.toMillis(connectionAttemptManager.nanoTime() - start), retries);
+
+        return requestContext;
+    }
+
+    /**
+     * Waits for up to the acquire connection backoff, returning early if the client's endpoints are refreshed
+     * or an endpoint is resumed.
+     */
+    private void awaitEndpointsChanged() {
+        endpointsChangedLock.lock();
+        try {
+            endpointsChanged.await(acquireConnectionConfig.acquireConnectionBackoffMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            endpointsChangedLock.unlock();
+        }
+    }
+
+    private void signalEndpointsChanged() {
+        endpointsChangedLock.lock();
+        try {
+            endpointsChanged.signalAll();
+        } finally {
+            endpointsChangedLock.unlock();
+        }
+    }
+
+    private boolean hasUnpausedEndpoints(EndpointClientCollection ec) {
+        if (pausedEndpoints.isEmpty()) {
+            return !ec.isEmpty();
+        }
+        for (EndpointClient endpointClient : ec) {
+            if (!pausedEndpoints.contains(endpointClient.endpoint().getAddress())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EndpointClient chooseUnpausedEndpointClient(EndpointClientCollection ec) {
+        int size = ec.size();
+        for (int i = 0; i < size; i++) {
+            EndpointClient endpointClient = ec.get((int) (index.getAndIncrement() % size));
+            if (!pausedEndpoints.contains(endpointClient.endpoint().getAddress())) {
+                return endpointClient;
             }
         }
+        return null;
+    }
+
+    /**
+     * Stops the client choosing the endpoint for new requests until {@link #resumeEndpoint(String)} is called.
+     * While all of the client's endpoints are paused, requests wait to acquire a connection, subject to
+     * {@code maxWaitForConnection}, and proceed as soon as the client is refreshed with an endpoint that is
+     * not paused.
+     */
+    @Override
+    public void pauseEndpoint(String address) {
+        if (pausedEndpoints.add(address)) {
+            logger.info("Paused endpoint {}", address);
+        }
+    }
 
-        logger.debug("Connection: {} [{} ms]", connection.getConnectionInfo(), System.currentTimeMillis() - start);
+    @Override
+    public void resumeEndpoint(String address) {
+        if (pausedEndpoints.remove(address)) {
+            logger.info("Resumed endpoint {}", address);
+            signalEndpointsChanged();
+        }
+    }
 
-        return connection;
+    public boolean isEndpointPaused(String address) {
+        return pausedEndpoints.contains(address);
     }
 
     @Override
@@ -204,7 +403,7 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
 
     @Override
     public Client alias(final Map<String, String> aliases) {
-        return new GremlinAliasClusterClient(this, aliases, settings, clientClusterCollection, endpointClientCollection);
+        return new GremlinAliasClusterClient(this, aliases, settings, clientClusterCollection);
     }
 
     @Override
@@ -219,6 +418,7 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
             return closing.get();
 
         connectionAttemptManager.shutdownNow();
+        writerFailoverManager.shutdownNow();
 
         List<CompletableFuture<Void>> futures = new ArrayList<>();
         for (EndpointClient endpointClient : endpointClientCollection.get()) {
@@ -232,20 +432,25 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
     }
 
     @Override
-    public synchronized Client init() {
-        if (initialized)
-            return this;
+    public Client init() {
+        lock.lock();
+        try {
+            if (initialized)
+                return this;
 
-        logger.debug("Initializing internal clients");
+            logger.debug("Initializing internal clients");
 
-        for (EndpointClient endpointClient : endpointClientCollection.get()) {
-            endpointClient.initClient();
-        }
+            for (EndpointClient endpointClient : endpointClientCollection.get()) {
+                endpointClient.initClient();
+            }
 
-        initializeImplementation();
+            initializeImplementation();
 
-        initialized = true;
-        return this;
+            initialized = true;
+            return this;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -267,66 +472,13 @@ public class GremlinClient extends Client implements Refreshable, AutoCloseable
         private static final Logger logger = LoggerFactory.getLogger(GremlinAliasClusterClient.class);
 
         private final ClientClusterCollection clientClusterCollection;
-        private final AtomicReference<EndpointClientCollection> endpointClientCollection;
 
         GremlinAliasClusterClient(Client client,
                                   Map<String, String> aliases,
                                   Settings settings,
-                                  ClientClusterCollection clientClusterCollection,
-                                  AtomicReference<EndpointClientCollection> endpointClientCollection) {
+                                  ClientClusterCollection clientClusterCollection) {
             super(client, aliases, settings);
             this.clientClusterCollection = clientClusterCollection;
-            this.endpointClientCollection = endpointClientCollection;
-        }
-
-        @Override
-        public CompletableFuture<ResultSet> submitAsync(Bytecode bytecode, RequestOptions options) {
-            long start = System.currentTimeMillis();
-            UUID traceId = options.getOverrideRequestId().isPresent() ? options.getOverrideRequestId().get() : UUID.randomUUID();
-            logger.trace("_traceId: {}", traceId);
-            RequestOptions.Builder newOptions = RequestOptions.build();
-            newOptions.overrideRequestId(traceId);
-
-
-
-            if (options.getAliases().isPresent()) {
-                Map<String, String> aliases = options.getAliases().get();
-                for (Map.Entry<String, String> alias : aliases.entrySet()) {
-                    newOptions.addAlias(alias.getKey(), alias.getValue());
-                }
-            }
-            if (options.getBatchSize().isPresent()) {
-                newOptions.batchSize(options.getBatchSize().get());
-            }
-
-            if (options.getTimeout().isPresent()) {
-                newOptions.timeout(options.getTimeout().get());
-            }
-            if (options.getLanguage().isPresent()) {
-                newOptions.language(options.getLanguage().get());
-            }
-            if (options.getUserAgent().isPresent()) {
-                newOptions.userAgent(options.getUserAgent().get());
-            }
-            if (options.getParameters().isPresent()) {
-                Map<String, Object> params = options.getParameters().get();
-                for (Map.Entry<String, Object> param : params.entrySet()) {
-                    newOptions.addParameter(param.getKey(), param.getValue());
-                }
-            }
-            CompletableFuture<ResultSet> future = super.submitAsync(bytecode, newOptions.create());
-
-            EndpointClientCollection endpointClients = endpointClientCollection.get();
-
-            if (endpointClients != null){
-                return future.whenComplete((results, throwable) -> {
-                    long durationMillis = System.currentTimeMillis() - start;
-                    endpointClients.registerDurationForTraceId(traceId, durationMillis, throwable);
-                });
-            } else {
-                return future;
-            }
-
         }
 
         @Override
@@ -105,7 +105,10 @@ public class GremlinCluster implements AutoCloseable {
                 EndpointClientCollection.builder()
                         .withEndpointClients(newEndpointClients)
                         .withRejectedEndpoints(rejectedEndpointsCollection)
-                        .setCollectMetrics(metricsConfig.enableMetrics()));
+                        .setCollectMetrics(metricsConfig.enableMetrics())
+                        .withMetricsHandler(metricsConfig.metricsHandlers())
+                        .withExecutionMode(acquireConnectionConfig.executionMode())
+                        .withClock(acquireConnectionConfig.clock()));
 
         clientClusterCollections.add(clientClusterCollection);
 
@@ -149,6 +152,8 @@ public class GremlinCluster implements AutoCloseable {
 
         closing.set(CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{})));
 
+        metricsConfig.slowQueryLog().close();
+
         return closing.get();
     }
 
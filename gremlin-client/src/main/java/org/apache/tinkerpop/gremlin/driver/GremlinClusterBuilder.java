@@ -75,6 +75,14 @@ public class GremlinClusterBuilder {
     private int eagerRefreshBackoffMillis = 5000;
     private int acquireConnectionBackoffMillis = 5;
     private OnEagerRefresh onEagerRefresh = null;
+    private final List<ErrorClassifier> eagerRefreshErrorClassifiers = new ArrayList<>();
+    private int eagerRefreshErrorThreshold = 3;
+    private int eagerRefreshErrorWindowMillis = 1000;
+    private OnEagerRefresh onWriterFailover = null;
+    private int writerFailoverInitialBackoffMillis = 100;
+    private int writerFailoverMaxBackoffMillis = 2000;
+    private int writerFailoverTimeoutMillis = 30000;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
     private EndpointFilter endpointFilter;
     private RequestInterceptor interceptor = RequestInterceptor.NO_OP;
     private Map<Class<? extends Exception>, Set<String>> ignoreExceptionsDuringEndpointCreation = new HashMap<>();
@@ -94,6 +102,11 @@ public class GremlinClusterBuilder {
     private final MetricsHandlerCollection metricsHandlers = new MetricsHandlerCollection();
 
     private boolean enableMetrics = false;
+    private long slowQueryThresholdMillis = 0;
+    private double slowQuerySampleRate = 1.0;
+    private int slowQueryMaxPerSecond = 10;
+    private boolean redactSlowQueryParameters = true;
+    private final Collection<SlowQueryHandler> slowQueryHandlers = new ArrayList<>();
 
     private GremlinClusterBuilder() {
     }
@@ -114,6 +127,45 @@ public class GremlinClusterBuilder {
         return this;
     }
 
+    /**
+     * Requests that take longer than this number of millis to complete will be written to the slow query log.
+     * A value of 0 (the default) disables the slow query log.
+     */
+    public GremlinClusterBuilder slowQueryThresholdMillis(final long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        return this;
+    }
+
+    /**
+     * Fraction (between 0.0 and 1.0) of slow queries to write to the slow query log. Default is 1.0.
+     */
+    public GremlinClusterBuilder slowQuerySampleRate(final double slowQuerySampleRate) {
+        this.slowQuerySampleRate = slowQuerySampleRate;
+        return this;
+    }
+
+    /**
+     * Maximum number of slow queries to write to the slow query log per second. A value of 0 removes the limit.
+     * Default is 10.
+     */
+    public GremlinClusterBuilder slowQueryMaxPerSecond(final int slowQueryMaxPerSecond) {
+        this.slowQueryMaxPerSecond = slowQueryMaxPerSecond;
+        return this;
+    }
+
+    /**
+     * Replace traversal arguments and script binding values with '?' in the slow query log. Default is true.
+     */
+    public GremlinClusterBuilder redactSlowQueryParameters(final boolean redactSlowQueryParameters) {
+        this.redactSlowQueryParameters = redactSlowQueryParameters;
+        return this;
+    }
+
+    public GremlinClusterBuilder addSlowQueryHandler(SlowQueryHandler handler){
+        this.slowQueryHandlers.add(handler);
+        return this;
+    }
+
     /**
      * Number of millis to wait between each attempt to acquire a connection.
      */
@@ -149,6 +201,84 @@ public class GremlinClusterBuilder {
         return this;
     }
 
+    /**
+     * Classifier for request errors that should trigger the handler supplied in {@link #onEagerRefresh} -
+     * for example, {@link ErrorClassifiers#readOnlyViolation()}. The handler is invoked when an endpoint returns
+     * {@link #eagerRefreshErrorThreshold} classified errors within {@link #eagerRefreshErrorWindowMillis},
+     * subject to {@link #eagerRefreshBackoffMillis}.
+     */
+    public GremlinClusterBuilder addEagerRefreshErrorClassifier(final ErrorClassifier classifier) {
+        this.eagerRefreshErrorClassifiers.add(classifier);
+        return this;
+    }
+
+    /**
+     * Number of classified errors an endpoint must return within {@link #eagerRefreshErrorWindowMillis}
+     * to trigger the handler supplied in {@link #onEagerRefresh}. Default 3.
+     */
+    public GremlinClusterBuilder eagerRefreshErrorThreshold(final int eagerRefreshErrorThreshold) {
+        this.eagerRefreshErrorThreshold = eagerRefreshErrorThreshold;
+        return this;
+    }
+
+    /**
+     * Window within which an endpoint must return {@link #eagerRefreshErrorThreshold} classified errors
+     * to trigger the handler supplied in {@link #onEagerRefresh}. Default 1000.
+     */
+    public GremlinClusterBuilder eagerRefreshErrorWindowMillis(final int eagerRefreshErrorWindowMillis) {
+        this.eagerRefreshErrorWindowMillis = eagerRefreshErrorWindowMillis;
+        return this;
+    }
+
+    /**
+     * Handler to be invoked when an endpoint rejects a write with a ReadOnlyViolationException, indicating the
+     * writer has failed over. The client pauses the endpoint, so that new requests wait for a connection rather
+     * than fail, and invokes the handler, with backoff, until it returns endpoints that no longer include the
+     * demoted endpoint. The handler should bypass any cached cluster metadata - for example, by using
+     * {@code ClusterEndpointsRefreshAgent.refreshEndpoints(EndpointsType.Primary)}.
+     */
+    public GremlinClusterBuilder onWriterFailover(final OnEagerRefresh eventHandler) {
+        this.onWriterFailover = eventHandler;
+        return this;
+    }
+
+    /**
+     * Number of millis to wait before the second attempt to re-resolve the primary after a writer failover.
+     * The wait doubles after each attempt, up to {@link #writerFailoverMaxBackoffMillis}. Default 100.
+     */
+    public GremlinClusterBuilder writerFailoverInitialBackoffMillis(final int writerFailoverInitialBackoffMillis) {
+        this.writerFailoverInitialBackoffMillis = writerFailoverInitialBackoffMillis;
+        return this;
+    }
+
+    /**
+     * Maximum number of millis to wait between attempts to re-resolve the primary after a writer failover.
+     * Default 2000.
+     */
+    public GremlinClusterBuilder writerFailoverMaxBackoffMillis(final int writerFailoverMaxBackoffMillis) {
+        this.writerFailoverMaxBackoffMillis = writerFailoverMaxBackoffMillis;
+        return this;
+    }
+
+    /**
+     * Number of millis after which the client stops trying to re-resolve the primary after a writer failover,
+     * and resumes sending requests to the demoted endpoint. Default 30000.
+     */
+    public GremlinClusterBuilder writerFailoverTimeoutMillis(final int writerFailoverTimeoutMillis) {
+        this.writerFailoverTimeoutMillis = writerFailoverTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Threads on which clients run their background tasks. {@link ExecutionMode#VIRTUAL_THREADS} runs eager
+     * refreshes, metrics collection and writer failover on virtual threads, or, before Java 21, on a shared pool.
+     * Default {@link ExecutionMode#PLATFORM_THREADS}.
+     */
+    public GremlinClusterBuilder executionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+        return this;
+    }
+
     /**
      * Strategy for filtering and enriching available endpoints before creating clients.
      */
@@ -639,9 +769,24 @@ public class GremlinClusterBuilder {
                 eagerRefreshWaitTimeMillis,
                 onEagerRefresh,
                 eagerRefreshBackoffMillis,
-                acquireConnectionBackoffMillis);
-
-        MetricsConfig metricsConfig = new MetricsConfig(enableMetrics, metricsHandlers);
+                acquireConnectionBackoffMillis,
+                eagerRefreshErrorClassifiers,
+                eagerRefreshErrorThreshold,
+                eagerRefreshErrorWindowMillis,
+                onWriterFailover,
+                writerFailoverInitialBackoffMillis,
+                writerFailoverMaxBackoffMillis,
+                writerFailoverTimeoutMillis,
+                executionMode);
+
+        SlowQueryLog slowQueryLog = new SlowQueryLog(
+                slowQueryThresholdMillis,
+                slowQuerySampleRate,
+                slowQueryMaxPerSecond,
+                redactSlowQueryParameters,
+                slowQueryHandlers);
+
+        MetricsConfig metricsConfig = new MetricsConfig(enableMetrics, metricsHandlers, slowQueryLog);
 
         return new GremlinCluster(filteredEndpoints, endpoints -> {
             Cluster.Builder builder = Cluster.build()
@@ -23,10 +23,16 @@ class MetricsConfig {
     private static final Logger logger = LoggerFactory.getLogger(MetricsConfig.class);
     private final boolean enableMetrics;
     private final MetricsHandlerCollection metricsHandlers;
+    private final SlowQueryLog slowQueryLog;
 
     MetricsConfig(boolean enableMetrics, MetricsHandlerCollection metricsHandlers) {
+        this(enableMetrics, metricsHandlers, SlowQueryLog.disabled());
+    }
+
+    MetricsConfig(boolean enableMetrics, MetricsHandlerCollection metricsHandlers, SlowQueryLog slowQueryLog) {
         this.enableMetrics = calculateEnableMetricsValue(enableMetrics);
         this.metricsHandlers = metricsHandlers;
+        this.slowQueryLog = slowQueryLog;
     }
 
     public boolean enableMetrics() {
@@ -37,6 +43,10 @@ class MetricsConfig {
         return metricsHandlers;
     }
 
+    public SlowQueryLog slowQueryLog() {
+        return slowQueryLog;
+    }
+
     private boolean calculateEnableMetricsValue(boolean enableMetricsBuilder) {
 
         Boolean enableMetricsEnv = null;
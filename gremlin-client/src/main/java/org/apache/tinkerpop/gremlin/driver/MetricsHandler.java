@@ -13,5 +13,24 @@ permissions and limitations under the License.
 package org.apache.tinkerpop.gremlin.driver;
 
 public interface MetricsHandler {
+
+    /**
+     * Called with the metrics collected by a client since its endpoints were last refreshed, whenever its
+     * endpoints are refreshed or it is closed.
+     */
     void onMetricsPublished(ConnectionMetrics connectionMetrics, RequestMetrics requestMetrics);
+
+    /**
+     * Called on the client's metrics thread as each request completes. Handlers that keep running totals can
+     * override this so that their totals advance with every request, rather than only when metrics are published.
+     */
+    default void onRequestCompleted(String address, RequestTimings timings, Throwable e) {
+    }
+
+    /**
+     * Called on the client's metrics thread after each attempt to acquire a connection to an endpoint. The outcome
+     * is one of {@code succeeded}, {@code unavailable}, {@code closing}, {@code dead}, {@code npe} or {@code nha}.
+     */
+    default void onConnectionAttempt(String address, String outcome) {
+    }
 }
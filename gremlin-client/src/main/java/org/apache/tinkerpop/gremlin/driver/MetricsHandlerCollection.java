@@ -42,4 +42,26 @@ class MetricsHandlerCollection implements MetricsHandler{
             }
         }
     }
+
+    @Override
+    public void onRequestCompleted(String address, RequestTimings timings, Throwable e) {
+        for (MetricsHandler handler : handlers) {
+            try{
+                handler.onRequestCompleted(address, timings, e);
+            } catch (Exception ex){
+                logger.error("Error while handling request metrics", ex);
+            }
+        }
+    }
+
+    @Override
+    public void onConnectionAttempt(String address, String outcome) {
+        for (MetricsHandler handler : handlers) {
+            try{
+                handler.onConnectionAttempt(address, outcome);
+            } catch (Exception e){
+                logger.error("Error while handling connection metrics", e);
+            }
+        }
+    }
 }
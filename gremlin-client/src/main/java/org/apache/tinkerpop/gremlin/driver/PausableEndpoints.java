@@ -0,0 +1,22 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+/**
+ * A {@link Refreshable} whose endpoints can be temporarily withdrawn from use.
+ */
+interface PausableEndpoints extends Refreshable {
+    void pauseEndpoint(String address);
+
+    void resumeEndpoint(String address);
+}
@@ -0,0 +1,37 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("software.amazon.neptune.RefreshEndpoints")
+@Label("Refresh Endpoints")
+@Description("Refreshing the endpoints to which a GremlinClient connects")
+@Category({"Amazon Neptune", "Gremlin Client"})
+@StackTrace(false)
+class RefreshEndpointsEvent extends Event {
+
+    @Label("Added")
+    int added;
+
+    @Label("Removed")
+    int removed;
+
+    @Label("Rejected")
+    int rejected;
+}
@@ -0,0 +1,72 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+/**
+ * Carries the endpoint chosen for a request alongside the request, so that request metrics can be
+ * attributed to the endpoint without having to look the endpoint up by request id when the response arrives.
+ * Also records when the request passes through each phase, so that acquisition, queueing and response
+ * latencies can be reported separately. Every time is supplied by the caller from the same clock as the start time.
+ */
+class RequestContext {
+
+    private final EndpointClientCollection endpointClientCollection;
+    private final EndpointClient endpointClient;
+    private final Connection connection;
+
+    private long startNanos;
+    private long acquiredNanos;
+    private int acquisitionRetries;
+    private volatile long writtenNanos = RequestTimings.NOT_WRITTEN;
+
+    RequestContext(EndpointClientCollection endpointClientCollection,
+                   EndpointClient endpointClient,
+                   Connection connection) {
+        this.endpointClientCollection = endpointClientCollection;
+        this.endpointClient = endpointClient;
+        this.connection = connection;
+    }
+
+    public EndpointClient endpointClient() {
+        return endpointClient;
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    public String address() {
+        return endpointClient.endpoint().getAddress();
+    }
+
+    void acquired(long startNanos, long acquiredNanos, int acquisitionRetries) {
+        this.startNanos = startNanos;
+        this.acquiredNanos = acquiredNanos;
+        this.acquisitionRetries = acquisitionRetries;
+    }
+
+    void written(long writtenNanos) {
+        this.writtenNanos = writtenNanos;
+    }
+
+    RequestTimings completed(long completedNanos, Throwable e) {
+        RequestTimings timings = new RequestTimings(
+                startNanos,
+                acquiredNanos,
+                acquisitionRetries,
+                writtenNanos,
+                completedNanos);
+        endpointClientCollection.registerRequest(endpointClient, timings, e);
+        return timings;
+    }
+}
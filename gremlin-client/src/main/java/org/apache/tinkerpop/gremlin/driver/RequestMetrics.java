@@ -13,26 +13,24 @@ permissions and limitations under the License.
 package org.apache.tinkerpop.gremlin.driver;
 
 import java.util.Collection;
+import java.util.stream.Collectors;
 
 public class RequestMetrics {
     private final long durationMillis;
     private final long totalRequests;
 
     private final long failedRequests;
-    private final int droppedRequests;
     private final int skippedResponses;
     private Collection<EndpointRequestMetrics> metrics;
 
     RequestMetrics(long durationMillis,
                    long totalRequests,
                    long failedRequests,
-                   int droppedRequests,
                    int skippedResponses,
                    Collection<EndpointRequestMetrics> metrics) {
         this.durationMillis = durationMillis;
         this.totalRequests = totalRequests;
         this.failedRequests = failedRequests;
-        this.droppedRequests = droppedRequests;
         this.skippedResponses = skippedResponses;
         this.metrics = metrics;
     }
@@ -49,8 +47,15 @@ public class RequestMetrics {
         return failedRequests;
     }
 
+    /**
+     * Requests are now attributed to their endpoint when the connection is chosen, so no request is ever
+     * dropped from the metrics.
+     *
+     * @deprecated always returns 0
+     */
+    @Deprecated
     public int getDroppedRequestsCount() {
-        return droppedRequests;
+        return 0;
     }
 
     public int getSkippedResponsesCount() {
@@ -60,4 +65,28 @@ public class RequestMetrics {
     public Collection<EndpointRequestMetrics> getMetrics() {
         return metrics;
     }
+
+    public RequestPhaseMetrics getLatencyMetrics() {
+        return RequestPhaseMetrics.combine("total",
+                metrics.stream().map(EndpointRequestMetrics::getLatencyMetrics).collect(Collectors.toList()));
+    }
+
+    public RequestPhaseMetrics getAcquisitionMetrics() {
+        return RequestPhaseMetrics.combine("acquisition",
+                metrics.stream().map(EndpointRequestMetrics::getAcquisitionMetrics).collect(Collectors.toList()));
+    }
+
+    public long getAcquisitionRetries() {
+        return metrics.stream().mapToLong(EndpointRequestMetrics::getAcquisitionRetries).sum();
+    }
+
+    public RequestPhaseMetrics getQueueingMetrics() {
+        return RequestPhaseMetrics.combine("queueing",
+                metrics.stream().map(EndpointRequestMetrics::getQueueingMetrics).collect(Collectors.toList()));
+    }
+
+    public RequestPhaseMetrics getResponseMetrics() {
+        return RequestPhaseMetrics.combine("response",
+                metrics.stream().map(EndpointRequestMetrics::getResponseMetrics).collect(Collectors.toList()));
+    }
 }
@@ -13,18 +13,11 @@ permissions and limitations under the License.
 package org.apache.tinkerpop.gremlin.driver;
 
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
 
 class RequestMetricsCollector {
 
-    private static final int MAX_NUMBER_TRACE_IDS = 9000;
-
     public final Map<String, EndpointRequestMetrics> metrics;
-    public final Map<UUID, String> traceIds = new LinkedHashMap<>(16, 0.75f, true);
-
-    private int dropped = 0;
 
     private int skipped = 0;
 
@@ -32,32 +25,24 @@ class RequestMetricsCollector {
         this.metrics = metrics;
     }
 
-    public void registerAddressForTraceId(UUID traceId, String address) {
-        if (traceIds.size() > MAX_NUMBER_TRACE_IDS){
-            UUID toRemove = traceIds.keySet().iterator().next();
-            traceIds.remove(toRemove);
-            dropped++;
+    public void registerDuration(String address, long durationMillis, Throwable e) {
+        EndpointRequestMetrics endpointRequestMetrics = metrics.get(address);
+        if (endpointRequestMetrics != null) {
+            endpointRequestMetrics.update(durationMillis, e);
+        } else {
+            skipped++;
         }
-        traceIds.put(traceId, address);
     }
 
-    public void registerDurationForTraceId(UUID traceId, long durationMillis, Throwable e) {
-        String address = traceIds.remove(traceId);
-        if (address != null) {
-            if (metrics.containsKey(address)) {
-                metrics.get(address).update(durationMillis, e);
-            } else {
-                skipped++;
-            }
+    public void registerRequest(String address, RequestTimings timings, Throwable e) {
+        EndpointRequestMetrics endpointRequestMetrics = metrics.get(address);
+        if (endpointRequestMetrics != null) {
+            endpointRequestMetrics.update(timings, e);
         } else {
             skipped++;
         }
     }
 
-    public int droppedRequests(){
-        return dropped;
-    }
-
     public int skippedResponses(){
         return skipped;
     }
@@ -0,0 +1,132 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Latency of a single phase of a request, e.g. the time taken to acquire a connection.
+ * Besides min, max and average, latencies are counted into fixed histogram buckets.
+ */
+public class RequestPhaseMetrics {
+
+    private static final double[] BUCKET_UPPER_BOUNDS_MILLIS =
+            {0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final long[] BUCKET_UPPER_BOUNDS_NANOS = Arrays.stream(BUCKET_UPPER_BOUNDS_MILLIS)
+            .mapToLong(millis -> (long) (millis * 1_000_000))
+            .toArray();
+
+    private final String phase;
+    private final long[] bucketCounts = new long[BUCKET_UPPER_BOUNDS_NANOS.length + 1];
+    private long count;
+    private long totalNanos;
+    private long minNanos = 0L;
+    private long maxNanos = 0L;
+
+    RequestPhaseMetrics(String phase) {
+        this.phase = phase;
+    }
+
+    static RequestPhaseMetrics combine(String phase, Collection<RequestPhaseMetrics> metrics) {
+        RequestPhaseMetrics result = new RequestPhaseMetrics(phase);
+        for (RequestPhaseMetrics m : metrics) {
+            if (m.count == 0) {
+                continue;
+            }
+            if (result.count == 0 || m.minNanos < result.minNanos) {
+                result.minNanos = m.minNanos;
+            }
+            if (m.maxNanos > result.maxNanos) {
+                result.maxNanos = m.maxNanos;
+            }
+            result.count += m.count;
+            result.totalNanos += m.totalNanos;
+            for (int i = 0; i < result.bucketCounts.length; i++) {
+                result.bucketCounts[i] += m.bucketCounts[i];
+            }
+        }
+        return result;
+    }
+
+    void update(long durationNanos) {
+        if (count == 0 || durationNanos < minNanos) {
+            minNanos = durationNanos;
+        }
+        if (durationNanos > maxNanos) {
+            maxNanos = durationNanos;
+        }
+        totalNanos += durationNanos;
+        count++;
+        bucketCounts[bucketIndex(durationNanos)]++;
+    }
+
+    private static int bucketIndex(long durationNanos) {
+        int index = Arrays.binarySearch(BUCKET_UPPER_BOUNDS_NANOS, durationNanos);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Inclusive upper bounds of the histogram buckets, in millis. There is one more bucket than there are
+     * bounds: the last bucket counts latencies greater than the largest bound.
+     */
+    public static double[] getBucketUpperBoundsMillis() {
+        return BUCKET_UPPER_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * Number of latencies in each histogram bucket (not cumulative).
+     */
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public double getTotalMillis() {
+        return RequestTimings.toMillis(totalNanos);
+    }
+
+    public double getMinMillis() {
+        return RequestTimings.toMillis(minNanos);
+    }
+
+    public double getMaxMillis() {
+        return RequestTimings.toMillis(maxNanos);
+    }
+
+    public double getAverageMillis() {
+        return count == 0 ? 0.0 : RequestTimings.toMillis(totalNanos) / (double) count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [count: %s, minMillis: %.3f, maxMillis: %.3f, avgMillis: %.3f]",
+                getPhase(),
+                getCount(),
+                getMinMillis(),
+                getMaxMillis(),
+                getAverageMillis());
+    }
+}
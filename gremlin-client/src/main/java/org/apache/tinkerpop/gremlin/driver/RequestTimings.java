@@ -0,0 +1,83 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+/**
+ * Phase timings for a single request:
+ * <ul>
+ *     <li>acquisition - choosing an endpoint and acquiring a connection, including any retries</li>
+ *     <li>queueing - from acquiring the connection to the request being written to the socket</li>
+ *     <li>response - from the request being written to the last result being received</li>
+ * </ul>
+ * Passed to {@link MetricsHandler#onRequestCompleted(String, RequestTimings, Throwable)} as each request completes.
+ */
+public class RequestTimings {
+
+    /**
+     * Value of the written time for a request that was never written to the socket.
+     */
+    static final long NOT_WRITTEN = Long.MIN_VALUE;
+
+    private final long totalNanos;
+    private final long acquisitionNanos;
+    private final int acquisitionRetries;
+    private final long queueingNanos;
+    private final long responseNanos;
+    private final long completedNanos;
+
+    /**
+     * All times are monotonic nanos (see {@link software.amazon.utils.Clock#nanoTime()}).
+     */
+    public RequestTimings(long startNanos, long acquiredNanos, int acquisitionRetries, long writtenNanos, long completedNanos) {
+        this.totalNanos = completedNanos - startNanos;
+        this.acquisitionNanos = acquiredNanos - startNanos;
+        this.acquisitionRetries = acquisitionRetries;
+        // If the write never completed, the request never left the connection
+        boolean written = writtenNanos != NOT_WRITTEN;
+        this.queueingNanos = written ? writtenNanos - acquiredNanos : completedNanos - acquiredNanos;
+        this.responseNanos = written ? completedNanos - writtenNanos : -1;
+        this.completedNanos = completedNanos;
+    }
+
+    static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    public long acquisitionNanos() {
+        return acquisitionNanos;
+    }
+
+    public int acquisitionRetries() {
+        return acquisitionRetries;
+    }
+
+    public long queueingNanos() {
+        return queueingNanos;
+    }
+
+    public boolean hasResponse() {
+        return responseNanos >= 0;
+    }
+
+    public long responseNanos() {
+        return responseNanos;
+    }
+
+    long completedNanos() {
+        return completedNanos;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs tasks one at a time, in the order in which they were submitted, on a shared executor. Behaves like a
+ * single-thread executor, but holds no thread while it is idle. Shutting it down does not shut down the shared
+ * executor.
+ */
+class SerialExecutorService extends AbstractExecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerialExecutorService.class);
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition terminated = lock.newCondition();
+
+    private boolean running = false;
+    private boolean shutdown = false;
+    private Thread runner;
+
+    SerialExecutorService(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        boolean startRunner;
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            tasks.add(task);
+            startRunner = !running;
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        if (startRunner) {
+            try {
+                executor.execute(this::runTasks);
+            } catch (RejectedExecutionException e) {
+                lock.lock();
+                try {
+                    tasks.remove(task);
+                    running = false;
+                    terminated.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void runTasks() {
+        lock.lock();
+        try {
+            runner = Thread.currentThread();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            while (true) {
+                Runnable task;
+                lock.lock();
+                try {
+                    task = tasks.poll();
+                    if (task == null) {
+                        running = false;
+                        runner = null;
+                        terminated.signalAll();
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Error while running task", e);
+                }
+            }
+        } finally {
+            // Clear any interrupt from shutdownNow() before the thread is returned to the shared executor
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            terminated.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            if (runner != null) {
+                runner.interrupt();
+            }
+            terminated.signalAll();
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        lock.lock();
+        try {
+            return shutdown && !running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(shutdown && !running)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = terminated.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
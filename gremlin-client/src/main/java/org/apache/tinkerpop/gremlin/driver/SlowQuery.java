@@ -0,0 +1,181 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.util.Tokens;
+import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A request whose latency exceeded the slow query threshold. The query text is only rendered
+ * when {@link #getQuery()} is called, which happens on the slow query log's own thread.
+ */
+public class SlowQuery {
+
+    private final RequestMessage msg;
+    private final boolean redactParameters;
+    private final String address;
+    private final RequestTimings timings;
+    private final int defaultBatchSize;
+    private final int resultCount;
+    private final Throwable error;
+
+    SlowQuery(RequestMessage msg,
+              boolean redactParameters,
+              String address,
+              RequestTimings timings,
+              int defaultBatchSize,
+              int resultCount,
+              Throwable error) {
+        this.msg = msg;
+        this.redactParameters = redactParameters;
+        this.address = address;
+        this.timings = timings;
+        this.defaultBatchSize = defaultBatchSize;
+        this.resultCount = resultCount;
+        this.error = error;
+    }
+
+    public String getRequestId() {
+        return msg.getRequestId().toString();
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * The traversal (for bytecode requests) or script (for script requests). If parameters are redacted,
+     * traversal step arguments and script binding values are replaced with '?'.
+     */
+    public String getQuery() {
+        Object gremlin = msg.getArgs().get(Tokens.ARGS_GREMLIN);
+        if (gremlin instanceof Bytecode) {
+            return render((Bytecode) gremlin);
+        } else if (gremlin instanceof String) {
+            return renderScript((String) gremlin);
+        } else {
+            return msg.getOp();
+        }
+    }
+
+    public double getTotalMillis() {
+        return RequestTimings.toMillis(timings.totalNanos());
+    }
+
+    public double getAcquisitionMillis() {
+        return RequestTimings.toMillis(timings.acquisitionNanos());
+    }
+
+    public int getAcquisitionRetries() {
+        return timings.acquisitionRetries();
+    }
+
+    public double getQueueingMillis() {
+        return RequestTimings.toMillis(timings.queueingNanos());
+    }
+
+    /**
+     * Time between the request being written and the last result being received, or -1 if the request
+     * was never written.
+     */
+    public double getResponseMillis() {
+        return timings.hasResponse() ? RequestTimings.toMillis(timings.responseNanos()) : -1;
+    }
+
+    public int getBatchSize() {
+        Object batchSize = msg.getArgs().get(Tokens.ARGS_BATCH_SIZE);
+        return batchSize instanceof Number ? ((Number) batchSize).intValue() : defaultBatchSize;
+    }
+
+    /**
+     * Number of results buffered when the last result was received. If the application had already started
+     * consuming the results, this will be less than the total number of results.
+     */
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    private String renderScript(String script) {
+        Object bindings = msg.getArgs().get(Tokens.ARGS_BINDINGS);
+        if (!(bindings instanceof Map) || ((Map<?, ?>) bindings).isEmpty()) {
+            return script;
+        }
+        String renderedBindings = ((Map<?, ?>) bindings).entrySet().stream()
+                .map(e -> String.format("%s=%s", e.getKey(), redactParameters ? "?" : e.getValue()))
+                .collect(Collectors.joining(", "));
+        return String.format("%s {%s}", script, renderedBindings);
+    }
+
+    private String render(Bytecode bytecode) {
+        StringBuilder builder = new StringBuilder("g");
+        render(bytecode, builder);
+        return builder.toString();
+    }
+
+    private void render(Bytecode bytecode, StringBuilder builder) {
+        for (Bytecode.Instruction instruction : bytecode.getSourceInstructions()) {
+            render(instruction, builder);
+        }
+        for (Bytecode.Instruction instruction : bytecode.getStepInstructions()) {
+            render(instruction, builder);
+        }
+    }
+
+    private void render(Bytecode.Instruction instruction, StringBuilder builder) {
+        builder.append('.').append(instruction.getOperator()).append('(');
+        Object[] arguments = instruction.getArguments();
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Object argument = arguments[i];
+            if (argument instanceof Traversal) {
+                argument = ((Traversal<?, ?>) argument).asAdmin().getBytecode();
+            }
+            if (argument instanceof Bytecode) {
+                builder.append("__");
+                render((Bytecode) argument, builder);
+            } else if (redactParameters) {
+                builder.append('?');
+            } else {
+                builder.append(argument);
+            }
+        }
+        builder.append(')');
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [requestId: %s, totalMillis: %.3f, acquisitionMillis: %.3f, retries: %s, queueingMillis: %.3f, responseMillis: %.3f, batchSize: %s, resultCount: %s, error: %s, query: %s]",
+                getAddress(),
+                getRequestId(),
+                getTotalMillis(),
+                getAcquisitionMillis(),
+                getAcquisitionRetries(),
+                getQueueingMillis(),
+                getResponseMillis(),
+                getBatchSize(),
+                getResultCount(),
+                error == null ? "none" : error.getClass().getSimpleName(),
+                getQuery());
+    }
+}
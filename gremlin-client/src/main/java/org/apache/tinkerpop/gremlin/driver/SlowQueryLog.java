@@ -0,0 +1,146 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples requests whose latency exceeds a threshold and passes them to {@link SlowQueryHandler}s on a
+ * background thread. Requests below the threshold cost a single comparison. Slow queries are dropped rather
+ * than blocking the caller if the sample rate or per-second limit is exceeded, or if the queue of slow queries
+ * waiting to be handled is full.
+ */
+class SlowQueryLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    static final int QUEUE_CAPACITY = 1024;
+
+    private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long thresholdMillis;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxPerSecond;
+    private final boolean redactParameters;
+    private final Collection<SlowQueryHandler> handlers = new ArrayList<>();
+    private long windowStart = 0;
+    private int windowCount = 0;
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final ThreadPoolExecutor executor;
+
+    static SlowQueryLog disabled() {
+        return new SlowQueryLog(0, 1.0, 0, true, new ArrayList<>());
+    }
+
+    SlowQueryLog(long thresholdMillis,
+                 double sampleRate,
+                 int maxPerSecond,
+                 boolean redactParameters,
+                 Collection<SlowQueryHandler> handlers) {
+        this.thresholdMillis = thresholdMillis;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = sampleRate;
+        this.maxPerSecond = maxPerSecond;
+        this.redactParameters = redactParameters;
+        this.handlers.add(new SlowQueryLogger());
+        this.handlers.addAll(handlers);
+        this.executor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread thread = new Thread(r, "slow-query-log");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, e) -> dropped.incrementAndGet());
+
+        if (isEnabled()) {
+            logger.info("Slow query log enabled [thresholdMillis: {}, sampleRate: {}, maxPerSecond: {}, redactParameters: {}]",
+                    thresholdMillis, sampleRate, maxPerSecond, redactParameters);
+        }
+    }
+
+    boolean isEnabled() {
+        return thresholdMillis > 0;
+    }
+
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    void record(RequestMessage msg,
+                String address,
+                RequestTimings timings,
+                int defaultBatchSize,
+                int resultCount,
+                Throwable e) {
+
+        if (!isEnabled() || timings.totalNanos() < thresholdNanos) {
+            return;
+        }
+
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        if (!tryAcquire(timings.completedNanos())) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        SlowQuery slowQuery = new SlowQuery(msg, redactParameters, address, timings, defaultBatchSize, resultCount, e);
+
+        executor.execute(() -> {
+            for (SlowQueryHandler handler : handlers) {
+                try {
+                    handler.onSlowQuery(slowQuery);
+                } catch (Exception ex) {
+                    logger.error("Error while handling slow query", ex);
+                }
+            }
+        });
+    }
+
+    // Only requests over the threshold get this far, so a lock is cheap, and it keeps resetting the window and
+    // counting within it a single step
+    synchronized boolean tryAcquire(long nowNanos) {
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+        if (windowStart == 0 || nowNanos - windowStart >= ONE_SECOND_NANOS) {
+            windowStart = nowNanos;
+            windowCount = 0;
+        }
+        if (windowCount >= maxPerSecond) {
+            return false;
+        }
+        windowCount++;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
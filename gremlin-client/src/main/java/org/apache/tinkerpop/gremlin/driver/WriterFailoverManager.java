@@ -0,0 +1,226 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.utils.Clock;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Fast path for writer failover. When an endpoint rejects a write with a ReadOnlyViolationException, the
+ * endpoint has been demoted. The manager pauses the endpoint, so that new requests wait rather than fail,
+ * and then repeatedly asks the {@code onWriterFailover} handler for fresh endpoints, with exponential backoff,
+ * until the handler returns endpoints that no longer include the demoted endpoint. It then refreshes the
+ * client, allowing the waiting requests to proceed, and resumes the demoted endpoint.
+ */
+class WriterFailoverManager implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriterFailoverManager.class);
+
+    private final PausableEndpoints client;
+    private final OnEagerRefresh onWriterFailover;
+    private final ErrorClassifier classifier = ErrorClassifiers.readOnlyViolation();
+    private final int initialBackoffMillis;
+    private final int maxBackoffMillis;
+    private final int timeoutMillis;
+    private final Clock clock;
+    private final ScheduledExecutorService executorService;
+    private final AtomicBoolean failingOver = new AtomicBoolean(false);
+
+    static WriterFailoverManager disabled() {
+        return new WriterFailoverManager(null, null, 0, 0, 0, Clock.SYSTEM, null);
+    }
+
+    WriterFailoverManager(PausableEndpoints client,
+                          OnEagerRefresh onWriterFailover,
+                          int initialBackoffMillis,
+                          int maxBackoffMillis,
+                          int timeoutMillis,
+                          Clock clock) {
+        this(client,
+                onWriterFailover,
+                initialBackoffMillis,
+                maxBackoffMillis,
+                timeoutMillis,
+                clock,
+                Executors.newSingleThreadScheduledExecutor());
+    }
+
+    WriterFailoverManager(PausableEndpoints client,
+                          OnEagerRefresh onWriterFailover,
+                          int initialBackoffMillis,
+                          int maxBackoffMillis,
+                          int timeoutMillis,
+                          Clock clock,
+                          ScheduledExecutorService executorService) {
+        this.client = client;
+        this.onWriterFailover = onWriterFailover;
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.clock = clock;
+        this.executorService = executorService;
+
+        if (isEnabled()) {
+            logger.info("Writer failover enabled [initialBackoffMillis: {}, maxBackoffMillis: {}, timeoutMillis: {}]",
+                    this.initialBackoffMillis,
+                    this.maxBackoffMillis,
+                    this.timeoutMillis);
+        }
+    }
+
+    boolean isEnabled() {
+        return onWriterFailover != null;
+    }
+
+    boolean isFailingOver() {
+        return failingOver.get();
+    }
+
+    /**
+     * Starts a failover if the error shows the endpoint is no longer the primary.
+     *
+     * @return true if the error was handled by a new or in-progress failover
+     */
+    boolean onRequestError(String address, Throwable e) {
+
+        if (!isEnabled() || e == null || !classifier.matches(e)) {
+            return false;
+        }
+
+        if (!failingOver.compareAndSet(false, true)) {
+            return true;
+        }
+
+        logger.warn("Endpoint {} rejected a write with a ReadOnlyViolationException, so pausing it and re-resolving the primary", address);
+
+        client.pauseEndpoint(address);
+
+        Failover failover = new Failover(address, e);
+        if (!submit(failover, 0)) {
+            client.resumeEndpoint(address);
+        }
+
+        return true;
+    }
+
+    private boolean submit(Failover failover, long delayMillis) {
+        try {
+            executorService.schedule(failover::attempt, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Unable to schedule writer failover attempt, because the client is closing");
+            failingOver.set(false);
+            return false;
+        }
+    }
+
+    void shutdownNow() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdownNow();
+    }
+
+    private class Failover {
+
+        private final String address;
+        private final Throwable error;
+        private final long startNanos;
+        private final WriterFailoverEvent event = new WriterFailoverEvent();
+        private int attempts = 0;
+        private long backoffMillis = initialBackoffMillis;
+
+        Failover(String address, Throwable error) {
+            this.address = address;
+            this.error = error;
+            this.startNanos = clock.nanoTime();
+            this.event.begin();
+        }
+
+        void attempt() {
+
+            attempts++;
+
+            try {
+                EndpointCollection endpoints = onWriterFailover.getEndpoints(new EagerRefreshContext(address, error));
+                if (isNewPrimary(endpoints)) {
+                    client.refreshEndpoints(endpoints);
+                    logger.info("Re-resolved primary after failover of {} [endpoints: {}, attempts: {}, millis: {}]",
+                            address,
+                            addresses(endpoints),
+                            attempts,
+                            elapsedMillis());
+                    completed(true, endpoints);
+                    return;
+                }
+                logger.info("Primary not yet re-resolved after failover of {} [endpoints: {}, attempt: {}]",
+                        address,
+                        endpoints == null ? "" : addresses(endpoints),
+                        attempts);
+            } catch (Exception e) {
+                logger.warn("Error while re-resolving primary after failover of {}", address, e);
+            }
+
+            if (elapsedMillis() + backoffMillis > timeoutMillis) {
+                logger.warn("Unable to re-resolve primary within {} millis, so resuming endpoint {}", timeoutMillis, address);
+                completed(false, null);
+                return;
+            }
+
+            long delayMillis = backoffMillis;
+            backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+
+            if (!submit(this, delayMillis)) {
+                client.resumeEndpoint(address);
+            }
+        }
+
+        private boolean isNewPrimary(EndpointCollection endpoints) {
+            return endpoints != null &&
+                    endpoints.get(address) == null &&
+                    endpoints.stream().anyMatch(e -> e.getAddress() != null);
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - startNanos);
+        }
+
+        private void completed(boolean succeeded, EndpointCollection endpoints) {
+            failingOver.set(false);
+            client.resumeEndpoint(address);
+            if (event.shouldCommit()) {
+                event.demotedEndpoint = address;
+                event.newEndpoints = endpoints == null ? "" : addresses(endpoints);
+                event.attempts = attempts;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private static String addresses(EndpointCollection endpoints) {
+        return endpoints.stream().map(Endpoint::getAddress).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries an asynchronous call with exponential backoff. No thread is blocked between tries: each retry is
+ * started by a delayed executor once its backoff has elapsed.
+ */
+class AsyncRetry {
+
+    /**
+     * @param call               starts a try
+     * @param isRetryable        tests the cause of a failed try
+     * @param maxTries           the maximum number of tries, including the first
+     * @param initialDelayMillis the delay before the first retry, which doubles after each subsequent try
+     * @return a future that completes with the result of the first successful try, or exceptionally with the
+     * cause of the last failed try
+     */
+    static <T> CompletableFuture<T> withRetries(Supplier<CompletableFuture<T>> call,
+                                                Predicate<Throwable> isRetryable,
+                                                int maxTries,
+                                                long initialDelayMillis) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, isRetryable, maxTries, 1, initialDelayMillis, result);
+        return result;
+    }
+
+    static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static <T> void attempt(Supplier<CompletableFuture<T>> call,
+                                    Predicate<Throwable> isRetryable,
+                                    int maxTries,
+                                    int tryNumber,
+                                    long delayMillis,
+                                    CompletableFuture<T> result) {
+        if (result.isDone()) {
+            // Cancelled, or timed out, by the caller
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(e);
+            if (tryNumber < maxTries && isRetryable.test(cause)) {
+                CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(() ->
+                        attempt(call, isRetryable, maxTries, tryNumber + 1, delayMillis * 2, result));
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.DatabaseEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Resolves the cluster endpoint at regular intervals, and triggers a full refresh when its target changes. The
+ * cluster endpoint is a CNAME that points to the primary, so a change in its target indicates a writer failover.
+ * Resolving a hostname is far cheaper than calling the Neptune Management API, so the watcher can run every
+ * second or so without adding to API costs or throttling. The watcher only reads metadata that has already been
+ * fetched, and runs on a fixed-delay schedule, so it never lets an exception escape: one would cancel it.
+ */
+class ClusterEndpointWatcher implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterEndpointWatcher.class);
+
+    private final Supplier<NeptuneClusterMetadata> clusterMetadataSupplier;
+    private final HostnameResolver resolver;
+    private final Runnable onChange;
+    private final RefreshAgentMetrics metrics;
+
+    private String lastHostname;
+    private String lastTarget;
+
+    ClusterEndpointWatcher(Supplier<NeptuneClusterMetadata> clusterMetadataSupplier,
+                           HostnameResolver resolver,
+                           Runnable onChange,
+                           RefreshAgentMetrics metrics) {
+        this.clusterMetadataSupplier = clusterMetadataSupplier;
+        this.resolver = resolver;
+        this.onChange = onChange;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run() {
+        try {
+            watch();
+        } catch (Exception e) {
+            logger.error("Error while watching cluster endpoint", e);
+        }
+    }
+
+    private void watch() {
+
+        NeptuneClusterMetadata clusterMetadata = clusterMetadataSupplier.get();
+        if (clusterMetadata == null) {
+            return;
+        }
+
+        DatabaseEndpoint clusterEndpoint = clusterMetadata.getClusterEndpoint();
+        if (clusterEndpoint == null || clusterEndpoint.getAddress() == null) {
+            return;
+        }
+
+        String hostname = clusterEndpoint.getAddress();
+        String target;
+
+        try {
+            target = resolver.resolve(hostname);
+        } catch (Exception e) {
+            logger.warn("Unable to resolve cluster endpoint {}: {}", hostname, e.getMessage());
+            return;
+        }
+
+        if (target == null) {
+            return;
+        }
+
+        boolean changed = hostname.equals(lastHostname) &&
+                lastTarget != null &&
+                !lastTarget.equalsIgnoreCase(target);
+
+        lastHostname = hostname;
+        lastTarget = target;
+
+        if (changed) {
+            logger.info("Cluster endpoint {} now resolves to {}, so refreshing cluster metadata", hostname, target);
+            metrics.clusterEndpointChanged();
+            try {
+                onChange.run();
+            } catch (Exception e) {
+                logger.error("Error while refreshing after cluster endpoint change", e);
+            }
+        }
+    }
+}
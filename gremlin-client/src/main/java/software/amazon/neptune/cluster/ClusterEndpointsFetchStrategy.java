@@ -17,6 +17,7 @@ import org.apache.tinkerpop.gremlin.driver.GremlinClient;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 public interface ClusterEndpointsFetchStrategy {
@@ -26,4 +27,32 @@ public interface ClusterEndpointsFetchStrategy {
     default Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Map<? extends EndpointsSelector, Collection<GremlinClient>> clientSelectors, boolean refresh){
         return getEndpoints(clientSelectors.keySet(), refresh);
     }
+
+    /**
+     * Asynchronous variant of {@link #getEndpoints(Collection, boolean)}. The default implementation fetches the
+     * endpoints on the calling thread, and returns a completed future.
+     */
+    default CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        try {
+            return CompletableFuture.completedFuture(getEndpoints(selectors, refresh));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #getEndpoints(Map, boolean)}. Strategies that override the synchronous
+     * variant should override this too.
+     */
+    default CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Map<? extends EndpointsSelector, Collection<GremlinClient>> clientSelectors, boolean refresh) {
+        return getEndpointsAsync(clientSelectors.keySet(), refresh);
+    }
+
+    /**
+     * Identifies the cluster whose endpoints this strategy fetches, so that refreshes from different strategy
+     * instances for the same cluster can be coalesced.
+     */
+    default String clusterKey() {
+        return getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(this));
+    }
 }
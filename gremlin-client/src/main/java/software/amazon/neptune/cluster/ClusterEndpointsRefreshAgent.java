@@ -12,64 +12,317 @@ permissions and limitations under the License.
 
 package software.amazon.neptune.cluster;
 
+import org.apache.tinkerpop.gremlin.driver.EagerRefreshCoordinator;
+import org.apache.tinkerpop.gremlin.driver.Endpoint;
 import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.apache.tinkerpop.gremlin.driver.ExecutionMode;
 import org.apache.tinkerpop.gremlin.driver.GremlinClient;
+import org.apache.tinkerpop.gremlin.driver.OnEagerRefresh;
 import org.apache.tinkerpop.gremlin.driver.RefreshTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.utils.Clock;
 import software.amazon.utils.RegionUtils;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class ClusterEndpointsRefreshAgent implements AutoCloseable {
 
     public interface EndpointsSupplier {
         Map<? extends EndpointsSelector, EndpointCollection> getRefreshedEndpointsForSelectors(Map<EndpointsSelector, Collection<GremlinClient>> selectors);
+
+        /**
+         * Asynchronous variant of {@link #getRefreshedEndpointsForSelectors(Map)}. The default implementation
+         * fetches the endpoints on the calling thread, and returns a completed future.
+         */
+        default CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getRefreshedEndpointsForSelectorsAsync(Map<EndpointsSelector, Collection<GremlinClient>> selectors) {
+            try {
+                return CompletableFuture.completedFuture(getRefreshedEndpointsForSelectors(selectors));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
     }
 
     public static class PollingCommand implements Runnable {
 
         private final Collection<RefreshTask> tasks;
         private final EndpointsSupplier endpointsSupplier;
+        private final RefreshAgentMetrics metrics;
+        private final Executor fanOutExecutor;
+        private final long clientRefreshTimeoutMillis;
+        private final long refreshUnchangedAfterNanos;
+        private final Collection<TopologyChangeListener> topologyChangeListeners;
+        private final Clock clock;
+        private final Map<EndpointsSelector, Set<String>> previousAddresses = new HashMap<>();
+        private final Map<EndpointsSelector, String> previousVersions = new HashMap<>();
+        private final Map<GremlinClient, CompletableFuture<Void>> clientRefreshes = new HashMap<>();
+        private final Map<GremlinClient, AppliedRefresh> appliedRefreshes = new ConcurrentHashMap<>();
+        private long previousFetchStartNanos = NO_PREVIOUS_FETCH;
 
         public PollingCommand(Collection<RefreshTask> tasks, EndpointsSupplier endpointsSupplier) {
+            this(tasks, endpointsSupplier, new RefreshAgentMetrics());
+        }
+
+        public PollingCommand(Collection<RefreshTask> tasks, EndpointsSupplier endpointsSupplier, RefreshAgentMetrics metrics) {
+            this(tasks, endpointsSupplier, metrics, Runnable::run, 0);
+        }
+
+        /**
+         * @param fanOutExecutor             executor on which clients are refreshed
+         * @param clientRefreshTimeoutMillis time after which a poll stops waiting for a client's refresh to
+         *                                   complete, or 0 to wait indefinitely
+         */
+        public PollingCommand(Collection<RefreshTask> tasks,
+                              EndpointsSupplier endpointsSupplier,
+                              RefreshAgentMetrics metrics,
+                              Executor fanOutExecutor,
+                              long clientRefreshTimeoutMillis) {
+            this(tasks, endpointsSupplier, metrics, fanOutExecutor, clientRefreshTimeoutMillis, 0, Collections.emptyList());
+        }
+
+        /**
+         * @param refreshUnchangedAfterMillis if greater than 0, a client whose selector's endpoints have not
+         *                                    changed since its last successful refresh is not refreshed again
+         *                                    until this time has elapsed; if 0, every client is refreshed on
+         *                                    every poll
+         * @param topologyChangeListeners     notified when a selector's endpoints change between polls
+         */
+        public PollingCommand(Collection<RefreshTask> tasks,
+                              EndpointsSupplier endpointsSupplier,
+                              RefreshAgentMetrics metrics,
+                              Executor fanOutExecutor,
+                              long clientRefreshTimeoutMillis,
+                              long refreshUnchangedAfterMillis,
+                              Collection<TopologyChangeListener> topologyChangeListeners) {
+            this(tasks, endpointsSupplier, metrics, fanOutExecutor, clientRefreshTimeoutMillis, refreshUnchangedAfterMillis, topologyChangeListeners, Clock.SYSTEM);
+        }
+
+        /**
+         * @param clock source of time for poll timings and change detection
+         */
+        public PollingCommand(Collection<RefreshTask> tasks,
+                              EndpointsSupplier endpointsSupplier,
+                              RefreshAgentMetrics metrics,
+                              Executor fanOutExecutor,
+                              long clientRefreshTimeoutMillis,
+                              long refreshUnchangedAfterMillis,
+                              Collection<TopologyChangeListener> topologyChangeListeners,
+                              Clock clock) {
             this.tasks = tasks;
             this.endpointsSupplier = endpointsSupplier;
+            this.metrics = metrics;
+            this.fanOutExecutor = fanOutExecutor;
+            this.clientRefreshTimeoutMillis = clientRefreshTimeoutMillis;
+            this.refreshUnchangedAfterNanos = TimeUnit.MILLISECONDS.toNanos(refreshUnchangedAfterMillis);
+            this.topologyChangeListeners = topologyChangeListeners;
+            this.clock = clock;
         }
 
         @Override
         public void run() {
             try {
-                Map<EndpointsSelector, Collection<GremlinClient>> clientSelectors = new HashMap<>();
-                for (RefreshTask task : tasks) {
-                    EndpointsSelector selector = task.selector();
-                    if (!clientSelectors.containsKey(selector)){
-                        clientSelectors.put(selector, new ArrayList<>());
-                    }
-                    clientSelectors.get(selector).add(task.client());
-                }
-                Map<? extends EndpointsSelector, EndpointCollection> refreshResults = endpointsSupplier.getRefreshedEndpointsForSelectors(clientSelectors);
-                for (Map.Entry<? extends EndpointsSelector, EndpointCollection> entry : refreshResults.entrySet()) {
-                    EndpointCollection endpoints = entry.getValue();
-                    for (GremlinClient client : clientSelectors.get(entry.getKey())) {
-                        logger.info("Refresh: [client: {}, endpoints: {}]", client.hashCode(), endpoints);
-                        client.refreshEndpoints(endpoints);
-                    }
-                }
+                pollOnCallingThread().join();
+            } catch (CompletionException e) {
+                logger.error("Error while getting cluster metadata", e.getCause());
             } catch (Exception e) {
                 logger.error("Error while getting cluster metadata", e);
             }
         }
+
+        /**
+         * Fetches the endpoints for each selector, and then refreshes the clients concurrently on the fan-out
+         * executor. The returned future completes once every client has been refreshed, or has timed out, and
+         * completes exceptionally if the endpoints could not be fetched. If the supplier fetches asynchronously,
+         * the calling thread is not blocked while the endpoints are fetched, and topology change listeners are
+         * notified, and the refreshes are submitted, on the thread that completes the fetch. Must not be called
+         * again until the future returned by the previous call has completed.
+         */
+        public CompletableFuture<Void> poll() {
+            return fetch().thenCompose(Supplier::get);
+        }
+
+        /**
+         * Polls like {@link #poll()}, but waits on the calling thread for the endpoints to be fetched, so that
+         * topology change listeners are notified, and the refreshes are submitted, on the calling thread rather
+         * than on a thread belonging to the supplier. The returned future completes once every client has been
+         * refreshed, or has timed out.
+         */
+        CompletableFuture<Void> pollOnCallingThread() {
+            CompletableFuture<Supplier<CompletableFuture<Void>>> fetch = fetch();
+            fetch.handle((fanOut, e) -> null).join();
+            // The fetch has completed, so the fan-out runs here, on the calling thread
+            return fetch.thenCompose(Supplier::get);
+        }
+
+        /**
+         * Starts fetching the endpoints for each selector. Once the endpoints have been fetched, the returned
+         * future completes with the fan-out, which starts when the supplier is called, on the calling thread.
+         */
+        private CompletableFuture<Supplier<CompletableFuture<Void>>> fetch() {
+            Map<EndpointsSelector, Collection<GremlinClient>> clientSelectors = new HashMap<>();
+            for (RefreshTask task : tasks) {
+                EndpointsSelector selector = task.selector();
+                if (!clientSelectors.containsKey(selector)){
+                    clientSelectors.put(selector, new ArrayList<>());
+                }
+                clientSelectors.get(selector).add(task.client());
+            }
+            RefreshAgentPollEvent event = new RefreshAgentPollEvent();
+            event.begin();
+            long fetchStartNanos = clock.nanoTime();
+            CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> fetch;
+            try {
+                fetch = endpointsSupplier.getRefreshedEndpointsForSelectorsAsync(clientSelectors);
+            } catch (Exception e) {
+                fetch = CompletableFuture.failedFuture(e);
+            }
+            return fetch
+                    .whenComplete((refreshResults, e) -> {
+                        event.succeeded = e == null;
+                        metrics.fetchCompleted(millisSince(clock, fetchStartNanos), event.succeeded);
+                        event.selectors = clientSelectors.size();
+                        event.commit();
+                    })
+                    .thenApply(refreshResults -> () -> fanOut(clientSelectors, refreshResults, fetchStartNanos));
+        }
+
+        private CompletableFuture<Void> fanOut(Map<EndpointsSelector, Collection<GremlinClient>> clientSelectors,
+                                               Map<? extends EndpointsSelector, EndpointCollection> refreshResults,
+                                               long fetchStartNanos) {
+            long fanOutStartNanos = clock.nanoTime();
+            boolean topologyChanged = false;
+            List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+            for (Map.Entry<? extends EndpointsSelector, EndpointCollection> entry : refreshResults.entrySet()) {
+                EndpointCollection endpoints = entry.getValue();
+                // Computed before any client filters or enriches the endpoints
+                String version = ContentHash.of(endpoints);
+                topologyChanged |= recordChanges(entry.getKey(), endpoints, version);
+                for (GremlinClient client : clientSelectors.get(entry.getKey())) {
+                    refreshes.add(refresh(client, endpoints, version));
+                }
+            }
+            long previousStartNanos = previousFetchStartNanos;
+            boolean recordTopologyChange = topologyChanged && previousStartNanos != NO_PREVIOUS_FETCH;
+            previousFetchStartNanos = fetchStartNanos;
+            return CompletableFuture.allOf(refreshes.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+                long endNanos = clock.nanoTime();
+                metrics.fanOutCompleted(TimeUnit.NANOSECONDS.toMillis(endNanos - fanOutStartNanos));
+                if (recordTopologyChange) {
+                    metrics.topologyChangeRefreshed(
+                            TimeUnit.NANOSECONDS.toMillis(endNanos - fetchStartNanos),
+                            TimeUnit.NANOSECONDS.toMillis(endNanos - previousStartNanos));
+                }
+            });
+        }
+
+        /**
+         * Refreshes the client on the fan-out executor. If the client's refresh from a previous poll is still
+         * running, this refresh is chained after it, so that a client never applies an older set of endpoints
+         * over a newer one. The returned future completes normally even if the refresh fails or times out.
+         * <p>
+         * If change detection is enabled, and the client has already applied this version of the endpoints,
+         * the refresh is skipped.
+         */
+        private CompletableFuture<Void> refresh(GremlinClient client, EndpointCollection endpoints, String version) {
+            if (refreshUnchangedAfterNanos > 0) {
+                AppliedRefresh applied = appliedRefreshes.get(client);
+                if (applied != null &&
+                        applied.version.equals(version) &&
+                        clock.nanoTime() - applied.refreshedNanos < refreshUnchangedAfterNanos) {
+                    metrics.clientRefreshSkipped();
+                    logger.debug("Skipping refresh for client {}, endpoints unchanged [version: {}]", client.hashCode(), version);
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+            Runnable refresh = () -> {
+                logger.info("Refresh: [client: {}, version: {}, endpoints: {}]", client.hashCode(), version, endpoints);
+                client.refreshEndpoints(endpoints);
+                appliedRefreshes.put(client, new AppliedRefresh(version, clock.nanoTime()));
+            };
+            CompletableFuture<Void> previous = clientRefreshes.get(client);
+            CompletableFuture<Void> current = previous == null || previous.isDone() ?
+                    CompletableFuture.runAsync(refresh, fanOutExecutor) :
+                    previous.handle((result, e) -> null).thenRunAsync(refresh, fanOutExecutor);
+            clientRefreshes.put(client, current);
+
+            CompletableFuture<Void> awaited = clientRefreshTimeoutMillis > 0 ?
+                    current.copy().orTimeout(clientRefreshTimeoutMillis, TimeUnit.MILLISECONDS) :
+                    current;
+
+            return awaited.exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    metrics.clientRefreshTimedOut();
+                    logger.warn("Timed out after {} millis waiting for client {} to refresh its endpoints", clientRefreshTimeoutMillis, client.hashCode());
+                } else {
+                    logger.error("Error while refreshing endpoints for client {}", client.hashCode(), cause);
+                }
+                return null;
+            });
+        }
+
+        private boolean recordChanges(EndpointsSelector selector, EndpointCollection endpoints, String version) {
+            Set<String> addresses = endpoints.stream()
+                    .map(Endpoint::getAddress)
+                    .collect(Collectors.toSet());
+            Set<String> previous = previousAddresses.put(selector, addresses);
+            String previousVersion = previousVersions.put(selector, version);
+            if (previous == null) {
+                metrics.endpointsChanged(selector.toString(), 0, 0, addresses.size());
+                return false;
+            }
+            Set<String> added = addresses.stream().filter(a -> !previous.contains(a)).collect(Collectors.toSet());
+            Set<String> removed = previous.stream().filter(a -> !addresses.contains(a)).collect(Collectors.toSet());
+            metrics.endpointsChanged(selector.toString(), added.size(), removed.size(), addresses.size());
+            if (!version.equals(previousVersion)) {
+                notifyListeners(new TopologyChangeEvent(selector, endpoints, added, removed, previousVersion, version));
+            }
+            return !added.isEmpty() || !removed.isEmpty();
+        }
+
+        private void notifyListeners(TopologyChangeEvent event) {
+            logger.info("Topology change: {}", event);
+            for (TopologyChangeListener listener : topologyChangeListeners) {
+                try {
+                    listener.onTopologyChange(event);
+                } catch (Exception e) {
+                    logger.error("Error while notifying topology change listener", e);
+                }
+            }
+        }
+
+        private static class AppliedRefresh {
+            private final String version;
+            private final long refreshedNanos;
+
+            private AppliedRefresh(String version, long refreshedNanos) {
+                this.version = version;
+                this.refreshedNanos = refreshedNanos;
+            }
+        }
     }
 
     public static ClusterEndpointsRefreshAgent monitor(GremlinClient client,
@@ -162,19 +415,209 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
                 new GetEndpointsFromNeptuneManagementApi(clusterId, region, iamProfile, clientConfiguration));
     }
 
+    /**
+     * Creates an agent that gets the cluster metadata from a neptune-endpoints-sidecar listening on the
+     * default port on this host.
+     */
+    public static ClusterEndpointsRefreshAgent sidecar() {
+        return sidecar(EndpointsSidecarProtocol.DEFAULT_PORT);
+    }
+
+    public static ClusterEndpointsRefreshAgent sidecar(int port) {
+        return new ClusterEndpointsRefreshAgent(new GetEndpointsFromSidecar(port));
+    }
+
+    /**
+     * Creates an agent that reads the cluster metadata from a memory-mapped file published by a
+     * {@link SharedClusterMetadataWriter} in another process on this host.
+     */
+    public static ClusterEndpointsRefreshAgent sharedFile(Path file) {
+        return new ClusterEndpointsRefreshAgent(new GetEndpointsFromSharedFile(file));
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(ClusterEndpointsRefreshAgent.class);
 
     private static final long DEFAULT_TERMINATION_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_FAN_OUT_PARALLELISM = 4;
+    private static final long DEFAULT_CLIENT_REFRESH_TIMEOUT_MILLIS = 10000;
+    private static final long NO_PREVIOUS_FETCH = Long.MIN_VALUE;
+    private static final String POLLING_THREAD_PREFIX = "refresh-agent-";
+    private static final String FAN_OUT_THREAD_PREFIX = "refresh-agent-fan-out-";
 
-    private final ClusterEndpointsFetchStrategy endpointsFetchStrategy;
+    private volatile ClusterEndpointsFetchStrategy endpointsFetchStrategy;
     private final Object executorServiceLock = new Object();
 
-    private volatile ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+    private volatile ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+    private volatile ScheduledExecutorService scheduledExecutorService = executionMode.newScheduledExecutor(POLLING_THREAD_PREFIX);
+    private volatile Runnable pollingCommand;
+    private volatile int fanOutParallelism = DEFAULT_FAN_OUT_PARALLELISM;
+    private volatile ExecutorService fanOutExecutor = createFanOutExecutor(executionMode, fanOutParallelism, FAN_OUT_THREAD_PREFIX);
+    private volatile long clientRefreshTimeoutMillis = DEFAULT_CLIENT_REFRESH_TIMEOUT_MILLIS;
+    private final Set<CompletableFuture<Void>> pendingPolls = ConcurrentHashMap.newKeySet();
+    private volatile long refreshUnchangedAfterMillis = 0;
+    private final List<TopologyChangeListener> topologyChangeListeners = new CopyOnWriteArrayList<>();
 
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private volatile String pollingDisabledReason;
+
+    private final RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+    private final Clock clock;
 
     public ClusterEndpointsRefreshAgent(ClusterEndpointsFetchStrategy endpointsFetchStrategy) {
+        this(endpointsFetchStrategy, Clock.SYSTEM);
+    }
+
+    /**
+     * @param clock source of time for poll timings and change detection
+     */
+    public ClusterEndpointsRefreshAgent(ClusterEndpointsFetchStrategy endpointsFetchStrategy, Clock clock) {
         this.endpointsFetchStrategy = endpointsFetchStrategy;
+        this.clock = clock;
+        if (endpointsFetchStrategy instanceof InstrumentedClusterMetadataSupplier) {
+            ((InstrumentedClusterMetadataSupplier) endpointsFetchStrategy).setRefreshAgentMetrics(metrics);
+        }
+    }
+
+    /**
+     * Configures the pool on which the agent refreshes its clients after each poll. Clients are refreshed
+     * concurrently, so that one slow client does not delay the others. A poll waits up to
+     * {@code clientRefreshTimeout} for each client's refresh to complete. Defaults to 4 threads and a 10 second
+     * timeout. Must be called before {@code startPollingNeptuneAPI}.
+     *
+     * @throws IllegalStateException if the agent is running
+     */
+    public ClusterEndpointsRefreshAgent withFanOut(int parallelism, long clientRefreshTimeout, TimeUnit timeUnit) {
+        synchronized (executorServiceLock) {
+            if (isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            ExecutorService previousExecutor = fanOutExecutor;
+            fanOutParallelism = parallelism;
+            fanOutExecutor = createFanOutExecutor(executionMode, parallelism, FAN_OUT_THREAD_PREFIX);
+            clientRefreshTimeoutMillis = timeUnit.toMillis(clientRefreshTimeout);
+            previousExecutor.shutdown();
+        }
+        return this;
+    }
+
+    /**
+     * Persists the cluster metadata fetched by this agent to {@code snapshotFile}. After a restart, the agent
+     * serves the metadata in the file, if it is less than a day old, while it fetches the current metadata in
+     * the background, so that clients can be created without waiting for the Management API or Lambda proxy.
+     * Must be called before {@code startPollingNeptuneAPI}.
+     *
+     * @throws IllegalStateException if the agent is running
+     */
+    public ClusterEndpointsRefreshAgent withMetadataSnapshot(Path snapshotFile) {
+        return withMetadataSnapshot(snapshotFile, PersistentClusterMetadataSupplier.DEFAULT_MAX_SNAPSHOT_AGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Persists the cluster metadata fetched by this agent to {@code snapshotFile}, ignoring snapshots older than
+     * {@code maxSnapshotAge}.
+     *
+     * @throws IllegalStateException if the agent is running
+     * @throws UnsupportedOperationException if the agent does not fetch cluster metadata
+     */
+    public ClusterEndpointsRefreshAgent withMetadataSnapshot(Path snapshotFile, long maxSnapshotAge, TimeUnit timeUnit) {
+        synchronized (executorServiceLock) {
+            if (isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            // Fails fast for strategies, such as monitor(), that don't supply cluster metadata
+            endpointsFetchStrategy.clusterMetadataSupplier();
+            // The refresh that follows serving the snapshot runs on the polling executor current at the time
+            PersistentClusterMetadataSupplier persistentSupplier = new PersistentClusterMetadataSupplier(
+                    endpointsFetchStrategy,
+                    snapshotFile,
+                    maxSnapshotAge,
+                    timeUnit,
+                    command -> scheduledExecutorService.execute(command));
+            persistentSupplier.setRefreshAgentMetrics(metrics);
+            endpointsFetchStrategy = persistentSupplier;
+        }
+        return this;
+    }
+
+    /**
+     * Time for which the agent reuses the tags it has listed for each instance before listing them again, for an
+     * agent that queries the Neptune Management API. The tags for a cluster's instances are also listed again
+     * whenever the cluster's set of instances changes. Defaults to 5 minutes. Set to 0 to list the tags for every
+     * instance on every poll. Must be called before {@code withMetadataSnapshot} and
+     * {@code startPollingNeptuneAPI}.
+     *
+     * @throws IllegalStateException if the agent is running, or does not query the Neptune Management API
+     */
+    public ClusterEndpointsRefreshAgent withTagCacheTtl(long tagCacheTtl, TimeUnit timeUnit) {
+        synchronized (executorServiceLock) {
+            if (isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            if (!(endpointsFetchStrategy instanceof GetEndpointsFromNeptuneManagementApi)) {
+                throw new IllegalStateException("Tag caching only applies to agents that query the Neptune Management API");
+            }
+            ((GetEndpointsFromNeptuneManagementApi) endpointsFetchStrategy).setTagCacheTtl(tagCacheTtl, timeUnit);
+        }
+        return this;
+    }
+
+    /**
+     * Threads on which the agent polls and refreshes its clients. With {@link ExecutionMode#VIRTUAL_THREADS},
+     * the polling thread and fan-out threads are virtual threads, if the JVM supports them. Must be called before
+     * {@code startPollingNeptuneAPI}.
+     *
+     * @throws IllegalStateException if the agent is running
+     */
+    public ClusterEndpointsRefreshAgent withExecutionMode(ExecutionMode executionMode) {
+        synchronized (executorServiceLock) {
+            if (isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            ScheduledExecutorService previousScheduledExecutor = scheduledExecutorService;
+            ExecutorService previousFanOutExecutor = fanOutExecutor;
+            this.executionMode = executionMode;
+            scheduledExecutorService = executionMode.newScheduledExecutor(POLLING_THREAD_PREFIX);
+            fanOutExecutor = createFanOutExecutor(executionMode, fanOutParallelism, FAN_OUT_THREAD_PREFIX);
+            previousScheduledExecutor.shutdown();
+            previousFanOutExecutor.shutdown();
+        }
+        return this;
+    }
+
+    /**
+     * Enables change detection. After each poll, the agent hashes the endpoints for each selector, and skips
+     * refreshing a client that has already applied endpoints with the same hash. A client is refreshed anyway
+     * once {@code refreshUnchangedAfter} has elapsed since its last refresh, so that endpoint filters that
+     * depend on time, such as status checks, are re-evaluated. Disabled by default: every client is refreshed
+     * after every poll. Must be called before {@code startPollingNeptuneAPI}.
+     *
+     * @throws IllegalStateException if the agent is running
+     */
+    public ClusterEndpointsRefreshAgent withChangeDetection(long refreshUnchangedAfter, TimeUnit timeUnit) {
+        synchronized (executorServiceLock) {
+            if (isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            if (refreshUnchangedAfter < 0) {
+                throw new IllegalArgumentException("refreshUnchangedAfter must be zero or greater");
+            }
+            refreshUnchangedAfterMillis = timeUnit.toMillis(refreshUnchangedAfter);
+        }
+        return this;
+    }
+
+    /**
+     * Registers a listener that is notified, on the polling thread, before the selector's clients are refreshed,
+     * whenever the endpoints for a selector differ from those returned by the previous poll. This holds even if
+     * the endpoints are fetched asynchronously: the polling thread waits for the fetch to complete.
+     */
+    public ClusterEndpointsRefreshAgent addTopologyChangeListener(TopologyChangeListener listener) {
+        topologyChangeListeners.add(listener);
+        return this;
+    }
+
+    public void removeTopologyChangeListener(TopologyChangeListener listener) {
+        topologyChangeListeners.remove(listener);
     }
 
     public <T extends EndpointsSelector> void startPollingNeptuneAPI(GremlinClient client,
@@ -185,6 +628,13 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
         startPollingNeptuneAPI(RefreshTask.refresh(client, selector), delay, timeUnit);
     }
 
+    public <T extends EndpointsSelector> void startPollingNeptuneAPI(GremlinClient client,
+                                                                     T selector,
+                                                                     PollingSchedule pollingSchedule) {
+
+        startPollingNeptuneAPI(Collections.singletonList(RefreshTask.refresh(client, selector)), pollingSchedule);
+    }
+
     public <T extends EndpointsSelector> void startPollingNeptuneAPI(RefreshTask refreshTask,
                                                                      long delay,
                                                                      TimeUnit timeUnit) {
@@ -196,23 +646,52 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
                                                                      long delay,
                                                                      TimeUnit timeUnit) {
 
-        schedule(new PollingCommand(tasks, this::refreshEndpoints), delay, timeUnit);
+        startPollingNeptuneAPI(tasks, PollingSchedule.fixedDelay(delay, timeUnit));
+    }
+
+    public void startPollingNeptuneAPI(Collection<RefreshTask> tasks,
+                                       PollingSchedule pollingSchedule) {
+
+        schedule(new PollingCommand(
+                        tasks,
+                        endpointsSupplier(),
+                        metrics,
+                        fanOutExecutor,
+                        clientRefreshTimeoutMillis,
+                        refreshUnchangedAfterMillis,
+                        topologyChangeListeners,
+                        clock),
+                pollingSchedule);
     }
 
     public void startPollingNeptuneAPI(OnNewClusterMetadata onNewClusterMetadata,
                                        long delay,
                                        TimeUnit timeUnit) {
 
+        startPollingNeptuneAPI(onNewClusterMetadata, PollingSchedule.fixedDelay(delay, timeUnit));
+    }
+
+    public void startPollingNeptuneAPI(OnNewClusterMetadata onNewClusterMetadata,
+                                       PollingSchedule pollingSchedule) {
+
         schedule(() -> {
             try {
-                NeptuneClusterMetadata clusterMetadata = refreshClusterMetadata();
-                logger.info("New cluster metadata: {}", clusterMetadata);
+                long startNanos = clock.nanoTime();
+                NeptuneClusterMetadata clusterMetadata;
+                boolean succeeded = false;
+                try {
+                    clusterMetadata = refreshClusterMetadata();
+                    succeeded = true;
+                } finally {
+                    metrics.fetchCompleted(millisSince(clock, startNanos), succeeded);
+                }
+                logger.info("New cluster metadata [version: {}]: {}", clusterMetadata.getVersion(), clusterMetadata);
                 onNewClusterMetadata.apply(clusterMetadata);
             } catch (Exception e) {
                 logger.error("Error while refreshing cluster metadata", e);
             }
 
-        }, delay, timeUnit);
+        }, pollingSchedule);
     }
 
     /**
@@ -247,6 +726,8 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
             ScheduledExecutorService executorService = scheduledExecutorService;
             executorService.shutdownNow();
 
+            pendingPolls.forEach(poll -> poll.cancel(false));
+
             if (timeout <= 0) {
                 isRunning.set(false);
                 return false;
@@ -268,19 +749,152 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
         }
     }
 
+    /**
+     * Stops polling, and closes the Neptune Management API or Lambda clients used by the agent.
+     */
     @Override
     public void close() throws Exception {
         stop();
+        if (endpointsFetchStrategy instanceof AutoCloseable) {
+            ((AutoCloseable) endpointsFetchStrategy).close();
+        }
     }
 
     public <T extends EndpointsSelector> EndpointCollection getEndpoints(T selector) {
         return endpointsFetchStrategy.getEndpoints(Collections.singletonList(selector), false).get(selector);
     }
 
+    /**
+     * Fetches fresh cluster metadata, bypassing any cached metadata, and applies the selector to it.
+     */
+    public <T extends EndpointsSelector> EndpointCollection refreshEndpoints(T selector) {
+        return endpointsFetchStrategy.getEndpoints(Collections.singletonList(selector), true).get(selector);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getEndpoints(EndpointsSelector)}. With the {@code lambdaProxy} and
+     * {@code managementApi} strategies, the endpoints are fetched using an SDK async client, so the calling
+     * thread is not blocked, and the returned future can be composed with a timeout using
+     * {@code orTimeout()}.
+     */
+    public <T extends EndpointsSelector> CompletableFuture<EndpointCollection> getEndpointsAsync(T selector) {
+        return endpointsFetchStrategy.getEndpointsAsync(Collections.singletonList(selector), false)
+                .thenApply(endpoints -> endpoints.get(selector));
+    }
+
+    /**
+     * Asynchronous variant of {@link #refreshEndpoints(EndpointsSelector)}.
+     */
+    public <T extends EndpointsSelector> CompletableFuture<EndpointCollection> refreshEndpointsAsync(T selector) {
+        return endpointsFetchStrategy.getEndpointsAsync(Collections.singletonList(selector), true)
+                .thenApply(endpoints -> endpoints.get(selector));
+    }
+
+    /**
+     * Returns an eager refresh handler that fetches fresh endpoints for the selector. Concurrent refreshes
+     * for the same cluster and selector, from any client in the JVM, are coalesced into a single fetch by the
+     * shared {@link EagerRefreshCoordinator}. Custom selectors are compared using {@code equals()}.
+     */
+    public <T extends EndpointsSelector> OnEagerRefresh singleFlightRefresh(T selector) {
+        return EagerRefreshCoordinator.shared().coalesce(
+                Arrays.asList(endpointsFetchStrategy.clusterKey(), selector),
+                context -> refreshEndpoints(selector));
+    }
+
+    /**
+     * Cumulative timings for the polls made by this agent.
+     */
+    public RefreshAgentMetrics metrics() {
+        return metrics;
+    }
+
     public NeptuneClusterMetadata getClusterMetadata() {
         return endpointsFetchStrategy.clusterMetadataSupplier().getClusterMetadata();
     }
 
+    public CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync() {
+        return endpointsFetchStrategy.clusterMetadataSupplier().getClusterMetadataAsync();
+    }
+
+    /**
+     * Resolves the cluster endpoint's CNAME every {@code interval}, and polls immediately when the target of the
+     * CNAME changes, which indicates a writer failover. Must be called after {@code startPollingNeptuneAPI}, and
+     * again after the agent is restarted.
+     */
+    public void watchClusterEndpoint(long interval, TimeUnit timeUnit) {
+        watchClusterEndpoint(new DnsCnameResolver(), interval, timeUnit);
+    }
+
+    /**
+     * Resolves the cluster endpoint using the supplied resolver every {@code interval}, and polls immediately
+     * when its target changes. The resolver runs on the polling thread, so should return promptly. The watcher
+     * reads the cluster endpoint from the most recently polled metadata, and never fetches metadata itself.
+     *
+     * @throws IllegalStateException if the agent is not polling
+     */
+    public void watchClusterEndpoint(HostnameResolver resolver, long interval, TimeUnit timeUnit) {
+        synchronized (executorServiceLock) {
+
+            if (!isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is not running. Call startPollingNeptuneAPI before watching the cluster endpoint.");
+            }
+
+            ClusterEndpointWatcher watcher = new ClusterEndpointWatcher(
+                    this::cachedClusterMetadata,
+                    resolver,
+                    pollingCommand,
+                    metrics);
+
+            scheduledExecutorService.scheduleWithFixedDelay(watcher, interval, interval, timeUnit);
+        }
+    }
+
+    /**
+     * Polls immediately on the polling thread, without waiting for the next scheduled poll. The returned future
+     * completes once every client has been refreshed, or has timed out. It completes exceptionally if the
+     * endpoints could not be fetched, and is cancelled if the agent is stopped before the poll runs.
+     *
+     * @throws IllegalStateException if the agent is not polling
+     */
+    public CompletableFuture<Void> pollNow() {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+
+        synchronized (executorServiceLock) {
+
+            if (!isRunning.get()) {
+                throw new IllegalStateException("Refresh agent is not running. Call startPollingNeptuneAPI before polling.");
+            }
+
+            Runnable command = pollingCommand;
+            pendingPolls.add(result);
+            result.whenComplete((r, e) -> pendingPolls.remove(result));
+
+            scheduledExecutorService.execute(() -> {
+                try {
+                    if (command instanceof PollingCommand) {
+                        CompletableFuture<Void> poll = ((PollingCommand) command).pollOnCallingThread().whenComplete((r, e) -> {
+                            if (e != null) {
+                                result.completeExceptionally(e);
+                            } else {
+                                result.complete(null);
+                            }
+                        });
+                        // Holds the polling thread until the poll completes, so that the next scheduled poll
+                        // can't overlap an asynchronous fetch
+                        poll.handle((r, e) -> null).join();
+                    } else {
+                        command.run();
+                        result.complete(null);
+                    }
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        return result;
+    }
+
     /**
      * Runs a no-op on the polling thread and waits for it to complete, forcing any refresh that is
      * already queued or in flight to finish. Use this to ensure refreshes occur in a timely manner in an
@@ -305,6 +919,15 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
         future.get();
     }
 
+    /**
+     * Prevents the agent from polling on its own, for an agent whose metadata is fetched, and whose clients are
+     * refreshed, by another agent. Attempts to start polling throw an {@link IllegalStateException} with the
+     * supplied message.
+     */
+    void disablePolling(String reason) {
+        pollingDisabledReason = reason;
+    }
+
     /**
      * Marks the agent as running and schedules the polling command, recreating the executor service if it
      * was shut down by a previous call to {@link #stop()}.
@@ -315,28 +938,136 @@ public class ClusterEndpointsRefreshAgent implements AutoCloseable {
      *
      * @throws IllegalStateException if the agent is already running
      */
-    private void schedule(Runnable command, long delay, TimeUnit timeUnit) {
+    private void schedule(Runnable command, PollingSchedule pollingSchedule) {
         synchronized (executorServiceLock) {
 
+            if (pollingDisabledReason != null) {
+                throw new IllegalStateException(pollingDisabledReason);
+            }
+
             if (isRunning.get()) {
                 throw new IllegalStateException("Refresh agent is already running");
             }
 
             if (scheduledExecutorService.isShutdown()) {
-                scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+                scheduledExecutorService = executionMode.newScheduledExecutor(POLLING_THREAD_PREFIX);
             }
 
-            scheduledExecutorService.scheduleWithFixedDelay(command, delay, delay, timeUnit);
+            ScheduledPoll scheduledPoll = new ScheduledPoll(command, pollingSchedule, scheduledExecutorService);
+            scheduledPoll.scheduleNext(pollingSchedule.nextDelayMillis(0, false, ThreadLocalRandom.current().nextDouble()));
 
+            pollingCommand = command;
             isRunning.set(true);
         }
     }
 
-    private Map<? extends EndpointsSelector, EndpointCollection> refreshEndpoints(Map<EndpointsSelector, Collection<GremlinClient>> clientSelectors) {
-        return endpointsFetchStrategy.getEndpoints(clientSelectors, true);
+    /**
+     * Runs the polling command and schedules the next poll on the same executor, with a delay determined by the
+     * outcome of the poll and the state of the cluster. Once the executor is shut down, the next poll cannot be
+     * scheduled, and the chain of polls ends.
+     */
+    private class ScheduledPoll implements Runnable {
+
+        private final Runnable command;
+        private final PollingSchedule pollingSchedule;
+        private final ScheduledExecutorService executorService;
+        private int consecutiveBackoffs = 0;
+
+        ScheduledPoll(Runnable command, PollingSchedule pollingSchedule, ScheduledExecutorService executorService) {
+            this.command = command;
+            this.pollingSchedule = pollingSchedule;
+            this.executorService = executorService;
+        }
+
+        @Override
+        public void run() {
+            boolean topologyChanging = false;
+            try {
+                long throttledCount = metrics.getThrottledCount();
+                long failedPollCount = metrics.getFailedPollCount();
+
+                try {
+                    command.run();
+                } catch (Exception e) {
+                    logger.error("Error while polling", e);
+                }
+
+                if (metrics.getThrottledCount() > throttledCount || metrics.getFailedPollCount() > failedPollCount) {
+                    consecutiveBackoffs++;
+                } else {
+                    consecutiveBackoffs = 0;
+                }
+
+                topologyChanging = PollingSchedule.isTopologyChanging(cachedClusterMetadata());
+            } finally {
+                // Always schedule the next poll, otherwise a single unexpected error ends the chain of polls
+                long delayMillis = pollingSchedule.nextDelayMillis(
+                        consecutiveBackoffs,
+                        topologyChanging,
+                        ThreadLocalRandom.current().nextDouble());
+
+                if (consecutiveBackoffs > 0) {
+                    logger.warn("Poll was throttled or failed, so backing off [consecutiveBackoffs: {}, delayMillis: {}]", consecutiveBackoffs, delayMillis);
+                } else if (topologyChanging) {
+                    logger.debug("Topology is changing, so polling again in {} millis", delayMillis);
+                }
+
+                scheduleNext(delayMillis);
+            }
+        }
+
+        void scheduleNext(long delayMillis) {
+            try {
+                executorService.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Refresh agent has been stopped, so not scheduling another poll");
+            }
+        }
+    }
+
+    static ExecutorService createFanOutExecutor(ExecutionMode executionMode, int parallelism, String threadNamePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                executionMode.threadFactory(threadNamePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // Reads whatever metadata the last poll fetched, without fetching, so that callers on the polling thread
+    // never make an extra call to the metadata source, and never fail because that source is unavailable
+    private NeptuneClusterMetadata cachedClusterMetadata() {
+        try {
+            ClusterMetadataSupplier clusterMetadataSupplier = endpointsFetchStrategy.clusterMetadataSupplier();
+            return clusterMetadataSupplier == null ? null : clusterMetadataSupplier.getCachedClusterMetadata();
+        } catch (Exception e) {
+            logger.debug("Unable to read cached cluster metadata", e);
+            return null;
+        }
+    }
+
+    private EndpointsSupplier endpointsSupplier() {
+        return new EndpointsSupplier() {
+            @Override
+            public Map<? extends EndpointsSelector, EndpointCollection> getRefreshedEndpointsForSelectors(Map<EndpointsSelector, Collection<GremlinClient>> clientSelectors) {
+                return endpointsFetchStrategy.getEndpoints(clientSelectors, true);
+            }
+
+            @Override
+            public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getRefreshedEndpointsForSelectorsAsync(Map<EndpointsSelector, Collection<GremlinClient>> clientSelectors) {
+                return endpointsFetchStrategy.getEndpointsAsync(clientSelectors, true);
+            }
+        };
     }
 
     private NeptuneClusterMetadata refreshClusterMetadata() {
         return endpointsFetchStrategy.clusterMetadataSupplier().refreshClusterMetadata();
     }
+
+    private static long millisSince(Clock clock, long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - startNanos);
+    }
 }
@@ -12,7 +12,42 @@ permissions and limitations under the License.
 
 package software.amazon.neptune.cluster;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface ClusterMetadataSupplier {
     NeptuneClusterMetadata getClusterMetadata();
     NeptuneClusterMetadata refreshClusterMetadata();
+
+    /**
+     * Returns the most recently fetched metadata, or {@code null} if none has been fetched yet. Unlike
+     * {@link #getClusterMetadata()}, this never fetches, and so never blocks or throws because a fetch failed.
+     */
+    default NeptuneClusterMetadata getCachedClusterMetadata() {
+        return null;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getClusterMetadata()}. The default implementation calls
+     * {@code getClusterMetadata()} on the calling thread, and returns a completed future. Suppliers backed by an
+     * SDK async client override this so that the calling thread is not blocked.
+     */
+    default CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync() {
+        try {
+            return CompletableFuture.completedFuture(getClusterMetadata());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #refreshClusterMetadata()}. The default implementation calls
+     * {@code refreshClusterMetadata()} on the calling thread, and returns a completed future.
+     */
+    default CompletableFuture<NeptuneClusterMetadata> refreshClusterMetadataAsync() {
+        try {
+            return CompletableFuture.completedFuture(refreshClusterMetadata());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -17,6 +17,7 @@ import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 class CommonClusterEndpointsFetchStrategy implements ClusterEndpointsFetchStrategy {
 
@@ -43,18 +44,25 @@ class CommonClusterEndpointsFetchStrategy implements ClusterEndpointsFetchStrate
             return refreshEndpoints(selectors);
         }
 
-        Map<EndpointsSelector, EndpointCollection> results = new HashMap<>();
-
-        for (EndpointsSelector selector : selectors) {
-            results.put(selector, clusterMetadata.select(selector));
-        }
+        return select(clusterMetadata, selectors);
+    }
 
-        return results;
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        CompletableFuture<NeptuneClusterMetadata> clusterMetadata = refresh ?
+                clusterMetadataSupplier.refreshClusterMetadataAsync() :
+                clusterMetadataSupplier.getClusterMetadataAsync().thenCompose(cached -> cached == null ?
+                        clusterMetadataSupplier.refreshClusterMetadataAsync() :
+                        CompletableFuture.completedFuture(cached));
+
+        return clusterMetadata.thenApply(metadata -> select(metadata, selectors));
     }
 
     private Map<? extends EndpointsSelector, EndpointCollection> refreshEndpoints(Collection<? extends EndpointsSelector> selectors) {
-        NeptuneClusterMetadata clusterMetadata = clusterMetadataSupplier.refreshClusterMetadata();
+        return select(clusterMetadataSupplier.refreshClusterMetadata(), selectors);
+    }
 
+    private static Map<EndpointsSelector, EndpointCollection> select(NeptuneClusterMetadata clusterMetadata, Collection<? extends EndpointsSelector> selectors) {
         Map<EndpointsSelector, EndpointCollection> results = new HashMap<>();
 
         for (EndpointsSelector selector : selectors) {
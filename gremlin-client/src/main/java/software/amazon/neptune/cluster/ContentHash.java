@@ -0,0 +1,113 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.Endpoint;
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds a SHA-256 hash of cluster metadata or endpoints. Endpoints, instances, tags and annotations are
+ * hashed in a canonical order, so two fetches of the same topology produce the same hash, regardless of the
+ * order in which the Management API returned them.
+ */
+class ContentHash {
+
+    private static final int HASH_LENGTH_BYTES = 16;
+
+    static String of(EndpointCollection endpoints) {
+        ContentHash hash = new ContentHash();
+        endpoints.stream()
+                .sorted(Comparator.comparing(e -> String.valueOf(e.getAddress())))
+                .forEach(hash::add);
+        return hash.toHex();
+    }
+
+    static String of(NeptuneClusterMetadata clusterMetadata) {
+        ContentHash hash = new ContentHash();
+        hash.add(clusterMetadata.getClusterEndpoint());
+        hash.add(clusterMetadata.getReaderEndpoint());
+        clusterMetadata.getInstances().stream()
+                .sorted(Comparator.comparing(i -> String.valueOf(i.getInstanceId())))
+                .forEach(hash::add);
+        return hash.toHex();
+    }
+
+    private final MessageDigest digest;
+
+    private ContentHash() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void add(Endpoint endpoint) {
+        if (endpoint == null) {
+            add((String) null);
+            return;
+        }
+        add(endpoint.getAddress());
+        add(String.valueOf(endpoint.isAvailable()));
+        add(endpoint.getAnnotations());
+        if (endpoint instanceof NeptuneInstanceMetadata) {
+            NeptuneInstanceMetadata instance = (NeptuneInstanceMetadata) endpoint;
+            add(instance.getInstanceId());
+            add(instance.getRole());
+            add(instance.getStatus());
+            add(instance.getAvailabilityZone());
+            add(instance.getInstanceType());
+            add(instance.getTags());
+        }
+    }
+
+    private void add(Map<String, String> values) {
+        if (values == null) {
+            add((String) null);
+            return;
+        }
+        Map<String, String> sorted = new TreeMap<>(values);
+        add(String.valueOf(sorted.size()));
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            add(entry.getKey());
+            add(entry.getValue());
+        }
+    }
+
+    private void add(String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private String toHex() {
+        byte[] bytes = digest.digest();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < HASH_LENGTH_BYTES; i++) {
+            builder.append(String.format("%02x", bytes[i]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.util.Hashtable;
+
+/**
+ * Resolves the CNAME record for a hostname by querying DNS directly, using the JDK's JNDI DNS provider.
+ * Unlike {@link java.net.InetAddress}, the provider does not cache results in the JVM, so changes are seen as
+ * soon as the record's TTL expires in the system resolver.
+ */
+public class DnsCnameResolver implements HostnameResolver {
+
+    private final Hashtable<String, String> env = new Hashtable<>();
+
+    public DnsCnameResolver() {
+        this(1000, 1);
+    }
+
+    /**
+     * @param timeoutMillis timeout for the first DNS query, which doubles for each retry
+     * @param retries       number of times to retry each DNS server
+     */
+    public DnsCnameResolver(int timeoutMillis, int retries) {
+        env.put(DirContext.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
+        env.put("com.sun.jndi.dns.timeout.initial", String.valueOf(timeoutMillis));
+        env.put("com.sun.jndi.dns.timeout.retries", String.valueOf(retries));
+    }
+
+    @Override
+    public String resolve(String hostname) throws NamingException {
+        DirContext context = new InitialDirContext(env);
+        try {
+            Attributes attributes = context.getAttributes(hostname, new String[]{"CNAME"});
+            Attribute cname = attributes.get("CNAME");
+            if (cname == null || cname.size() == 0) {
+                return null;
+            }
+            String target = String.valueOf(cname.get());
+            return target.endsWith(".") ? target.substring(0, target.length() - 1) : target;
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+/**
+ * Constants shared by the neptune-endpoints-sidecar server and the {@link ClusterEndpointsRefreshAgent} that
+ * fetches cluster metadata from it. The sidecar serves the cluster metadata as JSON over HTTP on the loopback
+ * interface. Each response carries the metadata's version in an ETag header; a request that sends the same
+ * version in an If-None-Match header receives an empty 304 Not Modified response.
+ */
+public final class EndpointsSidecarProtocol {
+
+    public static final int DEFAULT_PORT = 8190;
+    public static final String CLUSTER_METADATA_PATH = "/cluster-metadata";
+
+    private EndpointsSidecarProtocol() {
+    }
+}
@@ -0,0 +1,408 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.neptune.NeptuneAsyncClient;
+import software.amazon.awssdk.services.neptune.NeptuneClient;
+import software.amazon.awssdk.services.neptune.NeptuneClientBuilder;
+import software.amazon.awssdk.services.neptune.model.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Reads cluster metadata from the Neptune Management API. Metadata for several clusters is read using a single
+ * paginated DescribeDBClusters call and a single paginated DescribeDBInstances call, both filtered by cluster id,
+ * rather than a pair of calls per cluster. The Neptune client is reused across calls, and instance tags are
+ * cached for {@code tagCacheTtl}, so that a poll of an unchanged cluster usually makes no ListTagsForResource calls.
+ */
+class GetClusterMetadataFromNeptuneManagementApi implements ClusterMetadataBatchSupplier, InstrumentedClusterMetadataSupplier, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GetClusterMetadataFromNeptuneManagementApi.class);
+
+    private static final String ANNOTATION_KEY_PREFIX = "neptune:annotation:";
+    private static final String CLUSTER_ID_FILTER = "db-cluster-id";
+
+    // Keeps each filter well within the number of values the Management API accepts
+    static final int MAX_CLUSTER_IDS_PER_REQUEST = 20;
+
+    static final long DEFAULT_TAG_CACHE_TTL_MILLIS = 300000;
+    private static final int MAX_CONCURRENT_TAG_REQUESTS = 8;
+
+    static NeptuneClient createClient(String region,
+                                      String iamProfile,
+                                      AwsCredentialsProvider credentials,
+                                      ClientOverrideConfiguration clientConfiguration,
+                                      SdkHttpClient.Builder<?> httpClientBuilder) {
+        NeptuneClientBuilder builder = configure(NeptuneClient.builder(), region, iamProfile, credentials, clientConfiguration);
+
+        if (httpClientBuilder != null) {
+            builder = builder.httpClientBuilder(httpClientBuilder);
+        }
+
+        return builder.build();
+    }
+
+    static NeptuneAsyncClient createAsyncClient(String region,
+                                                String iamProfile,
+                                                AwsCredentialsProvider credentials,
+                                                ClientOverrideConfiguration clientConfiguration) {
+        return configure(NeptuneAsyncClient.builder(), region, iamProfile, credentials, clientConfiguration).build();
+    }
+
+    private static <B extends AwsClientBuilder<B, ?>> B configure(B builder,
+                                                                  String region,
+                                                                  String iamProfile,
+                                                                  AwsCredentialsProvider credentials,
+                                                                  ClientOverrideConfiguration clientConfiguration) {
+        if (clientConfiguration != null) {
+            builder = builder.overrideConfiguration(clientConfiguration);
+        }
+
+        if (StringUtils.isNotEmpty(region)) {
+            builder = builder.region(Region.of(region));
+        }
+
+        if (credentials != null) {
+            builder = builder.credentialsProvider(credentials);
+        } else if (iamProfile != null && !iamProfile.equals(IamAuthConfig.DEFAULT_PROFILE)) {
+            builder = builder.credentialsProvider(ProfileCredentialsProvider.create(iamProfile));
+        }
+
+        return builder;
+    }
+
+    private final NeptuneClient neptune;
+    private final Supplier<NeptuneAsyncClient> asyncClientFactory;
+    private final ExecutorService tagExecutor = createTagExecutor();
+    private final InstanceTagCache tagCache;
+    private volatile RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+    private NeptuneAsyncClient neptuneAsync;
+
+    GetClusterMetadataFromNeptuneManagementApi(NeptuneClient neptune) {
+        this(neptune, null, DEFAULT_TAG_CACHE_TTL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param asyncClientFactory creates the async client used by {@link #getClusterMetadataAsync(String)} on first
+     *                           use, or null if this supplier only fetches metadata synchronously
+     * @param tagCacheTtl        time for which an instance's tags are reused before they are listed again, or 0 to
+     *                           list the tags for every instance on every call
+     */
+    GetClusterMetadataFromNeptuneManagementApi(NeptuneClient neptune,
+                                               Supplier<NeptuneAsyncClient> asyncClientFactory,
+                                               long tagCacheTtl,
+                                               TimeUnit timeUnit) {
+        this.neptune = neptune;
+        this.asyncClientFactory = asyncClientFactory;
+        this.tagCache = new InstanceTagCache(this::getTags, tagCacheTtl, timeUnit, tagExecutor);
+    }
+
+    /**
+     * Reads the metadata for a single cluster.
+     *
+     * @throws IllegalStateException if the cluster does not exist
+     */
+    NeptuneClusterMetadata getClusterMetadata(String clusterId) {
+        DescribeDbClustersResponse describeDBClustersResult = neptune
+                .describeDBClusters(DescribeDbClustersRequest.builder().dbClusterIdentifier(clusterId).build());
+
+        if (describeDBClustersResult.dbClusters().isEmpty()) {
+            throw new IllegalStateException(String.format("Unable to find cluster %s", clusterId));
+        }
+
+        DBCluster dbCluster = describeDBClustersResult.dbClusters().get(0);
+        Map<String, List<DBInstance>> dbInstances = describeInstances(Collections.singletonList(dbCluster.dbClusterIdentifier()));
+        List<DBInstance> clusterInstances = dbInstances.getOrDefault(normalize(dbCluster.dbClusterIdentifier()), Collections.emptyList());
+
+        Map<String, Map<String, String>> tags = tagCache.getTags(
+                Collections.singletonMap(normalize(dbCluster.dbClusterIdentifier()), instanceArns(clusterInstances)));
+
+        return toClusterMetadata(dbCluster, clusterInstances, tags);
+    }
+
+    boolean supportsAsync() {
+        return asyncClientFactory != null;
+    }
+
+    /**
+     * Reads the metadata for a single cluster using the async client, without blocking the calling thread. Tags
+     * are shared with, and cached alongside, those read by the synchronous methods.
+     *
+     * @return a future that completes exceptionally with an {@link IllegalStateException} if the cluster does not
+     * exist
+     */
+    CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync(String clusterId) {
+        NeptuneAsyncClient neptuneAsync = neptuneAsync();
+        return neptuneAsync
+                .describeDBClusters(DescribeDbClustersRequest.builder().dbClusterIdentifier(clusterId).build())
+                .thenCompose(describeDBClustersResult -> {
+                    if (describeDBClustersResult.dbClusters().isEmpty()) {
+                        throw new CompletionException(new IllegalStateException(String.format("Unable to find cluster %s", clusterId)));
+                    }
+                    DBCluster dbCluster = describeDBClustersResult.dbClusters().get(0);
+                    String normalizedClusterId = normalize(dbCluster.dbClusterIdentifier());
+                    return describeInstancesAsync(neptuneAsync, Collections.singletonList(dbCluster.dbClusterIdentifier()), null, new HashMap<>())
+                            .thenCompose(dbInstances -> {
+                                List<DBInstance> clusterInstances = dbInstances.getOrDefault(normalizedClusterId, Collections.emptyList());
+                                return tagCache.getTagsAsync(
+                                                Collections.singletonMap(normalizedClusterId, instanceArns(clusterInstances)),
+                                                arn -> getTagsAsync(neptuneAsync, arn))
+                                        .thenApply(tags -> toClusterMetadata(dbCluster, clusterInstances, tags));
+                            });
+                });
+    }
+
+    /**
+     * Reads the metadata for each of the supplied clusters, keyed by the supplied cluster ids. Clusters that do
+     * not exist are omitted from the results.
+     */
+    @Override
+    public Map<String, NeptuneClusterMetadata> getClusterMetadata(Collection<String> clusterIds) {
+        try {
+            Map<String, NeptuneClusterMetadata> results = new HashMap<>();
+            List<String> uniqueClusterIds = new ArrayList<>(new LinkedHashSet<>(clusterIds));
+
+            for (int i = 0; i < uniqueClusterIds.size(); i += MAX_CLUSTER_IDS_PER_REQUEST) {
+                List<String> batch = uniqueClusterIds.subList(i, Math.min(i + MAX_CLUSTER_IDS_PER_REQUEST, uniqueClusterIds.size()));
+
+                Map<String, DBCluster> dbClusters = describeClusters(batch);
+                Map<String, List<DBInstance>> dbInstances = describeInstances(batch);
+
+                // Lists any uncached tags for all of the clusters in the batch concurrently
+                Map<String, Collection<String>> instanceArns = new HashMap<>();
+                dbClusters.keySet().forEach(c ->
+                        instanceArns.put(c, instanceArns(dbInstances.getOrDefault(c, Collections.emptyList()))));
+                Map<String, Map<String, String>> tags = tagCache.getTags(instanceArns);
+
+                for (String clusterId : batch) {
+                    DBCluster dbCluster = dbClusters.get(normalize(clusterId));
+                    if (dbCluster == null) {
+                        logger.warn("Unable to find cluster {}", clusterId);
+                        continue;
+                    }
+                    results.put(clusterId, toClusterMetadata(
+                            dbCluster,
+                            dbInstances.getOrDefault(normalize(clusterId), Collections.emptyList()),
+                            tags));
+                }
+            }
+
+            return results;
+
+        } catch (NeptuneException e) {
+            if (e.isThrottlingException()) {
+                logger.warn("Calls to the Neptune Management API are being throttled. Reduce the refresh rate, or use a NeptuneEndpointsInfoLambda proxy.");
+                metrics.throttled();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void setRefreshAgentMetrics(RefreshAgentMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized void close() {
+        tagExecutor.shutdownNow();
+        neptune.close();
+        if (neptuneAsync != null) {
+            neptuneAsync.close();
+            neptuneAsync = null;
+        }
+    }
+
+    private synchronized NeptuneAsyncClient neptuneAsync() {
+        if (asyncClientFactory == null) {
+            throw new UnsupportedOperationException("This supplier does not have an async Neptune client");
+        }
+        if (neptuneAsync == null) {
+            neptuneAsync = asyncClientFactory.get();
+        }
+        return neptuneAsync;
+    }
+
+    private Map<String, DBCluster> describeClusters(List<String> clusterIds) {
+        Map<String, DBCluster> results = new HashMap<>();
+        DescribeDbClustersRequest request = DescribeDbClustersRequest.builder()
+                .filters(Filter.builder().name(CLUSTER_ID_FILTER).values(clusterIds).build())
+                .build();
+        String marker = null;
+        do {
+            DescribeDbClustersResponse response = neptune.describeDBClusters(request.toBuilder().marker(marker).build());
+            response.dbClusters().forEach(c -> results.put(normalize(c.dbClusterIdentifier()), c));
+            marker = response.marker();
+        } while (StringUtils.isNotEmpty(marker));
+        return results;
+    }
+
+    private Map<String, List<DBInstance>> describeInstances(List<String> clusterIds) {
+        Map<String, List<DBInstance>> results = new HashMap<>();
+        String marker = null;
+        do {
+            DescribeDbInstancesResponse response = neptune.describeDBInstances(describeInstancesRequest(clusterIds, marker));
+            addInstances(response, results);
+            marker = response.marker();
+        } while (StringUtils.isNotEmpty(marker));
+        return results;
+    }
+
+    // Follows the pagination markers by chaining each page's request onto the completion of the previous page
+    private CompletableFuture<Map<String, List<DBInstance>>> describeInstancesAsync(NeptuneAsyncClient neptuneAsync,
+                                                                                  List<String> clusterIds,
+                                                                                  String marker,
+                                                                                  Map<String, List<DBInstance>> results) {
+        return neptuneAsync.describeDBInstances(describeInstancesRequest(clusterIds, marker)).thenCompose(response -> {
+            addInstances(response, results);
+            return StringUtils.isNotEmpty(response.marker()) ?
+                    describeInstancesAsync(neptuneAsync, clusterIds, response.marker(), results) :
+                    CompletableFuture.completedFuture(results);
+        });
+    }
+
+    private static DescribeDbInstancesRequest describeInstancesRequest(List<String> clusterIds, String marker) {
+        return DescribeDbInstancesRequest.builder()
+                .filters(Filter.builder().name(CLUSTER_ID_FILTER).values(clusterIds).build())
+                .marker(marker)
+                .build();
+    }
+
+    private static void addInstances(DescribeDbInstancesResponse response, Map<String, List<DBInstance>> results) {
+        response.dbInstances().forEach(i ->
+                results.computeIfAbsent(normalize(i.dbClusterIdentifier()), k -> new ArrayList<>()).add(i));
+    }
+
+    private NeptuneClusterMetadata toClusterMetadata(DBCluster dbCluster,
+                                                     Collection<DBInstance> dbInstances,
+                                                     Map<String, Map<String, String>> instanceTags) {
+
+        List<DBClusterMember> dbClusterMembers = dbCluster.dbClusterMembers();
+        Optional<DBClusterMember> clusterWriter = dbClusterMembers.stream()
+                .filter(DBClusterMember::isClusterWriter)
+                .findFirst();
+
+        String primary = clusterWriter.map(DBClusterMember::dbInstanceIdentifier).orElse("");
+        List<String> replicas = dbClusterMembers.stream()
+                .filter(dbClusterMember -> !dbClusterMember.isClusterWriter())
+                .map(DBClusterMember::dbInstanceIdentifier)
+                .collect(Collectors.toList());
+
+        Collection<NeptuneInstanceMetadata> instances = new ArrayList<>();
+        dbInstances.forEach(c -> {
+                    String role = "unknown";
+                    if (primary.equals(c.dbInstanceIdentifier())) {
+                        role = "writer";
+                    }
+                    if (replicas.contains(c.dbInstanceIdentifier())) {
+                        role = "reader";
+                    }
+                    String address = c.endpoint() == null ? null : c.endpoint().address();
+                    Map<String, String> tags = instanceTags.getOrDefault(c.dbInstanceArn(), Collections.emptyMap());
+                    Map<String, String> annotations = getAnnotations(tags);
+                    instances.add(
+                            new NeptuneInstanceMetadata()
+                                    .withInstanceId(c.dbInstanceIdentifier())
+                                    .withRole(role)
+                                    .withAddress(address)
+                                    .withStatus(c.dbInstanceStatus())
+                                    .withAvailabilityZone(c.availabilityZone())
+                                    .withInstanceType(c.dbInstanceClass())
+                                    .withTags(tags)
+                                    .withAnnotations(annotations));
+                }
+        );
+
+        return new NeptuneClusterMetadata()
+                .withInstances(instances)
+                .withClusterEndpoint(dbCluster.endpoint())
+                .withReaderEndpoint(dbCluster.readerEndpoint());
+    }
+
+    private Map<String, String> getTags(String dbInstanceArn) {
+        return toTags(neptune.listTagsForResource(
+                ListTagsForResourceRequest.builder()
+                        .resourceName(dbInstanceArn)
+                        .build()).tagList());
+    }
+
+    private static CompletableFuture<Map<String, String>> getTagsAsync(NeptuneAsyncClient neptuneAsync, String dbInstanceArn) {
+        return neptuneAsync.listTagsForResource(
+                ListTagsForResourceRequest.builder()
+                        .resourceName(dbInstanceArn)
+                        .build()).thenApply(response -> toTags(response.tagList()));
+    }
+
+    private static Map<String, String> toTags(List<Tag> tagList) {
+        Map<String, String> tags = new HashMap<>();
+        tagList.forEach(t -> tags.put(t.key(), t.value()));
+        return tags;
+    }
+
+    private static List<String> instanceArns(Collection<DBInstance> dbInstances) {
+        return dbInstances.stream().map(DBInstance::dbInstanceArn).collect(Collectors.toList());
+    }
+
+    private static ExecutorService createTagExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_CONCURRENT_TAG_REQUESTS,
+                MAX_CONCURRENT_TAG_REQUESTS,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "neptune-list-tags-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private Map<String, String> getAnnotations(Map<String, String> tags) {
+        Map<String, String> annotations = new HashMap<>();
+
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            String key = tag.getKey();
+            if (key.startsWith(ANNOTATION_KEY_PREFIX)){
+                annotations.put(key.substring(ANNOTATION_KEY_PREFIX.length()), tag.getValue());
+            }
+        }
+
+        return annotations;
+    }
+
+    // Neptune stores cluster identifiers in lowercase
+    private static String normalize(String clusterId) {
+        return clusterId == null ? null : clusterId.toLowerCase(Locale.ROOT);
+    }
+}
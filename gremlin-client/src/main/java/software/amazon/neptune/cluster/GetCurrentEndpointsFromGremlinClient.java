@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 class GetCurrentEndpointsFromGremlinClient implements ClusterEndpointsFetchStrategy {
@@ -45,4 +46,9 @@ class GetCurrentEndpointsFromGremlinClient implements ClusterEndpointsFetchStrat
         }
         return results;
     }
+
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Map<? extends EndpointsSelector, Collection<GremlinClient>> clientSelectors, boolean refresh) {
+        return CompletableFuture.completedFuture(getEndpoints(clientSelectors, refresh));
+    }
 }
@@ -26,10 +26,12 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
 import software.amazon.awssdk.services.lambda.LambdaClient;
 import software.amazon.awssdk.services.lambda.LambdaClientBuilder;
 import software.amazon.awssdk.services.lambda.model.InvokeRequest;
@@ -37,26 +39,38 @@ import software.amazon.awssdk.services.lambda.model.InvokeResponse;
 import software.amazon.awssdk.services.lambda.model.TooManyRequestsException;
 import software.amazon.utils.RegionUtils;
 
+import java.io.IOException;
 import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
-class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(GetEndpointsFromLambdaProxy.class);
 
     private static final long FIFTEEN_SECONDS = 15000;
+    private static final int MAX_TRIES = 5;
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 100;
 
     private final ClusterEndpointsFetchStrategy innerStrategy;
     private final String lambdaName;
+    private final String region;
+    private final String iamProfile;
+    private final AwsCredentialsProvider credentials;
+    private final ClientOverrideConfiguration clientOverrideConfiguration;
+    private final SdkHttpClient.Builder<?> httpClientBuilder;
     private final LambdaClient lambdaClient;
     private final RetryConfig retryConfig;
+    private LambdaAsyncClient lambdaAsyncClient;
     private final AtomicReference<NeptuneClusterMetadata> cachedClusterMetadata = new AtomicReference<>();
     private final AtomicLong lastRefreshTime = new AtomicLong(System.currentTimeMillis());
+    private volatile boolean conditionalRequests = true;
 
     GetEndpointsFromLambdaProxy(String lambdaName) {
         this(lambdaName, RegionUtils.getCurrentRegionName());
@@ -100,11 +114,16 @@ class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, Clus
                                         SdkHttpClient.Builder<?> httpClientBuilder) {
         this.innerStrategy = new CommonClusterEndpointsFetchStrategy(this);
         this.lambdaName = lambdaName;
+        this.region = region;
+        this.iamProfile = iamProfile;
+        this.credentials = credentials;
+        this.clientOverrideConfiguration = clientOverrideConfiguration;
+        this.httpClientBuilder = httpClientBuilder;
         this.lambdaClient = createLambdaClient(region, iamProfile, credentials, clientOverrideConfiguration, httpClientBuilder);
         this.retryConfig = new RetryConfigBuilder()
                 .retryOnSpecificExceptions(TooManyRequestsException.class, TimeoutException.class)
-                .withMaxNumberOfTries(5)
-                .withDelayBetweenTries(100, ChronoUnit.MILLIS)
+                .withMaxNumberOfTries(MAX_TRIES)
+                .withDelayBetweenTries(INITIAL_RETRY_DELAY_MILLIS, ChronoUnit.MILLIS)
                 .withExponentialBackoff()
                 .build();
     }
@@ -114,27 +133,20 @@ class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, Clus
         return this;
     }
 
+    @Override
+    public String clusterKey() {
+        return String.format("lambdaProxy:%s:%s", region, lambdaName);
+    }
+
     @Override
     public NeptuneClusterMetadata refreshClusterMetadata() {
 
         Callable<NeptuneClusterMetadata> query = () -> {
-
-            InvokeRequest invokeRequest = InvokeRequest.builder()
-                    .functionName(lambdaName)
-                    .payload(SdkBytes.fromUtf8String("\"\""))
-                    .build();
-            InvokeResponse result = lambdaClient.invoke(invokeRequest);
-
-            if (StringUtils.isNotEmpty(result.functionError())){
-                String payload = result.payload().asUtf8String();
-                if (payload.contains("Task timed out after")){
-                    throw new TimeoutException(String.format("Lambda proxy invocation timed out. Last error message: %s", payload));
-                } else {
-                    throw new RuntimeException(String.format("Unexpected error while invoking Lambda proxy: %s", payload));
-                }
+            InvokeResponse result = lambdaClient.invoke(invokeRequest());
+            if (rejectedConditionalRequest(result)) {
+                result = lambdaClient.invoke(invokeRequest());
             }
-
-            return NeptuneClusterMetadata.fromByteArray(result.payload().asByteArray());
+            return toClusterMetadata(result);
         };
         @SuppressWarnings("unchecked")
         CallExecutor<NeptuneClusterMetadata> executor =
@@ -145,20 +157,48 @@ class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, Clus
         try {
             status = executor.execute(query);
         } catch (UnexpectedException e) {
-            if (e.getCause() instanceof MismatchedInputException) {
-                throw new IllegalStateException(String.format("The AWS Lambda proxy (%s) isn't returning a NeptuneClusterMetadata JSON document. Check that the function supports returning a NeptuneClusterMetadata JSON document.", lambdaName), e.getCause());
-            } else {
-                throw new IllegalStateException(String.format("There was an unexpected error while attempting to get a NeptuneClusterMetadata JSON document from the AWS Lambda proxy (%s). Check that the function supports returning a NeptuneClusterMetadata JSON document.", lambdaName), e.getCause());
-            }
+            throw unexpectedError(e.getCause());
         }
 
-        NeptuneClusterMetadata clusterMetadata = status.getResult();
-
-        cachedClusterMetadata.set(clusterMetadata);
+        return cache(status.getResult());
+    }
 
-        logger.debug("clusterMetadata: {}", clusterMetadata);
+    /**
+     * Invokes the Lambda proxy using an SDK async client, retrying throttled and timed out invocations with the
+     * same backoff as {@link #refreshClusterMetadata()}, but without blocking a thread between tries. If the
+     * proxy was configured with a synchronous HTTP client builder, refreshes on the calling thread instead.
+     */
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> refreshClusterMetadataAsync() {
+        if (httpClientBuilder != null) {
+            return ClusterMetadataSupplier.super.refreshClusterMetadataAsync();
+        }
 
-        return clusterMetadata;
+        return AsyncRetry.<NeptuneClusterMetadata>withRetries(
+                        () -> lambdaAsyncClient().invoke(invokeRequest())
+                                .thenCompose(result -> rejectedConditionalRequest(result) ?
+                                        lambdaAsyncClient().invoke(invokeRequest()) :
+                                        CompletableFuture.completedFuture(result))
+                                .thenApply(result -> {
+                                    try {
+                                        return toClusterMetadata(result);
+                                    } catch (Exception e) {
+                                        throw new CompletionException(e);
+                                    }
+                                }),
+                        e -> e instanceof TooManyRequestsException || e instanceof TimeoutException,
+                        MAX_TRIES,
+                        INITIAL_RETRY_DELAY_MILLIS)
+                .handle((clusterMetadata, e) -> {
+                    if (e != null) {
+                        Throwable cause = AsyncRetry.unwrap(e);
+                        if (cause instanceof TooManyRequestsException || cause instanceof TimeoutException) {
+                            throw new CompletionException(cause);
+                        }
+                        throw unexpectedError(cause);
+                    }
+                    return cache(clusterMetadata);
+                });
     }
 
     @Override
@@ -173,11 +213,114 @@ class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, Clus
         return clusterMetadata;
     }
 
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync() {
+        NeptuneClusterMetadata clusterMetadata = cachedClusterMetadata.get();
+        if (clusterMetadata == null) {
+            return refreshClusterMetadataAsync();
+        }
+        if (shouldRefresh()){
+            return refreshClusterMetadataAsync();
+        }
+        return CompletableFuture.completedFuture(clusterMetadata);
+    }
+
+    @Override
+    public NeptuneClusterMetadata getCachedClusterMetadata() {
+        return cachedClusterMetadata.get();
+    }
+
     @Override
     public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
         return innerStrategy.getEndpoints(selectors, refresh);
     }
 
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpointsAsync(selectors, refresh);
+    }
+
+    @Override
+    public synchronized void close() {
+        lambdaClient.close();
+        if (lambdaAsyncClient != null) {
+            lambdaAsyncClient.close();
+            lambdaAsyncClient = null;
+        }
+    }
+
+    // Once the client holds metadata, it asks the proxy to reply with a "not modified" document if that
+    // metadata is still current, rather than sending and parsing the whole topology every time
+    private InvokeRequest invokeRequest() {
+        NeptuneClusterMetadata clusterMetadata = cachedClusterMetadata.get();
+        String payload = conditionalRequests && clusterMetadata != null ?
+                LambdaProxyProtocol.conditionalRequest(clusterMetadata.getVersion()) :
+                "\"\"";
+        return InvokeRequest.builder()
+                .functionName(lambdaName)
+                .payload(SdkBytes.fromUtf8String(payload))
+                .build();
+    }
+
+    private boolean rejectedConditionalRequest(InvokeResponse result) {
+        if (conditionalRequests &&
+                StringUtils.isNotEmpty(result.functionError()) &&
+                LambdaProxyProtocol.isUnsupportedConditionalRequest(result.payload().asUtf8String())) {
+            logger.warn("The AWS Lambda proxy ({}) doesn't support conditional requests, so the client will fetch the full cluster metadata every time. Update the proxy to reduce the size of its responses.", lambdaName);
+            conditionalRequests = false;
+            return true;
+        }
+        return false;
+    }
+
+    private NeptuneClusterMetadata toClusterMetadata(InvokeResponse result) throws TimeoutException, IOException {
+        if (StringUtils.isNotEmpty(result.functionError())){
+            String payload = result.payload().asUtf8String();
+            if (payload.contains("Task timed out after")){
+                throw new TimeoutException(String.format("Lambda proxy invocation timed out. Last error message: %s", payload));
+            } else {
+                throw new RuntimeException(String.format("Unexpected error while invoking Lambda proxy: %s", payload));
+            }
+        }
+
+        byte[] payload = result.payload().asByteArray();
+
+        if (LambdaProxyProtocol.isNotModified(payload)) {
+            NeptuneClusterMetadata clusterMetadata = cachedClusterMetadata.get();
+            if (clusterMetadata == null) {
+                throw new IllegalStateException(String.format("The AWS Lambda proxy (%s) returned a not modified response to an unconditional request", lambdaName));
+            }
+            logger.debug("Cluster metadata not modified [version: {}]", clusterMetadata.getVersion());
+            return clusterMetadata;
+        }
+
+        return NeptuneClusterMetadata.fromByteArray(payload);
+    }
+
+    private NeptuneClusterMetadata cache(NeptuneClusterMetadata clusterMetadata) {
+        cachedClusterMetadata.set(clusterMetadata);
+
+        logger.debug("clusterMetadata: {}", clusterMetadata);
+
+        return clusterMetadata;
+    }
+
+    private IllegalStateException unexpectedError(Throwable cause) {
+        if (cause instanceof MismatchedInputException) {
+            return new IllegalStateException(String.format("The AWS Lambda proxy (%s) isn't returning a NeptuneClusterMetadata JSON document. Check that the function supports returning a NeptuneClusterMetadata JSON document.", lambdaName), cause);
+        } else {
+            return new IllegalStateException(String.format("There was an unexpected error while attempting to get a NeptuneClusterMetadata JSON document from the AWS Lambda proxy (%s). Check that the function supports returning a NeptuneClusterMetadata JSON document.", lambdaName), cause);
+        }
+    }
+
+    // Created on first use, so that agents that never refresh asynchronously don't start an event loop
+    private synchronized LambdaAsyncClient lambdaAsyncClient() {
+        if (lambdaAsyncClient == null) {
+            lambdaAsyncClient = configure(LambdaAsyncClient.builder(), region, iamProfile, credentials, clientOverrideConfiguration).build();
+        }
+        return lambdaAsyncClient;
+    }
+
     private boolean shouldRefresh() {
         // Ensure cached values are refreshed every 5 seconds
         final long now = System.currentTimeMillis();
@@ -187,7 +330,16 @@ class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, Clus
 
     private LambdaClient createLambdaClient(String region, String iamProfile, AwsCredentialsProvider credentials, ClientOverrideConfiguration clientConfiguration, SdkHttpClient.Builder<?> httpClientBuilder) {
 
-        LambdaClientBuilder builder = LambdaClient.builder();
+        LambdaClientBuilder builder = configure(LambdaClient.builder(), region, iamProfile, credentials, clientConfiguration);
+
+        if (httpClientBuilder != null){
+            builder = builder.httpClientBuilder(httpClientBuilder);
+        }
+
+        return builder.build();
+    }
+
+    private static <B extends AwsClientBuilder<B, ?>> B configure(B builder, String region, String iamProfile, AwsCredentialsProvider credentials, ClientOverrideConfiguration clientConfiguration) {
 
         if (clientConfiguration != null){
             builder = builder.overrideConfiguration(clientConfiguration);
@@ -208,10 +360,6 @@ class GetEndpointsFromLambdaProxy implements ClusterEndpointsFetchStrategy, Clus
             builder = builder.region(Region.of(region));
         }
 
-        if (httpClientBuilder != null){
-            builder = builder.httpClientBuilder(httpClientBuilder);
-        }
-
-        return builder.build();
+        return builder;
     }
 }
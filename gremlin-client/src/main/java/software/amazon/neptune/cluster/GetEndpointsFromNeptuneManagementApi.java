@@ -13,29 +13,24 @@ permissions and limitations under the License.
 package software.amazon.neptune.cluster;
 
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
-import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.http.SdkHttpClient;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.neptune.NeptuneClient;
-import software.amazon.awssdk.services.neptune.NeptuneClientBuilder;
 import software.amazon.awssdk.services.neptune.model.*;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.utils.RegionUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
-class GetEndpointsFromNeptuneManagementApi implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+class GetEndpointsFromNeptuneManagementApi implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier, InstrumentedClusterMetadataSupplier, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(GetEndpointsFromNeptuneManagementApi.class);
 
-    private static final String ANNOTATION_KEY_PREFIX = "neptune:annotation:";
-
     private final ClusterEndpointsFetchStrategy innerStrategy;
     private final String clusterId;
     private final String region;
@@ -44,6 +39,9 @@ class GetEndpointsFromNeptuneManagementApi implements ClusterEndpointsFetchStrat
     private final AtomicReference<NeptuneClusterMetadata> cachedClusterMetadata = new AtomicReference<>();
     private final ClientOverrideConfiguration clientConfiguration;
     private final SdkHttpClient.Builder<?> httpClientBuilder;
+    private volatile RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+    private long tagCacheTtlMillis = GetClusterMetadataFromNeptuneManagementApi.DEFAULT_TAG_CACHE_TTL_MILLIS;
+    private GetClusterMetadataFromNeptuneManagementApi managementApi;
 
     GetEndpointsFromNeptuneManagementApi(String clusterId) {
         this(clusterId, RegionUtils.getCurrentRegionName());
@@ -73,7 +71,7 @@ class GetEndpointsFromNeptuneManagementApi implements ClusterEndpointsFetchStrat
     }
 
     GetEndpointsFromNeptuneManagementApi(String clusterId, String region, AwsCredentialsProvider credentials, ClientOverrideConfiguration clientConfiguration, SdkHttpClient.Builder<?> httpClientBuilder) {
-        this(clusterId, region, IamAuthConfig.DEFAULT_PROFILE, credentials, clientConfiguration, null);
+        this(clusterId, region, IamAuthConfig.DEFAULT_PROFILE, credentials, clientConfiguration, httpClientBuilder);
     }
 
 
@@ -96,119 +94,100 @@ class GetEndpointsFromNeptuneManagementApi implements ClusterEndpointsFetchStrat
     @Override
     public NeptuneClusterMetadata refreshClusterMetadata() {
         try {
-            NeptuneClientBuilder builder = NeptuneClient.builder();
+            NeptuneClusterMetadata clusterMetadata = managementApi().getClusterMetadata(clusterId);
 
-            if (clientConfiguration != null){
-                builder = builder.overrideConfiguration(clientConfiguration);
-            }
-            if (httpClientBuilder != null) {
-                builder = builder.httpClientBuilder(httpClientBuilder);
-            }
+            cachedClusterMetadata.set(clusterMetadata);
 
-            if (StringUtils.isNotEmpty(region)) {
-                builder = builder.region(Region.of(region));
-            }
+            return clusterMetadata;
 
-            if (credentials != null) {
-                builder = builder.credentialsProvider(credentials);
-            } else if (!iamProfile.equals(IamAuthConfig.DEFAULT_PROFILE)) {
-                builder = builder.credentialsProvider(ProfileCredentialsProvider.create(iamProfile));
-            }
+        } catch (NeptuneException e) {
+            return fallbackToCachedMetadata(e);
+        }
 
-            NeptuneClient neptune = builder.build();
+    }
 
-            DescribeDbClustersResponse describeDBClustersResult = neptune
-                    .describeDBClusters(DescribeDbClustersRequest.builder().dbClusterIdentifier(clusterId).build());
+    /**
+     * Reads the cluster metadata using an SDK async client, without blocking the calling thread. If the strategy
+     * was configured with a synchronous HTTP client builder, refreshes on the calling thread instead.
+     */
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> refreshClusterMetadataAsync() {
+        GetClusterMetadataFromNeptuneManagementApi managementApi = managementApi();
+        if (!managementApi.supportsAsync()) {
+            return ClusterMetadataSupplier.super.refreshClusterMetadataAsync();
+        }
 
-            if (describeDBClustersResult.dbClusters().isEmpty()) {
-                throw new IllegalStateException(String.format("Unable to find cluster %s", clusterId));
+        return managementApi.getClusterMetadataAsync(clusterId).handle((clusterMetadata, e) -> {
+            if (e != null) {
+                Throwable cause = AsyncRetry.unwrap(e);
+                if (cause instanceof NeptuneException) {
+                    return fallbackToCachedMetadata((NeptuneException) cause);
+                }
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(cause);
             }
-
-            DBCluster dbCluster = describeDBClustersResult.dbClusters().get(0);
-
-            String clusterEndpoint = dbCluster.endpoint();
-            String readerEndpoint = dbCluster.readerEndpoint();
-
-            List<DBClusterMember> dbClusterMembers = dbCluster.dbClusterMembers();
-            Optional<DBClusterMember> clusterWriter = dbClusterMembers.stream()
-                    .filter(DBClusterMember::isClusterWriter)
-                    .findFirst();
-
-            String primary = clusterWriter.map(DBClusterMember::dbInstanceIdentifier).orElse("");
-            List<String> replicas = dbClusterMembers.stream()
-                    .filter(dbClusterMember -> !dbClusterMember.isClusterWriter())
-                    .map(DBClusterMember::dbInstanceIdentifier)
-                    .collect(Collectors.toList());
-
-            DescribeDbInstancesRequest describeDBInstancesRequest = DescribeDbInstancesRequest.builder()
-                    .filters(
-                            Collections.singletonList(
-                                    Filter.builder()
-                                            .name("db-cluster-id")
-                                            .values(dbCluster.dbClusterIdentifier())
-                                            .build()
-                            )
-                    )
-                    .build();
-
-            DescribeDbInstancesResponse describeDBInstancesResult = neptune
-                    .describeDBInstances(describeDBInstancesRequest);
-
-            Collection<NeptuneInstanceMetadata> instances = new ArrayList<>();
-            describeDBInstancesResult.dbInstances()
-                    .forEach(c -> {
-                                String role = "unknown";
-                                if (primary.equals(c.dbInstanceIdentifier())) {
-                                    role = "writer";
-                                }
-                                if (replicas.contains(c.dbInstanceIdentifier())) {
-                                    role = "reader";
-                                }
-                                String address = c.endpoint() == null ? null : c.endpoint().address();
-                                Map<String, String> tags = getTags(c.dbInstanceArn(), neptune);
-                                Map<String, String> annotations = getAnnotations(tags);
-                                instances.add(
-                                        new NeptuneInstanceMetadata()
-                                                .withInstanceId(c.dbInstanceIdentifier())
-                                                .withRole(role)
-                                                .withAddress(address)
-                                                .withStatus(c.dbInstanceStatus())
-                                                .withAvailabilityZone(c.availabilityZone())
-                                                .withInstanceType(c.dbInstanceClass())
-                                                .withTags(tags)
-                                                .withAnnotations(annotations));
-                            }
-                    );
-
-            neptune.close();
-
-            NeptuneClusterMetadata clusterMetadata = new NeptuneClusterMetadata()
-                    .withInstances(instances)
-                    .withClusterEndpoint(clusterEndpoint)
-                    .withReaderEndpoint(readerEndpoint);
-
             cachedClusterMetadata.set(clusterMetadata);
-
             return clusterMetadata;
+        });
+    }
 
-        } catch (NeptuneException e) {
-            if (e.isThrottlingException()) {
-                logger.warn("Calls to the Neptune Management API are being throttled. Reduce the refresh rate and stagger refresh agent requests, or use a NeptuneEndpointsInfoLambda proxy.");
-                NeptuneClusterMetadata clusterMetadata = cachedClusterMetadata.get();
-                if (clusterMetadata != null) {
-                    logger.warn("Returning cached cluster metadata");
-                    return clusterMetadata;
-                } else {
-                    throw e;
-                }
-            } else {
-                throw e;
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync() {
+        NeptuneClusterMetadata clusterMetadata = cachedClusterMetadata.get();
+        if (clusterMetadata == null) {
+            return refreshClusterMetadataAsync();
+        }
+        return CompletableFuture.completedFuture(clusterMetadata);
+    }
+
+    private NeptuneClusterMetadata fallbackToCachedMetadata(NeptuneException e) {
+        if (e.isThrottlingException()) {
+            logger.warn("Calls to the Neptune Management API are being throttled. Reduce the refresh rate and stagger refresh agent requests, or use a NeptuneEndpointsInfoLambda proxy.");
+            metrics.throttled();
+            NeptuneClusterMetadata clusterMetadata = cachedClusterMetadata.get();
+            if (clusterMetadata != null) {
+                logger.warn("Returning cached cluster metadata");
+                metrics.cachedMetadataFallback();
+                return clusterMetadata;
             }
         }
+        throw e;
+    }
+
 
+
+    /**
+     * Time for which instance tags are reused before they are listed again, or 0 to list the tags on every
+     * refresh. Must be set before the first refresh.
+     */
+    synchronized void setTagCacheTtl(long tagCacheTtl, TimeUnit timeUnit) {
+        if (managementApi != null) {
+            throw new IllegalStateException("Cluster metadata has already been fetched");
+        }
+        this.tagCacheTtlMillis = timeUnit.toMillis(tagCacheTtl);
     }
 
+    // Creates the Neptune client on first use, and then reuses it, and its connections, for every refresh
+    private synchronized GetClusterMetadataFromNeptuneManagementApi managementApi() {
+        if (managementApi == null) {
+            // A synchronous HTTP client builder can't be used to build an async client
+            managementApi = new GetClusterMetadataFromNeptuneManagementApi(
+                    GetClusterMetadataFromNeptuneManagementApi.createClient(
+                            region, iamProfile, credentials, clientConfiguration, httpClientBuilder),
+                    httpClientBuilder != null ? null : () -> GetClusterMetadataFromNeptuneManagementApi.createAsyncClient(
+                            region, iamProfile, credentials, clientConfiguration),
+                    tagCacheTtlMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        return managementApi;
+    }
 
+    @Override
+    public synchronized void close() {
+        if (managementApi != null) {
+            managementApi.close();
+            managementApi = null;
+        }
+    }
 
     @Override
     public NeptuneClusterMetadata getClusterMetadata() {
@@ -219,39 +198,33 @@ class GetEndpointsFromNeptuneManagementApi implements ClusterEndpointsFetchStrat
         return clusterMetadata;
     }
 
+    @Override
+    public NeptuneClusterMetadata getCachedClusterMetadata() {
+        return cachedClusterMetadata.get();
+    }
+
     @Override
     public ClusterMetadataSupplier clusterMetadataSupplier() {
         return this;
     }
 
     @Override
-    public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
-        return innerStrategy.getEndpoints(selectors, refresh);
+    public String clusterKey() {
+        return String.format("managementApi:%s:%s", region, clusterId);
     }
 
-    private Map<String, String> getTags(String dbInstanceArn, NeptuneClient neptune) {
-
-        List<Tag> tagList = neptune.listTagsForResource(
-                ListTagsForResourceRequest.builder()
-                        .resourceName(dbInstanceArn)
-                        .build()).tagList();
-
-        Map<String, String> tags = new HashMap<>();
-        tagList.forEach(t -> tags.put(t.key(), t.value()));
-
-        return tags;
+    @Override
+    public void setRefreshAgentMetrics(RefreshAgentMetrics metrics) {
+        this.metrics = metrics;
     }
 
-    private Map<String, String> getAnnotations(Map<String, String> tags) {
-        Map<String, String> annotations = new HashMap<>();
-
-        for (Map.Entry<String, String> tag : tags.entrySet()) {
-            String key = tag.getKey();
-            if (key.startsWith(ANNOTATION_KEY_PREFIX)){
-                annotations.put(key.substring(ANNOTATION_KEY_PREFIX.length()), tag.getValue());
-            }
-        }
+    @Override
+    public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpoints(selectors, refresh);
+    }
 
-        return annotations;
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpointsAsync(selectors, refresh);
     }
 }
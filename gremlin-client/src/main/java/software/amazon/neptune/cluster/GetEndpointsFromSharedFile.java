@@ -0,0 +1,168 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads cluster metadata from a memory-mapped file published by a {@link SharedClusterMetadataWriter} in
+ * another process on the same host. While the metadata is unchanged, getting it costs a single volatile read
+ * of the file's sequence number. The metadata is parsed again only when the sequence number changes.
+ */
+class GetEndpointsFromSharedFile implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(GetEndpointsFromSharedFile.class);
+
+    private static final long READ_TIMEOUT_MILLIS = 100;
+
+    private final ClusterEndpointsFetchStrategy innerStrategy;
+    private final Path file;
+    private volatile MappedByteBuffer buffer;
+    private volatile SequencedClusterMetadata cachedClusterMetadata;
+
+    GetEndpointsFromSharedFile(Path file) {
+        this.innerStrategy = new CommonClusterEndpointsFetchStrategy(this);
+        this.file = file;
+    }
+
+    @Override
+    public ClusterMetadataSupplier clusterMetadataSupplier() {
+        return this;
+    }
+
+    @Override
+    public String clusterKey() {
+        return String.format("sharedFile:%s", file.toAbsolutePath());
+    }
+
+    @Override
+    public NeptuneClusterMetadata getClusterMetadata() {
+        MappedByteBuffer current = buffer;
+        SequencedClusterMetadata cached = cachedClusterMetadata;
+        if (current != null && cached != null && SharedClusterMetadataFile.getSequenceVolatile(current) == cached.sequence) {
+            return cached.clusterMetadata;
+        }
+        return read();
+    }
+
+    @Override
+    public NeptuneClusterMetadata getCachedClusterMetadata() {
+        SequencedClusterMetadata cached = cachedClusterMetadata;
+        return cached == null ? null : cached.clusterMetadata;
+    }
+
+    // Reading the file is always current, so a refresh is the same as a get
+    @Override
+    public NeptuneClusterMetadata refreshClusterMetadata() {
+        return getClusterMetadata();
+    }
+
+    @Override
+    public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpoints(selectors, refresh);
+    }
+
+    private synchronized NeptuneClusterMetadata read() {
+
+        if (buffer == null) {
+            remap();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_MILLIS);
+
+        while (true) {
+            MappedByteBuffer current = buffer;
+            long sequence = SharedClusterMetadataFile.getSequenceAcquire(current);
+
+            SequencedClusterMetadata cached = cachedClusterMetadata;
+            if (cached != null && sequence == cached.sequence) {
+                return cached.clusterMetadata;
+            }
+
+            if (sequence == 0) {
+                throw new IllegalStateException(String.format("No cluster metadata has been published to %s yet", file));
+            }
+
+            if ((sequence & 1) == 0) {
+                int length = current.getInt(SharedClusterMetadataFile.LENGTH_OFFSET);
+                if (length < 0 || SharedClusterMetadataFile.HEADER_BYTES + (long) length > current.capacity()) {
+                    // Either the writer has grown the file, or the length was read part way through an update
+                    remap();
+                } else {
+                    byte[] bytes = new byte[length];
+                    current.get(SharedClusterMetadataFile.HEADER_BYTES, bytes);
+                    VarHandle.loadLoadFence();
+                    if (SharedClusterMetadataFile.getSequenceAcquire(current) == sequence) {
+                        return parse(sequence, bytes);
+                    }
+                }
+            }
+
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(String.format("Timed out waiting for the writer to finish updating %s", file));
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+
+    private NeptuneClusterMetadata parse(long sequence, byte[] bytes) {
+        try {
+            NeptuneClusterMetadata clusterMetadata = NeptuneClusterMetadata.fromByteArray(bytes);
+            cachedClusterMetadata = new SequencedClusterMetadata(sequence, clusterMetadata);
+
+            logger.debug("clusterMetadata: {}", clusterMetadata);
+
+            return clusterMetadata;
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to parse cluster metadata in %s", file), e);
+        }
+    }
+
+    // The mapping remains valid after the channel is closed
+    private void remap() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < SharedClusterMetadataFile.HEADER_BYTES) {
+                throw new IllegalStateException(String.format("No cluster metadata has been published to %s yet", file));
+            }
+            buffer = SharedClusterMetadataFile.map(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException(String.format("%s does not exist. Check that a SharedClusterMetadataWriter is publishing cluster metadata to this file.", file), e);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to map %s", file), e);
+        }
+    }
+
+    private static class SequencedClusterMetadata {
+        private final long sequence;
+        private final NeptuneClusterMetadata clusterMetadata;
+
+        private SequencedClusterMetadata(long sequence, NeptuneClusterMetadata clusterMetadata) {
+            this.sequence = sequence;
+            this.clusterMetadata = clusterMetadata;
+        }
+    }
+}
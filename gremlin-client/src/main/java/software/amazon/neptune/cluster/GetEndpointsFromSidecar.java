@@ -0,0 +1,189 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fetches cluster metadata from a neptune-endpoints-sidecar running on the same host. The sidecar runs a single
+ * refresh agent on behalf of every process on the host, so fetches here are cheap, local calls. Once the client
+ * holds metadata, it asks the sidecar for the metadata only if its version has changed.
+ */
+class GetEndpointsFromSidecar implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(GetEndpointsFromSidecar.class);
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5000;
+
+    private final ClusterEndpointsFetchStrategy innerStrategy;
+    private final URI uri;
+    private final HttpClient httpClient;
+    private final AtomicReference<VersionedClusterMetadata> cachedClusterMetadata = new AtomicReference<>();
+
+    GetEndpointsFromSidecar(int port) {
+        this(loopbackUri(port));
+    }
+
+    GetEndpointsFromSidecar(URI uri) {
+        this.innerStrategy = new CommonClusterEndpointsFetchStrategy(this);
+        this.uri = uri;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(REQUEST_TIMEOUT_MILLIS))
+                .build();
+    }
+
+    @Override
+    public ClusterMetadataSupplier clusterMetadataSupplier() {
+        return this;
+    }
+
+    @Override
+    public String clusterKey() {
+        return String.format("sidecar:%s", uri);
+    }
+
+    @Override
+    public NeptuneClusterMetadata refreshClusterMetadata() {
+        try {
+            return toClusterMetadata(httpClient.send(request(), HttpResponse.BodyHandlers.ofByteArray()));
+        } catch (IOException e) {
+            throw unavailable(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while getting cluster metadata from the endpoints sidecar (%s)", uri), e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> refreshClusterMetadataAsync() {
+        return httpClient.sendAsync(request(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, e) -> {
+                    if (e != null) {
+                        Throwable cause = AsyncRetry.unwrap(e);
+                        throw new CompletionException(cause instanceof IOException ? unavailable(cause) : cause);
+                    }
+                    try {
+                        return toClusterMetadata(response);
+                    } catch (IOException ioe) {
+                        throw new CompletionException(ioe);
+                    }
+                });
+    }
+
+    // Polls keep the cached metadata up to date, using conditional requests, so only ask the sidecar if there is
+    // no cached metadata
+    @Override
+    public NeptuneClusterMetadata getClusterMetadata() {
+        VersionedClusterMetadata cached = cachedClusterMetadata.get();
+        if (cached == null) {
+            return refreshClusterMetadata();
+        }
+        return cached.clusterMetadata;
+    }
+
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync() {
+        VersionedClusterMetadata cached = cachedClusterMetadata.get();
+        if (cached == null) {
+            return refreshClusterMetadataAsync();
+        }
+        return CompletableFuture.completedFuture(cached.clusterMetadata);
+    }
+
+    @Override
+    public NeptuneClusterMetadata getCachedClusterMetadata() {
+        VersionedClusterMetadata cached = cachedClusterMetadata.get();
+        return cached == null ? null : cached.clusterMetadata;
+    }
+
+    @Override
+    public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpoints(selectors, refresh);
+    }
+
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpointsAsync(selectors, refresh);
+    }
+
+    private HttpRequest request() {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(REQUEST_TIMEOUT_MILLIS))
+                .GET();
+        VersionedClusterMetadata cached = cachedClusterMetadata.get();
+        if (cached != null && cached.etag != null) {
+            builder.header("If-None-Match", cached.etag);
+        }
+        return builder.build();
+    }
+
+    private NeptuneClusterMetadata toClusterMetadata(HttpResponse<byte[]> response) throws IOException {
+        VersionedClusterMetadata cached = cachedClusterMetadata.get();
+
+        if (response.statusCode() == 304 && cached != null) {
+            return cached.clusterMetadata;
+        }
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(String.format("Unexpected response from the endpoints sidecar (%s): %s", uri, response.statusCode()));
+        }
+
+        NeptuneClusterMetadata clusterMetadata = NeptuneClusterMetadata.fromByteArray(response.body());
+        cachedClusterMetadata.set(new VersionedClusterMetadata(clusterMetadata, response.headers().firstValue("ETag").orElse(null)));
+
+        logger.debug("clusterMetadata: {}", clusterMetadata);
+
+        return clusterMetadata;
+    }
+
+    // The sidecar only listens on the loopback interface, so don't depend on how localhost resolves
+    private static URI loopbackUri(int port) {
+        try {
+            // Brackets the address if it is an IPv6 literal
+            return new URI("http", null, InetAddress.getLoopbackAddress().getHostAddress(), port, EndpointsSidecarProtocol.CLUSTER_METADATA_PATH, null, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private IllegalStateException unavailable(Throwable cause) {
+        return new IllegalStateException(String.format("Unable to get cluster metadata from the endpoints sidecar (%s). Check that the sidecar is running on this host.", uri), cause);
+    }
+
+    private static class VersionedClusterMetadata {
+        private final NeptuneClusterMetadata clusterMetadata;
+        private final String etag;
+
+        private VersionedClusterMetadata(NeptuneClusterMetadata clusterMetadata, String etag) {
+            this.clusterMetadata = clusterMetadata;
+            this.etag = etag;
+        }
+    }
+}
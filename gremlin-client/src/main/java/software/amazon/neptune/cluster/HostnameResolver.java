@@ -0,0 +1,25 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+/**
+ * Resolves a hostname to the target it currently points to, such as the target of a CNAME record. Used by a
+ * {@link ClusterEndpointsRefreshAgent} to detect changes to the cluster endpoint between polls.
+ */
+public interface HostnameResolver {
+
+    /**
+     * @return the current target of the hostname, or null if the hostname could not be resolved to a target
+     */
+    String resolve(String hostname) throws Exception;
+}
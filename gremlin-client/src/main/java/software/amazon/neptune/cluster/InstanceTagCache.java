@@ -0,0 +1,136 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import software.amazon.utils.Clock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caches the tags for each instance, keyed by instance ARN, so that a poll only lists the tags for instances
+ * whose cached tags have expired. When the set of instances in a cluster changes, the cached tags for all of
+ * the cluster's old and new instances are discarded. Missing tags are fetched concurrently.
+ */
+class InstanceTagCache {
+
+    private final Function<String, Map<String, String>> tagsLoader;
+    private final long ttlNanos;
+    private final Executor executor;
+    private final Clock clock;
+    private final Map<String, CachedTags> tags = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> clusterInstances = new ConcurrentHashMap<>();
+
+    InstanceTagCache(Function<String, Map<String, String>> tagsLoader, long ttl, TimeUnit timeUnit, Executor executor) {
+        this(tagsLoader, ttl, timeUnit, executor, Clock.SYSTEM);
+    }
+
+    InstanceTagCache(Function<String, Map<String, String>> tagsLoader,
+                     long ttl,
+                     TimeUnit timeUnit,
+                     Executor executor,
+                     Clock clock) {
+        this.tagsLoader = tagsLoader;
+        this.ttlNanos = timeUnit.toNanos(ttl);
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the tags for each of the supplied instances, keyed by instance ARN.
+     *
+     * @param instanceArns the ARNs of the instances in each cluster, keyed by cluster id
+     */
+    Map<String, Map<String, String>> getTags(Map<String, ? extends Collection<String>> instanceArns) {
+        try {
+            return getTagsAsync(instanceArns, arn -> CompletableFuture.supplyAsync(() -> tagsLoader.apply(arn), executor)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the tags for each of the supplied instances, keyed by instance ARN, using {@code asyncTagsLoader}
+     * to fetch any tags that are not cached.
+     */
+    CompletableFuture<Map<String, Map<String, String>>> getTagsAsync(Map<String, ? extends Collection<String>> instanceArns,
+                                                                  Function<String, CompletableFuture<Map<String, String>>> asyncTagsLoader) {
+        for (Map.Entry<String, ? extends Collection<String>> cluster : instanceArns.entrySet()) {
+            Set<String> current = new HashSet<>(cluster.getValue());
+            Set<String> previous = clusterInstances.put(cluster.getKey(), current);
+            if (previous != null && !previous.equals(current)) {
+                previous.forEach(tags::remove);
+                current.forEach(tags::remove);
+            }
+        }
+
+        long now = clock.nanoTime();
+        Map<String, Map<String, String>> results = new HashMap<>();
+        List<String> expired = new ArrayList<>();
+
+        for (Collection<String> arns : instanceArns.values()) {
+            for (String arn : arns) {
+                CachedTags cached = tags.get(arn);
+                if (cached != null && now - cached.loadedNanos < ttlNanos) {
+                    results.put(arn, cached.tags);
+                } else if (!results.containsKey(arn)) {
+                    results.put(arn, null);
+                    expired.add(arn);
+                }
+            }
+        }
+
+        if (expired.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        Map<String, CompletableFuture<Map<String, String>>> futures = new HashMap<>();
+        for (String arn : expired) {
+            futures.put(arn, asyncTagsLoader.apply(arn));
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            futures.forEach((arn, future) -> {
+                Map<String, String> loaded = future.join();
+                tags.put(arn, new CachedTags(loaded, now));
+                results.put(arn, loaded);
+            });
+            return results;
+        });
+    }
+
+    private static class CachedTags {
+
+        private final Map<String, String> tags;
+        private final long loadedNanos;
+
+        private CachedTags(Map<String, String> tags, long loadedNanos) {
+            this.tags = tags;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+}
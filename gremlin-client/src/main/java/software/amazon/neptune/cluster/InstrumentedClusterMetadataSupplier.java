@@ -0,0 +1,21 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+/**
+ * Implemented by cluster metadata suppliers that can report throttling and cached-metadata fallbacks
+ * to the metrics of the refresh agent that uses them.
+ */
+interface InstrumentedClusterMetadataSupplier {
+    void setRefreshAgentMetrics(RefreshAgentMetrics metrics);
+}
@@ -70,6 +70,11 @@ class LBAwareRequestInterceptor implements RequestInterceptor {
 
         if (iamAuthConfig.enableIamAuth()) {
 
+            String host = request.headers().get("Host");
+
+            SignRequestEvent event = new SignRequestEvent();
+            event.begin();
+
             try {
 
                 NeptuneNettyHttpSigV4Signer signer = sigV4Signer != null ?
@@ -87,6 +92,11 @@ class LBAwareRequestInterceptor implements RequestInterceptor {
 
             } catch (NeptuneSigV4SignerException e) {
                 throw new RuntimeException("Exception occurred while signing the request", e);
+            } finally {
+                if (event.shouldCommit()) {
+                    event.host = host;
+                    event.commit();
+                }
             }
         }
 
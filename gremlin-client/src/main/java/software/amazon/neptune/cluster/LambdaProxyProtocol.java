@@ -0,0 +1,102 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Payloads exchanged between a {@link ClusterEndpointsRefreshAgent} and the neptune-endpoints-info Lambda proxy.
+ * A client that already holds cluster metadata sends its version in a conditional request. If the proxy's
+ * metadata has the same version, the proxy replies with a small "not modified" document instead of the full
+ * metadata, and the client keeps the metadata it already has.
+ */
+public final class LambdaProxyProtocol {
+
+    public static final String IF_NONE_MATCH = "ifNoneMatch";
+    public static final String NOT_MODIFIED = "{\"notModified\":true}";
+
+    private static final byte[] NOT_MODIFIED_BYTES = NOT_MODIFIED.getBytes(UTF_8);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Creates a request payload asking for the cluster metadata only if its version differs from the supplied version.
+     */
+    public static String conditionalRequest(String version) {
+        try {
+            return MAPPER.writeValueAsString(Collections.singletonMap(IF_NONE_MATCH, version));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns true if the payload is a JSON object, and so must be handled as a request in this protocol.
+     * Legacy clients send a JSON string, naming an {@link EndpointsType}, or an empty string.
+     */
+    public static boolean isProtocolRequest(String payload) {
+        return payload != null && payload.trim().startsWith("{");
+    }
+
+    /**
+     * Returns the version held by the client, or null if the request is unconditional.
+     *
+     * @throws IllegalArgumentException if the payload isn't a valid request in this protocol
+     */
+    public static String versionFromRequest(String payload) {
+        if (!isProtocolRequest(payload)) {
+            throw new IllegalArgumentException(String.format("Invalid request payload: %s", payload));
+        }
+        JsonNode request;
+        try {
+            request = MAPPER.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(String.format("Invalid request payload: %s", payload), e);
+        }
+        Iterator<String> fieldNames = request.fieldNames();
+        while (fieldNames.hasNext()) {
+            String fieldName = fieldNames.next();
+            if (!fieldName.equals(IF_NONE_MATCH)) {
+                throw new IllegalArgumentException(String.format("Unsupported field '%s' in request payload: %s", fieldName, payload));
+            }
+        }
+        JsonNode version = request.get(IF_NONE_MATCH);
+        if (version == null || version.isNull()) {
+            return null;
+        }
+        if (!version.isTextual()) {
+            throw new IllegalArgumentException(String.format("Invalid version in request payload: %s", payload));
+        }
+        return version.asText();
+    }
+
+    static boolean isNotModified(byte[] payload) {
+        return Arrays.equals(NOT_MODIFIED_BYTES, payload);
+    }
+
+    // Versions of the proxy that predate conditional requests strip the quotes from the payload, and then fail to
+    // parse what remains of the conditional request as an EndpointsType
+    static boolean isUnsupportedConditionalRequest(String errorPayload) {
+        return errorPayload.contains(String.format("No enum constant %s.{%s:", EndpointsType.class.getName(), IF_NONE_MATCH));
+    }
+
+    private LambdaProxyProtocol() {
+    }
+}
@@ -0,0 +1,399 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.apache.tinkerpop.gremlin.driver.ExecutionMode;
+import org.apache.tinkerpop.gremlin.driver.GremlinClient;
+import org.apache.tinkerpop.gremlin.driver.RefreshTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.utils.Clock;
+import software.amazon.utils.RegionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Refreshes the clients for several Neptune clusters in the same region from a single polling thread. Each poll
+ * fetches the metadata for all of the clusters using batched Management API calls, and then refreshes each
+ * cluster's clients with the endpoints for their selectors.
+ * <p>
+ * Use {@link #forCluster(String)} to get endpoints for a cluster when creating its {@code GremlinCluster}, and for
+ * eager refreshes. Register clients using {@link #addClient(String, GremlinClient, EndpointsSelector)}.
+ */
+public class MultiClusterRefreshAgent implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiClusterRefreshAgent.class);
+
+    private static final long DEFAULT_TERMINATION_TIMEOUT_MILLIS = 5000;
+    private static final int FAN_OUT_PARALLELISM = 4;
+    private static final long CLIENT_REFRESH_TIMEOUT_MILLIS = 10000;
+    private static final String POLLING_THREAD_PREFIX = "multi-cluster-refresh-agent-";
+    private static final String FAN_OUT_THREAD_PREFIX = "multi-cluster-refresh-agent-fan-out-";
+
+    public static MultiClusterRefreshAgent managementApi() {
+        return managementApi(RegionUtils.getCurrentRegionName());
+    }
+
+    public static MultiClusterRefreshAgent managementApi(String region) {
+        return managementApi(region, IamAuthConfig.DEFAULT_PROFILE);
+    }
+
+    public static MultiClusterRefreshAgent managementApi(String region, String iamProfile) {
+        return new MultiClusterRefreshAgent(region, new GetClusterMetadataFromNeptuneManagementApi(
+                GetClusterMetadataFromNeptuneManagementApi.createClient(region, iamProfile, null, null, null)));
+    }
+
+    public static MultiClusterRefreshAgent managementApi(String region, AwsCredentialsProvider credentialsProvider) {
+        return managementApi(region, credentialsProvider, null);
+    }
+
+    public static MultiClusterRefreshAgent managementApi(String region, AwsCredentialsProvider credentialsProvider, ClientOverrideConfiguration clientConfiguration) {
+        return new MultiClusterRefreshAgent(region, new GetClusterMetadataFromNeptuneManagementApi(
+                GetClusterMetadataFromNeptuneManagementApi.createClient(region, IamAuthConfig.DEFAULT_PROFILE, credentialsProvider, clientConfiguration, null)));
+    }
+
+    private final String region;
+    private final ClusterMetadataBatchSupplier batchSupplier;
+    private final Clock clock;
+    private final Map<String, ClusterState> clusters = new ConcurrentHashMap<>();
+    private final RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+    private final Object executorServiceLock = new Object();
+
+    private volatile ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+    private volatile ExecutorService fanOutExecutor = ClusterEndpointsRefreshAgent.createFanOutExecutor(
+            executionMode, FAN_OUT_PARALLELISM, FAN_OUT_THREAD_PREFIX);
+
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * @param region        the region of the clusters, used to coalesce eager refreshes with those of other agents
+     * @param batchSupplier fetches the metadata for the clusters
+     */
+    public MultiClusterRefreshAgent(String region, ClusterMetadataBatchSupplier batchSupplier) {
+        this(region, batchSupplier, Clock.SYSTEM);
+    }
+
+    /**
+     * @param clock source of time for poll timings, shared with the agent's single-cluster agents
+     */
+    public MultiClusterRefreshAgent(String region, ClusterMetadataBatchSupplier batchSupplier, Clock clock) {
+        this.region = region;
+        this.batchSupplier = batchSupplier;
+        this.clock = clock;
+        if (batchSupplier instanceof InstrumentedClusterMetadataSupplier) {
+            ((InstrumentedClusterMetadataSupplier) batchSupplier).setRefreshAgentMetrics(metrics);
+        }
+    }
+
+    /**
+     * Returns a refresh agent for a single cluster, whose endpoints come from this agent's batched fetches. Use
+     * it to get the cluster's endpoints, and for eager refreshes. The returned agent cannot poll: its
+     * {@code startPollingNeptuneAPI} methods throw an {@link IllegalStateException}. Register the cluster's
+     * clients with this agent instead.
+     */
+    public ClusterEndpointsRefreshAgent forCluster(String clusterId) {
+        return clusterState(clusterId).agent;
+    }
+
+    /**
+     * Refreshes the client with the endpoints for the selector after each poll.
+     */
+    public <T extends EndpointsSelector> MultiClusterRefreshAgent addClient(String clusterId, GremlinClient client, T selector) {
+        return addClients(clusterId, Collections.singletonList(RefreshTask.refresh(client, selector)));
+    }
+
+    public MultiClusterRefreshAgent addClients(String clusterId, Collection<RefreshTask> tasks) {
+        clusterState(clusterId).tasks.addAll(tasks);
+        return this;
+    }
+
+    /**
+     * Threads on which the agent polls and refreshes its clients. With {@link ExecutionMode#VIRTUAL_THREADS},
+     * the polling thread and fan-out threads are virtual threads, if the JVM supports them. Must be called before
+     * {@code startPolling}.
+     *
+     * @throws IllegalStateException if the agent is running
+     */
+    public MultiClusterRefreshAgent withExecutionMode(ExecutionMode executionMode) {
+        synchronized (executorServiceLock) {
+            if (scheduledExecutorService != null) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            ExecutorService previousFanOutExecutor = fanOutExecutor;
+            this.executionMode = executionMode;
+            fanOutExecutor = ClusterEndpointsRefreshAgent.createFanOutExecutor(
+                    executionMode, FAN_OUT_PARALLELISM, FAN_OUT_THREAD_PREFIX);
+            previousFanOutExecutor.shutdown();
+        }
+        return this;
+    }
+
+    public void startPolling(long delay, TimeUnit timeUnit) {
+        startPolling(PollingSchedule.fixedDelay(delay, timeUnit));
+    }
+
+    /**
+     * Starts polling for all of the clusters that have clients.
+     *
+     * @throws IllegalStateException if the agent is already polling
+     */
+    public void startPolling(PollingSchedule pollingSchedule) {
+        synchronized (executorServiceLock) {
+            if (scheduledExecutorService != null) {
+                throw new IllegalStateException("Refresh agent is already running");
+            }
+            scheduledExecutorService = executionMode.newScheduledExecutor(POLLING_THREAD_PREFIX);
+            new ScheduledPoll(pollingSchedule, scheduledExecutorService).scheduleNext(
+                    pollingSchedule.nextDelayMillis(0, false, ThreadLocalRandom.current().nextDouble()));
+        }
+    }
+
+    /**
+     * Fetches the metadata for every cluster that has clients, and refreshes the clients. Returns false if the
+     * metadata could not be fetched.
+     */
+    public boolean poll() {
+        List<ClusterState> polledClusters = clusters.values().stream()
+                .filter(c -> !c.tasks.isEmpty())
+                .collect(Collectors.toList());
+
+        if (polledClusters.isEmpty()) {
+            return true;
+        }
+
+        Map<String, NeptuneClusterMetadata> results;
+        try {
+            results = fetch(polledClusters.stream().map(c -> c.clusterId).collect(Collectors.toList()));
+        } catch (Exception e) {
+            logger.error("Error while getting cluster metadata", e);
+            return false;
+        }
+
+        List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+        for (ClusterState cluster : polledClusters) {
+            if (results.containsKey(cluster.clusterId)) {
+                refreshes.add(cluster.pollingCommand.pollOnCallingThread().exceptionally(e -> {
+                    logger.error("Error while refreshing clients for cluster {}", cluster.clusterId, e);
+                    return null;
+                }));
+            } else {
+                logger.warn("No metadata returned for cluster {}, so not refreshing its clients", cluster.clusterId);
+            }
+        }
+        CompletableFuture.allOf(refreshes.toArray(new CompletableFuture<?>[0])).join();
+        return true;
+    }
+
+    /**
+     * Metrics for the batched fetches made by this agent.
+     */
+    public RefreshAgentMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Metrics for refreshing the clients of a cluster.
+     */
+    public RefreshAgentMetrics metrics(String clusterId) {
+        return clusterState(clusterId).metrics;
+    }
+
+    public void stop() {
+        stop(DEFAULT_TERMINATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling and waits for the in-flight poll to terminate.
+     *
+     * @return true if polling has terminated
+     */
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        synchronized (executorServiceLock) {
+            ScheduledExecutorService executorService = scheduledExecutorService;
+            if (executorService == null) {
+                return true;
+            }
+            executorService.shutdownNow();
+            try {
+                if (executorService.awaitTermination(timeout, timeUnit)) {
+                    scheduledExecutorService = null;
+                    return true;
+                }
+                logger.warn("Timed out waiting for the polling task to terminate");
+            } catch (InterruptedException e) {
+                logger.warn("Interrupted while waiting for the polling task to terminate");
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        stop();
+        fanOutExecutor.shutdownNow();
+        if (batchSupplier instanceof AutoCloseable) {
+            ((AutoCloseable) batchSupplier).close();
+        }
+    }
+
+    private Map<String, NeptuneClusterMetadata> fetch(Collection<String> clusterIds) {
+        long startNanos = clock.nanoTime();
+        boolean succeeded = false;
+        try {
+            Map<String, NeptuneClusterMetadata> results = batchSupplier.getClusterMetadata(clusterIds);
+            results.forEach((clusterId, clusterMetadata) -> clusterState(clusterId).clusterMetadata.set(clusterMetadata));
+            succeeded = true;
+            return results;
+        } finally {
+            metrics.fetchCompleted(TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - startNanos), succeeded);
+        }
+    }
+
+    private ClusterState clusterState(String clusterId) {
+        return clusters.computeIfAbsent(clusterId, ClusterState::new);
+    }
+
+    /**
+     * A cluster's clients and most recently fetched metadata. Also acts as the fetch strategy for the cluster's
+     * single-cluster agent: refreshing the metadata fetches this cluster only.
+     */
+    private class ClusterState implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+
+        private final String clusterId;
+        private final AtomicReference<NeptuneClusterMetadata> clusterMetadata = new AtomicReference<>();
+        private final List<RefreshTask> tasks = new CopyOnWriteArrayList<>();
+        private final RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+        private final ClusterEndpointsFetchStrategy innerStrategy = new CommonClusterEndpointsFetchStrategy(this);
+        private final ClusterEndpointsRefreshAgent.PollingCommand pollingCommand;
+        private final ClusterEndpointsRefreshAgent agent;
+
+        ClusterState(String clusterId) {
+            this.clusterId = clusterId;
+            // Polls read the metadata fetched for all clusters at the start of the poll
+            this.pollingCommand = new ClusterEndpointsRefreshAgent.PollingCommand(
+                    tasks,
+                    clientSelectors -> innerStrategy.getEndpoints(clientSelectors, false),
+                    metrics,
+                    // Reads the field on each refresh, so that clusters added before withExecutionMode() use its executor
+                    command -> fanOutExecutor.execute(command),
+                    CLIENT_REFRESH_TIMEOUT_MILLIS,
+                    0,
+                    Collections.emptyList(),
+                    clock);
+            this.agent = new ClusterEndpointsRefreshAgent(this, clock);
+            this.agent.disablePolling(String.format(
+                    "The refresh agent for cluster %s is polled by its MultiClusterRefreshAgent. Add the cluster's clients to that agent instead.",
+                    clusterId));
+        }
+
+        @Override
+        public NeptuneClusterMetadata getClusterMetadata() {
+            NeptuneClusterMetadata cached = clusterMetadata.get();
+            if (cached == null) {
+                return refreshClusterMetadata();
+            }
+            return cached;
+        }
+
+        @Override
+        public NeptuneClusterMetadata getCachedClusterMetadata() {
+            return clusterMetadata.get();
+        }
+
+        @Override
+        public NeptuneClusterMetadata refreshClusterMetadata() {
+            NeptuneClusterMetadata refreshed = fetch(Collections.singletonList(clusterId)).get(clusterId);
+            if (refreshed == null) {
+                throw new IllegalStateException(String.format("Unable to find cluster %s", clusterId));
+            }
+            return refreshed;
+        }
+
+        @Override
+        public ClusterMetadataSupplier clusterMetadataSupplier() {
+            return this;
+        }
+
+        @Override
+        public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+            return innerStrategy.getEndpoints(selectors, refresh);
+        }
+
+        @Override
+        public String clusterKey() {
+            return String.format("managementApi:%s:%s", region, clusterId);
+        }
+    }
+
+    private class ScheduledPoll implements Runnable {
+
+        private final PollingSchedule pollingSchedule;
+        private final ScheduledExecutorService executorService;
+        private int consecutiveBackoffs = 0;
+
+        ScheduledPoll(PollingSchedule pollingSchedule, ScheduledExecutorService executorService) {
+            this.pollingSchedule = pollingSchedule;
+            this.executorService = executorService;
+        }
+
+        @Override
+        public void run() {
+            boolean topologyChanging = false;
+            try {
+                boolean succeeded;
+                try {
+                    succeeded = poll();
+                } catch (Exception e) {
+                    logger.error("Error while polling", e);
+                    succeeded = false;
+                }
+                consecutiveBackoffs = succeeded ? 0 : consecutiveBackoffs + 1;
+
+                topologyChanging = clusters.values().stream()
+                        .anyMatch(c -> PollingSchedule.isTopologyChanging(c.clusterMetadata.get()));
+            } finally {
+                // Always schedule the next poll, otherwise a single unexpected error ends the chain of polls
+                scheduleNext(pollingSchedule.nextDelayMillis(
+                        consecutiveBackoffs,
+                        topologyChanging,
+                        ThreadLocalRandom.current().nextDouble()));
+            }
+        }
+
+        void scheduleNext(long delayMillis) {
+            try {
+                executorService.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Refresh agent has been stopped, so not scheduling another poll");
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ permissions and limitations under the License.
 
 package software.amazon.neptune.cluster;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.tinkerpop.gremlin.driver.DatabaseEndpoint;
@@ -30,6 +31,7 @@ public class NeptuneClusterMetadata {
     private final Collection<NeptuneInstanceMetadata> instances = new ArrayList<>();
     private DatabaseEndpoint clusterEndpoint;
     private DatabaseEndpoint readerEndpoint;
+    private volatile String version;
 
     public NeptuneClusterMetadata(){
 
@@ -37,15 +39,18 @@ public class NeptuneClusterMetadata {
 
     public void setClusterEndpoint(DatabaseEndpoint clusterEndpoint) {
         this.clusterEndpoint = clusterEndpoint;
+        this.version = null;
     }
 
     public void setReaderEndpoint(DatabaseEndpoint readerEndpoint) {
         this.readerEndpoint = readerEndpoint;
+        this.version = null;
     }
 
     public void setInstances(Collection<NeptuneInstanceMetadata> instances) {
         this.instances.clear();
         this.instances.addAll(instances);
+        this.version = null;
     }
 
     public NeptuneClusterMetadata withClusterEndpoint(String clusterEndpoint) {
@@ -75,6 +80,21 @@ public class NeptuneClusterMetadata {
         return readerEndpoint;
     }
 
+    /**
+     * Hash of the metadata's content, which changes only when the topology, or the state, tags or annotations
+     * of an endpoint, change. Computed when first requested, and then cached. Setting the endpoints or instances
+     * resets the version, but modifying an instance returned by {@link #getInstances()} does not.
+     */
+    @JsonIgnore
+    public String getVersion() {
+        String currentVersion = version;
+        if (currentVersion == null) {
+            currentVersion = ContentHash.of(this);
+            version = currentVersion;
+        }
+        return currentVersion;
+    }
+
     public EndpointCollection select(EndpointsSelector selector){
         return selector.getEndpoints(this);
     }
@@ -61,6 +61,45 @@ public class NeptuneGremlinClusterBuilder {
         return this;
     }
 
+    /**
+     * Requests that take longer than this number of millis to complete will be written to the slow query log.
+     * A value of 0 (the default) disables the slow query log.
+     */
+    public NeptuneGremlinClusterBuilder slowQueryThresholdMillis(final long slowQueryThresholdMillis) {
+        innerBuilder.slowQueryThresholdMillis(slowQueryThresholdMillis);
+        return this;
+    }
+
+    /**
+     * Fraction (between 0.0 and 1.0) of slow queries to write to the slow query log. Default is 1.0.
+     */
+    public NeptuneGremlinClusterBuilder slowQuerySampleRate(final double slowQuerySampleRate) {
+        innerBuilder.slowQuerySampleRate(slowQuerySampleRate);
+        return this;
+    }
+
+    /**
+     * Maximum number of slow queries to write to the slow query log per second. A value of 0 removes the limit.
+     * Default is 10.
+     */
+    public NeptuneGremlinClusterBuilder slowQueryMaxPerSecond(final int slowQueryMaxPerSecond) {
+        innerBuilder.slowQueryMaxPerSecond(slowQueryMaxPerSecond);
+        return this;
+    }
+
+    /**
+     * Replace traversal arguments and script binding values with '?' in the slow query log. Default is true.
+     */
+    public NeptuneGremlinClusterBuilder redactSlowQueryParameters(final boolean redactSlowQueryParameters) {
+        innerBuilder.redactSlowQueryParameters(redactSlowQueryParameters);
+        return this;
+    }
+
+    public NeptuneGremlinClusterBuilder addSlowQueryHandler(SlowQueryHandler handler){
+        innerBuilder.addSlowQueryHandler(handler);
+        return this;
+    }
+
     /**
      * Number of millis to wait between each attempt to acquire a connection.
      */
@@ -96,6 +135,84 @@ public class NeptuneGremlinClusterBuilder {
         return this;
     }
 
+    /**
+     * Classifier for request errors that should trigger the handler supplied in {@link #onEagerRefresh} -
+     * for example, {@link ErrorClassifiers#readOnlyViolation()}. The handler is invoked when an endpoint returns
+     * {@link #eagerRefreshErrorThreshold} classified errors within {@link #eagerRefreshErrorWindowMillis},
+     * subject to {@link #eagerRefreshBackoffMillis}.
+     */
+    public NeptuneGremlinClusterBuilder addEagerRefreshErrorClassifier(final ErrorClassifier classifier) {
+        innerBuilder.addEagerRefreshErrorClassifier(classifier);
+        return this;
+    }
+
+    /**
+     * Number of classified errors an endpoint must return within {@link #eagerRefreshErrorWindowMillis}
+     * to trigger the handler supplied in {@link #onEagerRefresh}. Default 3.
+     */
+    public NeptuneGremlinClusterBuilder eagerRefreshErrorThreshold(final int eagerRefreshErrorThreshold) {
+        innerBuilder.eagerRefreshErrorThreshold(eagerRefreshErrorThreshold);
+        return this;
+    }
+
+    /**
+     * Window within which an endpoint must return {@link #eagerRefreshErrorThreshold} classified errors
+     * to trigger the handler supplied in {@link #onEagerRefresh}. Default 1000.
+     */
+    public NeptuneGremlinClusterBuilder eagerRefreshErrorWindowMillis(final int eagerRefreshErrorWindowMillis) {
+        innerBuilder.eagerRefreshErrorWindowMillis(eagerRefreshErrorWindowMillis);
+        return this;
+    }
+
+    /**
+     * Handler to be invoked when an endpoint rejects a write with a ReadOnlyViolationException, indicating the
+     * writer has failed over. The client pauses the endpoint, so that new requests wait for a connection rather
+     * than fail, and invokes the handler, with backoff, until it returns endpoints that no longer include the
+     * demoted endpoint. The handler should bypass any cached cluster metadata - for example, by using
+     * {@code ClusterEndpointsRefreshAgent.refreshEndpoints(EndpointsType.Primary)}.
+     */
+    public NeptuneGremlinClusterBuilder onWriterFailover(final OnEagerRefresh eventHandler) {
+        innerBuilder.onWriterFailover(eventHandler);
+        return this;
+    }
+
+    /**
+     * Number of millis to wait before the second attempt to re-resolve the primary after a writer failover.
+     * The wait doubles after each attempt, up to {@link #writerFailoverMaxBackoffMillis}. Default 100.
+     */
+    public NeptuneGremlinClusterBuilder writerFailoverInitialBackoffMillis(final int writerFailoverInitialBackoffMillis) {
+        innerBuilder.writerFailoverInitialBackoffMillis(writerFailoverInitialBackoffMillis);
+        return this;
+    }
+
+    /**
+     * Maximum number of millis to wait between attempts to re-resolve the primary after a writer failover.
+     * Default 2000.
+     */
+    public NeptuneGremlinClusterBuilder writerFailoverMaxBackoffMillis(final int writerFailoverMaxBackoffMillis) {
+        innerBuilder.writerFailoverMaxBackoffMillis(writerFailoverMaxBackoffMillis);
+        return this;
+    }
+
+    /**
+     * Number of millis after which the client stops trying to re-resolve the primary after a writer failover,
+     * and resumes sending requests to the demoted endpoint. Default 30000.
+     */
+    public NeptuneGremlinClusterBuilder writerFailoverTimeoutMillis(final int writerFailoverTimeoutMillis) {
+        innerBuilder.writerFailoverTimeoutMillis(writerFailoverTimeoutMillis);
+        return this;
+    }
+
+    /**
+     * Threads on which clients run their background tasks. {@link ExecutionMode#VIRTUAL_THREADS} runs eager
+     * refreshes, metrics collection and writer failover on virtual threads, or, before Java 21, on a shared pool.
+     * Default {@link ExecutionMode#PLATFORM_THREADS}.
+     */
+    public NeptuneGremlinClusterBuilder executionMode(ExecutionMode executionMode) {
+        innerBuilder.executionMode(executionMode);
+        return this;
+    }
+
     /**
      * Strategy for filtering and enriching available endpoints before creating clients.
      */
@@ -0,0 +1,313 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.apache.tinkerpop.gremlin.driver.GremlinClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decorates a fetch strategy so that the last cluster metadata it fetched is persisted to a local file. When the
+ * process next starts, the first call to {@link #getClusterMetadata()} returns the metadata in the file straight
+ * away, instead of waiting for the Management API or Lambda proxy, and starts a single background refresh. If that
+ * refresh fails, the snapshot is served until the next successful refresh, which is left to the refresh agent's
+ * polling schedule. The file is replaced atomically, so a reader never sees a partially written snapshot.
+ */
+public class PersistentClusterMetadataSupplier implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier, InstrumentedClusterMetadataSupplier, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentClusterMetadataSupplier.class);
+
+    public static final long DEFAULT_MAX_SNAPSHOT_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final ClusterEndpointsFetchStrategy delegate;
+    private final ClusterEndpointsFetchStrategy innerStrategy;
+    private final Path snapshotFile;
+    private final long maxSnapshotAgeMillis;
+    private final AtomicReference<NeptuneClusterMetadata> currentClusterMetadata = new AtomicReference<>();
+    private final Executor backgroundRefreshExecutor;
+    private final AtomicBoolean backgroundRefreshStarted = new AtomicBoolean(false);
+    private final Object snapshotLock = new Object();
+
+    private volatile boolean snapshotLoaded = false;
+    private volatile NeptuneClusterMetadata snapshot;
+    private volatile boolean refreshed = false;
+    private String persistedVersion;
+
+    public PersistentClusterMetadataSupplier(ClusterEndpointsFetchStrategy delegate, Path snapshotFile) {
+        this(delegate, snapshotFile, DEFAULT_MAX_SNAPSHOT_AGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxSnapshotAge a snapshot whose file was last written longer ago than this is ignored
+     */
+    public PersistentClusterMetadataSupplier(ClusterEndpointsFetchStrategy delegate,
+                                             Path snapshotFile,
+                                             long maxSnapshotAge,
+                                             TimeUnit timeUnit) {
+        this(delegate, snapshotFile, maxSnapshotAge, timeUnit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maxSnapshotAge            a snapshot whose file was last written longer ago than this is ignored
+     * @param backgroundRefreshExecutor executor on which the refresh that follows serving the snapshot runs
+     */
+    public PersistentClusterMetadataSupplier(ClusterEndpointsFetchStrategy delegate,
+                                             Path snapshotFile,
+                                             long maxSnapshotAge,
+                                             TimeUnit timeUnit,
+                                             Executor backgroundRefreshExecutor) {
+        this.delegate = delegate;
+        this.backgroundRefreshExecutor = backgroundRefreshExecutor;
+        this.innerStrategy = new CommonClusterEndpointsFetchStrategy(this);
+        this.snapshotFile = snapshotFile.toAbsolutePath();
+        this.maxSnapshotAgeMillis = timeUnit.toMillis(maxSnapshotAge);
+    }
+
+    /**
+     * Returns the most recently fetched metadata. Before the first fetch completes, returns the persisted
+     * snapshot, if there is one, and the first time it does so, starts a background refresh; otherwise fetches
+     * the metadata.
+     */
+    @Override
+    public NeptuneClusterMetadata getClusterMetadata() {
+        NeptuneClusterMetadata clusterMetadata = currentClusterMetadata.get();
+        if (clusterMetadata == null) {
+            NeptuneClusterMetadata persisted = loadSnapshot();
+            if (persisted == null) {
+                return refreshClusterMetadata();
+            }
+            currentClusterMetadata.compareAndSet(null, persisted);
+            clusterMetadata = currentClusterMetadata.get();
+        }
+        if (!refreshed) {
+            refreshInBackground();
+        }
+        return clusterMetadata;
+    }
+
+    @Override
+    public NeptuneClusterMetadata getCachedClusterMetadata() {
+        return currentClusterMetadata.get();
+    }
+
+    /**
+     * Fetches the metadata using the underlying strategy, and persists it if it has changed. If the fetch fails
+     * before any fetch has succeeded, returns the persisted snapshot, if there is one.
+     */
+    @Override
+    public NeptuneClusterMetadata refreshClusterMetadata() {
+        NeptuneClusterMetadata clusterMetadata;
+        try {
+            clusterMetadata = delegate.clusterMetadataSupplier().refreshClusterMetadata();
+        } catch (RuntimeException e) {
+            NeptuneClusterMetadata persisted = refreshed ? null : loadSnapshot();
+            if (persisted != null) {
+                logger.warn("Error while refreshing cluster metadata, returning snapshot from {}", snapshotFile, e);
+                return persisted;
+            }
+            throw e;
+        }
+        refreshed = true;
+        currentClusterMetadata.set(clusterMetadata);
+        persist(clusterMetadata);
+        return clusterMetadata;
+    }
+
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> getClusterMetadataAsync() {
+        if (currentClusterMetadata.get() == null && loadSnapshot() == null) {
+            return refreshClusterMetadataAsync();
+        }
+        return CompletableFuture.completedFuture(getClusterMetadata());
+    }
+
+    /**
+     * Asynchronous variant of {@link #refreshClusterMetadata()}, which uses the underlying strategy's
+     * asynchronous fetch.
+     */
+    @Override
+    public CompletableFuture<NeptuneClusterMetadata> refreshClusterMetadataAsync() {
+        CompletableFuture<NeptuneClusterMetadata> refresh;
+        try {
+            refresh = delegate.clusterMetadataSupplier().refreshClusterMetadataAsync();
+        } catch (RuntimeException e) {
+            refresh = CompletableFuture.failedFuture(e);
+        }
+        return refresh.handle((clusterMetadata, e) -> {
+            if (e != null) {
+                NeptuneClusterMetadata persisted = refreshed ? null : loadSnapshot();
+                if (persisted != null) {
+                    logger.warn("Error while refreshing cluster metadata, returning snapshot from {}", snapshotFile, e);
+                    return persisted;
+                }
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            refreshed = true;
+            currentClusterMetadata.set(clusterMetadata);
+            persist(clusterMetadata);
+            return clusterMetadata;
+        });
+    }
+
+    @Override
+    public ClusterMetadataSupplier clusterMetadataSupplier() {
+        return this;
+    }
+
+    @Override
+    public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpoints(selectors, refresh);
+    }
+
+    @Override
+    public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Map<? extends EndpointsSelector, Collection<GremlinClient>> clientSelectors, boolean refresh) {
+        return innerStrategy.getEndpoints(clientSelectors, refresh);
+    }
+
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+        return innerStrategy.getEndpointsAsync(selectors, refresh);
+    }
+
+    @Override
+    public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getEndpointsAsync(Map<? extends EndpointsSelector, Collection<GremlinClient>> clientSelectors, boolean refresh) {
+        return innerStrategy.getEndpointsAsync(clientSelectors, refresh);
+    }
+
+    @Override
+    public String clusterKey() {
+        return delegate.clusterKey();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+
+    @Override
+    public void setRefreshAgentMetrics(RefreshAgentMetrics metrics) {
+        if (delegate instanceof InstrumentedClusterMetadataSupplier) {
+            ((InstrumentedClusterMetadataSupplier) delegate).setRefreshAgentMetrics(metrics);
+        }
+    }
+
+    public Path snapshotFile() {
+        return snapshotFile;
+    }
+
+    // Only ever refreshes once: retrying a failed refresh is the job of the refresh agent's polling schedule,
+    // which backs off, rather than of every caller that reads the snapshot
+    private void refreshInBackground() {
+        if (backgroundRefreshStarted.compareAndSet(false, true)) {
+            try {
+                backgroundRefreshExecutor.execute(() -> {
+                    try {
+                        refreshClusterMetadata();
+                    } catch (Exception e) {
+                        logger.warn("Error while refreshing cluster metadata in the background", e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.debug("Unable to refresh cluster metadata in the background", e);
+                backgroundRefreshStarted.set(false);
+            }
+        }
+    }
+
+    private NeptuneClusterMetadata loadSnapshot() {
+        if (snapshotLoaded) {
+            return snapshot;
+        }
+        synchronized (snapshotLock) {
+            if (!snapshotLoaded) {
+                snapshot = readSnapshot();
+                snapshotLoaded = true;
+            }
+            return snapshot;
+        }
+    }
+
+    private NeptuneClusterMetadata readSnapshot() {
+        try {
+            if (!Files.exists(snapshotFile)) {
+                return null;
+            }
+            long ageMillis = System.currentTimeMillis() - Files.getLastModifiedTime(snapshotFile).toMillis();
+            if (ageMillis > maxSnapshotAgeMillis) {
+                logger.info("Ignoring cluster metadata snapshot {} because it is {} millis old", snapshotFile, ageMillis);
+                return null;
+            }
+            NeptuneClusterMetadata clusterMetadata = NeptuneClusterMetadata.fromByteArray(Files.readAllBytes(snapshotFile));
+            persistedVersion = clusterMetadata.getVersion();
+            logger.info("Loaded cluster metadata snapshot from {} [version: {}]", snapshotFile, persistedVersion);
+            return clusterMetadata;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to read cluster metadata snapshot from {}", snapshotFile, e);
+            return null;
+        }
+    }
+
+    private void persist(NeptuneClusterMetadata clusterMetadata) {
+        synchronized (snapshotLock) {
+            try {
+                String version = clusterMetadata.getVersion();
+                if (version.equals(persistedVersion) && Files.exists(snapshotFile)) {
+                    // Unchanged, but the snapshot has been confirmed as current
+                    Files.setLastModifiedTime(snapshotFile, FileTime.fromMillis(System.currentTimeMillis()));
+                    return;
+                }
+                write(clusterMetadata.toJsonString().getBytes(StandardCharsets.UTF_8));
+                persistedVersion = version;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Unable to write cluster metadata snapshot to {}", snapshotFile, e);
+            }
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        Path directory = snapshotFile.getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, bytes);
+            try {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines the delay between a {@link ClusterEndpointsRefreshAgent}'s polls.
+ * <p>
+ * A fixed schedule polls at a constant delay. An adaptive schedule adds random jitter to each delay, so that
+ * agents in a large fleet do not synchronise their polls; backs off exponentially after a poll is throttled or
+ * fails; and polls faster while instances in the cluster are being created, modified or rebooted.
+ */
+public class PollingSchedule {
+
+    /**
+     * Instance statuses that indicate the cluster topology is changing.
+     */
+    public static final Set<String> TRANSITIONAL_STATUSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "creating",
+            "modifying",
+            "rebooting",
+            "deleting",
+            "failing-over",
+            "renaming",
+            "upgrading")));
+
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    public static PollingSchedule fixedDelay(long delay, TimeUnit timeUnit) {
+        long delayMillis = timeUnit.toMillis(delay);
+        return new PollingSchedule(delayMillis, delayMillis, delayMillis, 0.0);
+    }
+
+    /**
+     * An adaptive schedule that polls every {@code delay}, +/- 20%. While the topology is changing, it polls
+     * every 5 seconds (or every {@code delay}, if shorter). After a throttled or failed poll, it doubles the
+     * delay, up to 8 x {@code delay}.
+     */
+    public static PollingSchedule adaptive(long delay, TimeUnit timeUnit) {
+        long delayMillis = timeUnit.toMillis(delay);
+        return new PollingSchedule(delayMillis, Math.min(delayMillis, 5000), delayMillis * 8, 0.2);
+    }
+
+    private final long delayMillis;
+    private final long transitionalDelayMillis;
+    private final long maxBackoffDelayMillis;
+    private final double jitter;
+
+    private PollingSchedule(long delayMillis, long transitionalDelayMillis, long maxBackoffDelayMillis, double jitter) {
+        if (delayMillis <= 0) {
+            throw new IllegalArgumentException("Polling delay must be greater than zero");
+        }
+        if (jitter < 0.0 || jitter >= 1.0) {
+            throw new IllegalArgumentException("Jitter must be at least 0.0 and less than 1.0");
+        }
+        this.delayMillis = delayMillis;
+        this.transitionalDelayMillis = Math.max(1, transitionalDelayMillis);
+        this.maxBackoffDelayMillis = Math.max(delayMillis, maxBackoffDelayMillis);
+        this.jitter = jitter;
+    }
+
+    /**
+     * Delay between polls while the topology is changing.
+     */
+    public PollingSchedule withTransitionalDelay(long delay, TimeUnit timeUnit) {
+        return new PollingSchedule(delayMillis, timeUnit.toMillis(delay), maxBackoffDelayMillis, jitter);
+    }
+
+    /**
+     * Maximum delay between polls when backing off after throttled or failed polls.
+     */
+    public PollingSchedule withMaxBackoffDelay(long delay, TimeUnit timeUnit) {
+        return new PollingSchedule(delayMillis, transitionalDelayMillis, timeUnit.toMillis(delay), jitter);
+    }
+
+    /**
+     * Fraction by which each delay is randomly lengthened or shortened. 0.2 makes each delay between 80% and
+     * 120% of its nominal value.
+     */
+    public PollingSchedule withJitter(double jitter) {
+        return new PollingSchedule(delayMillis, transitionalDelayMillis, maxBackoffDelayMillis, jitter);
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public long getTransitionalDelayMillis() {
+        return transitionalDelayMillis;
+    }
+
+    public long getMaxBackoffDelayMillis() {
+        return maxBackoffDelayMillis;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Computes the delay before the next poll.
+     *
+     * @param consecutiveBackoffs number of consecutive polls that were throttled or failed
+     * @param topologyChanging    whether any instance in the cluster has a transitional status
+     * @param random              a random number between 0.0 (inclusive) and 1.0 (exclusive)
+     */
+    long nextDelayMillis(int consecutiveBackoffs, boolean topologyChanging, double random) {
+        long nominalDelayMillis;
+        if (consecutiveBackoffs > 0) {
+            int shift = Math.min(consecutiveBackoffs, MAX_BACKOFF_SHIFT);
+            nominalDelayMillis = Math.min(maxBackoffDelayMillis, delayMillis << shift);
+        } else if (topologyChanging) {
+            nominalDelayMillis = transitionalDelayMillis;
+        } else {
+            nominalDelayMillis = delayMillis;
+        }
+        return Math.max(1, Math.round(nominalDelayMillis * (1.0 - jitter + (2.0 * jitter * random))));
+    }
+
+    static boolean isTopologyChanging(NeptuneClusterMetadata clusterMetadata) {
+        if (clusterMetadata == null || clusterMetadata.getInstances() == null) {
+            return false;
+        }
+        for (NeptuneInstanceMetadata instance : clusterMetadata.getInstances()) {
+            String status = instance.getStatus();
+            if (status != null && TRANSITIONAL_STATUSES.contains(status.toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PollingSchedule [delayMillis: %s, transitionalDelayMillis: %s, maxBackoffDelayMillis: %s, jitter: %s]",
+                delayMillis,
+                transitionalDelayMillis,
+                maxBackoffDelayMillis,
+                jitter);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative timings and counters for the polls made by a {@link ClusterEndpointsRefreshAgent}. Unlike connection
+ * and request metrics, these are never reset, and can be read from any thread.
+ * <p>
+ * Each poll is split into a fetch phase, in which the agent gets cluster metadata from the Neptune Management API
+ * or Lambda proxy, and a fan-out phase, in which it refreshes the endpoints of each of its clients.
+ */
+public class RefreshAgentMetrics {
+
+    private final AtomicLong polls = new AtomicLong(0);
+    private final AtomicLong failedPolls = new AtomicLong(0);
+    private final AtomicLong totalFetchMillis = new AtomicLong(0);
+    private final AtomicLong maxFetchMillis = new AtomicLong(0);
+    private final AtomicLong lastFetchMillis = new AtomicLong(0);
+    private final AtomicLong totalFanOutMillis = new AtomicLong(0);
+    private final AtomicLong maxFanOutMillis = new AtomicLong(0);
+    private final AtomicLong lastFanOutMillis = new AtomicLong(0);
+    private final AtomicLong lastPollTimestamp = new AtomicLong(0);
+    private final AtomicLong throttled = new AtomicLong(0);
+    private final AtomicLong cachedMetadataFallbacks = new AtomicLong(0);
+    private final AtomicLong topologyChanges = new AtomicLong(0);
+    private final AtomicLong clusterEndpointChanges = new AtomicLong(0);
+    private final AtomicLong clientRefreshTimeouts = new AtomicLong(0);
+    private final AtomicLong skippedClientRefreshes = new AtomicLong(0);
+    private final AtomicLong lastTopologyChangeMinLatencyMillis = new AtomicLong(0);
+    private final AtomicLong lastTopologyChangeMaxLatencyMillis = new AtomicLong(0);
+    private final AtomicLong maxTopologyChangeMaxLatencyMillis = new AtomicLong(0);
+    private final ConcurrentMap<String, SelectorRefreshMetrics> selectors = new ConcurrentHashMap<>();
+
+    void fetchCompleted(long durationMillis, boolean succeeded) {
+        polls.incrementAndGet();
+        if (!succeeded) {
+            failedPolls.incrementAndGet();
+        }
+        totalFetchMillis.addAndGet(durationMillis);
+        maxFetchMillis.accumulateAndGet(durationMillis, Math::max);
+        lastFetchMillis.set(durationMillis);
+        lastPollTimestamp.set(System.currentTimeMillis());
+    }
+
+    void fanOutCompleted(long durationMillis) {
+        totalFanOutMillis.addAndGet(durationMillis);
+        maxFanOutMillis.accumulateAndGet(durationMillis, Math::max);
+        lastFanOutMillis.set(durationMillis);
+        lastPollTimestamp.set(System.currentTimeMillis());
+    }
+
+    void throttled() {
+        throttled.incrementAndGet();
+    }
+
+    void cachedMetadataFallback() {
+        cachedMetadataFallbacks.incrementAndGet();
+    }
+
+    void clusterEndpointChanged() {
+        clusterEndpointChanges.incrementAndGet();
+    }
+
+    void clientRefreshTimedOut() {
+        clientRefreshTimeouts.incrementAndGet();
+    }
+
+    void clientRefreshSkipped() {
+        skippedClientRefreshes.incrementAndGet();
+    }
+
+    void endpointsChanged(String selector, int added, int removed, int endpointCount) {
+        selectors.computeIfAbsent(selector, SelectorRefreshMetrics::new).update(added, removed, endpointCount);
+    }
+
+    /**
+     * Records the time taken to refresh all clients after a change in topology was detected. The change happened
+     * at some point after the previous fetch started, and before the fetch that detected it completed, so the
+     * latency is bounded by the time since the start of each of these fetches.
+     */
+    void topologyChangeRefreshed(long minLatencyMillis, long maxLatencyMillis) {
+        topologyChanges.incrementAndGet();
+        lastTopologyChangeMinLatencyMillis.set(minLatencyMillis);
+        lastTopologyChangeMaxLatencyMillis.set(maxLatencyMillis);
+        maxTopologyChangeMaxLatencyMillis.accumulateAndGet(maxLatencyMillis, Math::max);
+    }
+
+    public long getPollCount() {
+        return polls.get();
+    }
+
+    public long getFailedPollCount() {
+        return failedPolls.get();
+    }
+
+    public long getTotalFetchMillis() {
+        return totalFetchMillis.get();
+    }
+
+    public long getMaxFetchMillis() {
+        return maxFetchMillis.get();
+    }
+
+    public long getLastFetchMillis() {
+        return lastFetchMillis.get();
+    }
+
+    public double getAverageFetchMillis() {
+        long count = polls.get();
+        return count == 0 ? 0.0 : (double) totalFetchMillis.get() / (double) count;
+    }
+
+    public long getTotalFanOutMillis() {
+        return totalFanOutMillis.get();
+    }
+
+    public long getMaxFanOutMillis() {
+        return maxFanOutMillis.get();
+    }
+
+    public long getLastFanOutMillis() {
+        return lastFanOutMillis.get();
+    }
+
+    /**
+     * Total time spent polling (fetch and fan-out).
+     */
+    public long getTotalPollMillis() {
+        return totalFetchMillis.get() + totalFanOutMillis.get();
+    }
+
+    /**
+     * Time taken by the most recent poll (fetch and fan-out).
+     */
+    public long getLastPollMillis() {
+        return lastFetchMillis.get() + lastFanOutMillis.get();
+    }
+
+    /**
+     * Time at which the last poll completed, in millis since the epoch, or 0 if the agent has not yet polled.
+     */
+    public long getLastPollTimestamp() {
+        return lastPollTimestamp.get();
+    }
+
+    /**
+     * Number of times calls to the Neptune Management API were throttled.
+     */
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * Number of times previously fetched cluster metadata was used because fresh metadata could not be fetched.
+     */
+    public long getCachedMetadataFallbackCount() {
+        return cachedMetadataFallbacks.get();
+    }
+
+    /**
+     * Number of times a change in the target of the cluster endpoint triggered a refresh.
+     */
+    public long getClusterEndpointChangeCount() {
+        return clusterEndpointChanges.get();
+    }
+
+    /**
+     * Number of times a poll stopped waiting for a client to refresh its endpoints because the refresh timed out.
+     */
+    public long getClientRefreshTimeoutCount() {
+        return clientRefreshTimeouts.get();
+    }
+
+    /**
+     * Number of client refreshes skipped because the client had already applied the same endpoints.
+     */
+    public long getSkippedClientRefreshCount() {
+        return skippedClientRefreshes.get();
+    }
+
+    /**
+     * Number of polls in which the endpoints for at least one selector changed.
+     */
+    public long getTopologyChangeCount() {
+        return topologyChanges.get();
+    }
+
+    /**
+     * Lower bound of the time between the most recent topology change and all clients being refreshed: the time
+     * from the start of the fetch that detected the change to the end of the fan-out.
+     */
+    public long getLastTopologyChangeMinLatencyMillis() {
+        return lastTopologyChangeMinLatencyMillis.get();
+    }
+
+    /**
+     * Upper bound of the time between the most recent topology change and all clients being refreshed: the time
+     * from the start of the previous fetch (which did not see the change) to the end of the fan-out.
+     */
+    public long getLastTopologyChangeMaxLatencyMillis() {
+        return lastTopologyChangeMaxLatencyMillis.get();
+    }
+
+    public long getMaxTopologyChangeMaxLatencyMillis() {
+        return maxTopologyChangeMaxLatencyMillis.get();
+    }
+
+    /**
+     * Endpoints added and removed, per selector.
+     */
+    public Collection<SelectorRefreshMetrics> getSelectorMetrics() {
+        return selectors.values();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RefreshAgentMetrics [polls: %s, failed: %s, throttled: %s, cachedFallbacks: %s, avgFetchMillis: %.2f, maxFetchMillis: %s, lastFanOutMillis: %s, topologyChanges: %s, lastTopologyChangeMillis: %s-%s]",
+                getPollCount(),
+                getFailedPollCount(),
+                getThrottledCount(),
+                getCachedMetadataFallbackCount(),
+                getAverageFetchMillis(),
+                getMaxFetchMillis(),
+                getLastFanOutMillis(),
+                getTopologyChangeCount(),
+                getLastTopologyChangeMinLatencyMillis(),
+                getLastTopologyChangeMaxLatencyMillis());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Endpoints added to and removed from the results of a single {@link EndpointsSelector} by a refresh agent.
+ */
+public class SelectorRefreshMetrics {
+
+    private final String selector;
+    private final AtomicLong added = new AtomicLong(0);
+    private final AtomicLong removed = new AtomicLong(0);
+    private final AtomicLong endpointCount = new AtomicLong(0);
+
+    SelectorRefreshMetrics(String selector) {
+        this.selector = selector;
+    }
+
+    void update(int added, int removed, int endpointCount) {
+        this.added.addAndGet(added);
+        this.removed.addAndGet(removed);
+        this.endpointCount.set(endpointCount);
+    }
+
+    public String getSelector() {
+        return selector;
+    }
+
+    public long getAddedCount() {
+        return added.get();
+    }
+
+    public long getRemovedCount() {
+        return removed.get();
+    }
+
+    public long getEndpointCount() {
+        return endpointCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [added: %s, removed: %s, endpoints: %s]",
+                getSelector(),
+                getAddedCount(),
+                getRemovedCount(),
+                getEndpointCount());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Layout of the memory-mapped file that a {@link SharedClusterMetadataWriter} uses to share cluster metadata
+ * with the processes on a host. The file starts with a 16-byte header, followed by the metadata's JSON:
+ * <ul>
+ *     <li>bytes 0-7: a sequence number, which is odd while the writer is updating the file, and which increases
+ *     by 2 with each update</li>
+ *     <li>bytes 8-11: the length of the JSON</li>
+ * </ul>
+ * Readers read the sequence number before and after copying the JSON, and retry if it was odd or has changed,
+ * so they never parse a partially written document. The header is in the host's native byte order.
+ */
+final class SharedClusterMetadataFile {
+
+    static final int LENGTH_OFFSET = 8;
+    static final int HEADER_BYTES = 16;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    static long getSequenceVolatile(MappedByteBuffer buffer) {
+        return (long) LONGS.getVolatile(buffer, 0);
+    }
+
+    static long getSequenceAcquire(MappedByteBuffer buffer) {
+        return (long) LONGS.getAcquire(buffer, 0);
+    }
+
+    static void setSequenceVolatile(MappedByteBuffer buffer, long sequence) {
+        LONGS.setVolatile(buffer, 0, sequence);
+    }
+
+    static void setSequenceRelease(MappedByteBuffer buffer, long sequence) {
+        LONGS.setRelease(buffer, 0, sequence);
+    }
+
+    static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, 0, size);
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    private SharedClusterMetadataFile() {
+    }
+}
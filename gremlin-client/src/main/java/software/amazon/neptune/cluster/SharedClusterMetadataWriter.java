@@ -0,0 +1,138 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Publishes cluster metadata to a memory-mapped file, from which other processes on the same host can read it
+ * using {@link ClusterEndpointsRefreshAgent#sharedFile(Path)}. Pass the writer to
+ * {@link ClusterEndpointsRefreshAgent#startPollingNeptuneAPI(OnNewClusterMetadata, long, java.util.concurrent.TimeUnit)}
+ * so that a single agent on the host polls for the metadata.
+ * <p>
+ * Only one writer can publish to a file at a time. The writer holds an exclusive lock on the file until it is
+ * closed.
+ */
+public class SharedClusterMetadataWriter implements OnNewClusterMetadata, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedClusterMetadataWriter.class);
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private MappedByteBuffer buffer;
+    private long sequence;
+    private String writtenVersion;
+
+    public SharedClusterMetadataWriter(Path file) throws IOException {
+        this(file, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    SharedClusterMetadataWriter(Path file, int initialCapacity) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.lock = tryLock(channel);
+
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException(String.format("Another writer is already publishing cluster metadata to %s", file));
+        }
+
+        this.buffer = SharedClusterMetadataFile.map(channel, FileChannel.MapMode.READ_WRITE,
+                Math.max(channel.size(), SharedClusterMetadataFile.HEADER_BYTES + initialCapacity));
+
+        // Carry on from the sequence left by a previous writer, so that readers see the next update as a change,
+        // and skip past an odd sequence left by a writer that stopped part way through an update
+        long current = SharedClusterMetadataFile.getSequenceVolatile(buffer);
+        this.sequence = current + (current & 1);
+    }
+
+    @Override
+    public synchronized void apply(NeptuneClusterMetadata clusterMetadata) {
+
+        String version = clusterMetadata.getVersion();
+        if (version.equals(writtenVersion)) {
+            return;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = clusterMetadata.toJsonString().getBytes(UTF_8);
+            ensureCapacity(SharedClusterMetadataFile.HEADER_BYTES + bytes.length);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize cluster metadata", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Unable to grow %s", file), e);
+        }
+
+        SharedClusterMetadataFile.setSequenceVolatile(buffer, sequence + 1);
+        // Keeps the writes to the document from being reordered ahead of the odd sequence number
+        VarHandle.storeStoreFence();
+        buffer.putInt(SharedClusterMetadataFile.LENGTH_OFFSET, bytes.length);
+        buffer.put(SharedClusterMetadataFile.HEADER_BYTES, bytes);
+        sequence += 2;
+        SharedClusterMetadataFile.setSequenceRelease(buffer, sequence);
+
+        writtenVersion = version;
+
+        logger.debug("Published cluster metadata to {} [version: {}, sequence: {}]", file, version, sequence);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // A lock held by another process returns null, a lock held elsewhere in this process throws
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    // Readers remap the file when they see a document that extends beyond their mapping
+    private void ensureCapacity(int required) throws IOException {
+        if (required > buffer.capacity()) {
+            buffer = SharedClusterMetadataFile.map(channel, FileChannel.MapMode.READ_WRITE,
+                    Math.max(2L * buffer.capacity(), required));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+
+import java.util.Set;
+
+/**
+ * Describes a change in the endpoints for a selector. A change can add or remove endpoints, or change the
+ * state, tags or annotations of existing endpoints, in which case the added and removed addresses are empty.
+ */
+public class TopologyChangeEvent {
+
+    private final EndpointsSelector selector;
+    private final EndpointCollection endpoints;
+    private final Set<String> addedAddresses;
+    private final Set<String> removedAddresses;
+    private final String previousVersion;
+    private final String version;
+
+    TopologyChangeEvent(EndpointsSelector selector,
+                        EndpointCollection endpoints,
+                        Set<String> addedAddresses,
+                        Set<String> removedAddresses,
+                        String previousVersion,
+                        String version) {
+        this.selector = selector;
+        this.endpoints = endpoints;
+        this.addedAddresses = addedAddresses;
+        this.removedAddresses = removedAddresses;
+        this.previousVersion = previousVersion;
+        this.version = version;
+    }
+
+    public EndpointsSelector getSelector() {
+        return selector;
+    }
+
+    /**
+     * The selector's new endpoints.
+     */
+    public EndpointCollection getEndpoints() {
+        return endpoints;
+    }
+
+    public Set<String> getAddedAddresses() {
+        return addedAddresses;
+    }
+
+    public Set<String> getRemovedAddresses() {
+        return removedAddresses;
+    }
+
+    /**
+     * Hash of the selector's endpoints before the change.
+     */
+    public String getPreviousVersion() {
+        return previousVersion;
+    }
+
+    /**
+     * Hash of the selector's endpoints after the change.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "TopologyChangeEvent{" +
+                "selector=" + selector +
+                ", added=" + addedAddresses +
+                ", removed=" + removedAddresses +
+                ", previousVersion='" + previousVersion + '\'' +
+                ", version='" + version + '\'' +
+                '}';
+    }
+}
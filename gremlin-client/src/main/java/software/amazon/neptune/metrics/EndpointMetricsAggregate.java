@@ -0,0 +1,128 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.metrics;
+
+import org.apache.tinkerpop.gremlin.driver.RequestPhaseMetrics;
+import org.apache.tinkerpop.gremlin.driver.RequestTimings;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cumulative connection and request metrics for a single endpoint, updated as each connection attempt and request
+ * completes. Not thread-safe: the exporter guards each aggregate.
+ */
+class EndpointMetricsAggregate {
+
+    static final String[] PHASES = {"total", "acquisition", "queueing", "response"};
+    static final String[] ACQUISITION_OUTCOMES = {"succeeded", "unavailable", "closing", "dead", "npe", "nha"};
+
+    private static final long[] BUCKET_UPPER_BOUNDS_NANOS = Arrays.stream(RequestPhaseMetrics.getBucketUpperBoundsMillis())
+            .mapToLong(millis -> (long) (millis * 1_000_000))
+            .toArray();
+
+    private final String address;
+    private long succeeded;
+    private long failed;
+    private long acquisitionRetries;
+    private final Map<String, Long> errors = new TreeMap<>();
+    private final Map<String, Long> acquisitionOutcomes = new LinkedHashMap<>();
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+    EndpointMetricsAggregate(String address) {
+        this.address = address;
+        for (String phase : PHASES) {
+            histograms.put(phase, new Histogram());
+        }
+        for (String outcome : ACQUISITION_OUTCOMES) {
+            acquisitionOutcomes.put(outcome, 0L);
+        }
+    }
+
+    void addRequest(RequestTimings timings, Throwable e) {
+        if (e == null) {
+            succeeded++;
+        } else {
+            failed++;
+            errors.merge(e.getClass().getSimpleName(), 1L, Long::sum);
+        }
+        acquisitionRetries += timings.acquisitionRetries();
+        histograms.get("total").add(timings.totalNanos());
+        histograms.get("acquisition").add(timings.acquisitionNanos());
+        histograms.get("queueing").add(timings.queueingNanos());
+        if (timings.hasResponse()) {
+            histograms.get("response").add(timings.responseNanos());
+        }
+    }
+
+    void addConnectionAttempt(String outcome) {
+        acquisitionOutcomes.merge(outcome, 1L, Long::sum);
+    }
+
+    void renderRequests(PrometheusTextBuilder text) {
+        text.family("neptune_gremlin_requests_total", "counter", "Requests completed, by endpoint and outcome.")
+                .sample("neptune_gremlin_requests_total", succeeded, "endpoint", address, "outcome", "success")
+                .sample("neptune_gremlin_requests_total", failed, "endpoint", address, "outcome", "error");
+    }
+
+    void renderErrors(PrometheusTextBuilder text) {
+        text.family("neptune_gremlin_request_errors_total", "counter", "Failed requests, by endpoint and error class.");
+        for (Map.Entry<String, Long> error : errors.entrySet()) {
+            text.sample("neptune_gremlin_request_errors_total", error.getValue(), "endpoint", address, "error", error.getKey());
+        }
+    }
+
+    void renderAcquisitions(PrometheusTextBuilder text) {
+        text.family("neptune_gremlin_connection_acquisitions_total", "counter", "Attempts to acquire a connection, by endpoint and outcome.");
+        for (Map.Entry<String, Long> outcome : acquisitionOutcomes.entrySet()) {
+            text.sample("neptune_gremlin_connection_acquisitions_total", outcome.getValue(), "endpoint", address, "outcome", outcome.getKey());
+        }
+    }
+
+    void renderAcquisitionRetries(PrometheusTextBuilder text) {
+        text.family("neptune_gremlin_connection_acquisition_retries_total", "counter", "Retries while waiting to acquire a connection, by endpoint.")
+                .sample("neptune_gremlin_connection_acquisition_retries_total", acquisitionRetries, "endpoint", address);
+    }
+
+    void renderLatencies(PrometheusTextBuilder text) {
+        String name = "neptune_gremlin_request_duration_seconds";
+        text.family(name, "histogram", "Request latency, by endpoint and phase (total, acquisition, queueing, response).");
+        double[] bounds = RequestPhaseMetrics.getBucketUpperBoundsMillis();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < histogram.bucketCounts.length; i++) {
+                cumulative += histogram.bucketCounts[i];
+                String le = i < bounds.length ? PrometheusTextBuilder.format(bounds[i] / 1000.0) : "+Inf";
+                text.sample(name + "_bucket", cumulative, "endpoint", address, "phase", entry.getKey(), "le", le);
+            }
+            text.sample(name + "_sum", histogram.totalNanos / 1_000_000_000.0, "endpoint", address, "phase", entry.getKey());
+            text.sample(name + "_count", histogram.count, "endpoint", address, "phase", entry.getKey());
+        }
+    }
+
+    private static class Histogram {
+        private final long[] bucketCounts = new long[BUCKET_UPPER_BOUNDS_NANOS.length + 1];
+        private long totalNanos;
+        private long count;
+
+        void add(long durationNanos) {
+            int index = Arrays.binarySearch(BUCKET_UPPER_BOUNDS_NANOS, durationNanos);
+            bucketCounts[index >= 0 ? index : -index - 1]++;
+            totalNanos += durationNanos;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.tinkerpop.gremlin.driver.ConnectionMetrics;
+import org.apache.tinkerpop.gremlin.driver.EndpointConnectionPoolMetrics;
+import org.apache.tinkerpop.gremlin.driver.GremlinClient;
+import org.apache.tinkerpop.gremlin.driver.MetricsHandler;
+import org.apache.tinkerpop.gremlin.driver.RequestMetrics;
+import org.apache.tinkerpop.gremlin.driver.RequestTimings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.neptune.cluster.ClusterEndpointsRefreshAgent;
+import software.amazon.neptune.cluster.RefreshAgentMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes client metrics in the Prometheus text format on an embedded HTTP server.
+ * <p>
+ * Register the exporter as a {@link MetricsHandler} to export cumulative request and connection metrics, and
+ * add clients and refresh agents to export their connection pool gauges and poll timings. Request and connection
+ * totals are updated as each request and connection attempt completes, on the client's metrics thread. The
+ * exporter renders a snapshot of these totals on its own thread at a fixed interval, and scrapes are served from
+ * the latest snapshot, so neither rendering nor scraping contends with the request path.
+ */
+public class PrometheusMetricsExporter implements MetricsHandler, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusMetricsExporter.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 5;
+
+    private final Map<String, EndpointMetricsAggregate> endpointMetrics = new TreeMap<>();
+    private final ConcurrentMap<String, GremlinClient> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ClusterEndpointsRefreshAgent> refreshAgents = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "prometheus-metrics-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService serverExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "prometheus-metrics-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HttpServer server;
+
+    private volatile byte[] snapshot = new byte[0];
+
+    public static PrometheusMetricsExporter start(int port) throws IOException {
+        return start(new InetSocketAddress(port), DEFAULT_SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static PrometheusMetricsExporter start(InetSocketAddress address,
+                                                  long snapshotInterval,
+                                                  TimeUnit timeUnit) throws IOException {
+        PrometheusMetricsExporter exporter = new PrometheusMetricsExporter(HttpServer.create(address, 0));
+        exporter.snapshotExecutor.scheduleWithFixedDelay(exporter::renderSnapshot, 0, snapshotInterval, timeUnit);
+        exporter.server.start();
+        logger.info("Prometheus metrics exporter listening on {}", exporter.server.getAddress());
+        return exporter;
+    }
+
+    private PrometheusMetricsExporter(HttpServer server) {
+        this.server = server;
+        this.server.createContext("/metrics", this::handleScrape);
+        this.server.setExecutor(serverExecutor);
+    }
+
+    /**
+     * Exports connection pool gauges for the supplied client, labelled with the supplied name.
+     */
+    public PrometheusMetricsExporter addClient(String name, GremlinClient client) {
+        clients.put(name, client);
+        return this;
+    }
+
+    /**
+     * Exports poll timings for the supplied refresh agent, labelled with the supplied name.
+     */
+    public PrometheusMetricsExporter addRefreshAgent(String name, ClusterEndpointsRefreshAgent refreshAgent) {
+        refreshAgents.put(name, refreshAgent);
+        return this;
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void onMetricsPublished(ConnectionMetrics connectionMetrics, RequestMetrics requestMetrics) {
+        // Published metrics duplicate the totals already accumulated as each request completed
+    }
+
+    @Override
+    public void onRequestCompleted(String address, RequestTimings timings, Throwable e) {
+        synchronized (endpointMetrics) {
+            endpointMetrics.computeIfAbsent(address, EndpointMetricsAggregate::new).addRequest(timings, e);
+        }
+    }
+
+    @Override
+    public void onConnectionAttempt(String address, String outcome) {
+        synchronized (endpointMetrics) {
+            endpointMetrics.computeIfAbsent(address, EndpointMetricsAggregate::new).addConnectionAttempt(outcome);
+        }
+    }
+
+    String render() {
+
+        PrometheusTextBuilder text = new PrometheusTextBuilder();
+
+        synchronized (endpointMetrics) {
+            Collection<EndpointMetricsAggregate> aggregates = endpointMetrics.values();
+            aggregates.forEach(a -> a.renderRequests(text));
+            aggregates.forEach(a -> a.renderErrors(text));
+            aggregates.forEach(a -> a.renderAcquisitions(text));
+            aggregates.forEach(a -> a.renderAcquisitionRetries(text));
+            aggregates.forEach(a -> a.renderLatencies(text));
+        }
+
+        renderPoolMetrics(text);
+        renderRefreshAgentMetrics(text);
+
+        return text.toString();
+    }
+
+    private void renderPoolMetrics(PrometheusTextBuilder text) {
+
+        List<String[]> labels = new ArrayList<>();
+        List<EndpointConnectionPoolMetrics> poolMetrics = new ArrayList<>();
+
+        for (Map.Entry<String, GremlinClient> entry : new TreeMap<>(clients).entrySet()) {
+            for (EndpointConnectionPoolMetrics metrics : entry.getValue().poolMetrics().getMetrics()) {
+                labels.add(new String[]{"client", entry.getKey(), "endpoint", metrics.getAddress()});
+                poolMetrics.add(metrics);
+            }
+        }
+
+        renderGauge(text, "neptune_gremlin_pool_open_connections",
+                "Open connections in the endpoint's connection pool.",
+                labels, poolMetrics, EndpointConnectionPoolMetrics::getOpenConnections);
+        renderGauge(text, "neptune_gremlin_pool_max_connections",
+                "Maximum size of the endpoint's connection pool.",
+                labels, poolMetrics, EndpointConnectionPoolMetrics::getMaxPoolSize);
+        renderGauge(text, "neptune_gremlin_pool_borrowed_connections",
+                "Connections currently borrowed from the endpoint's connection pool.",
+                labels, poolMetrics, EndpointConnectionPoolMetrics::getBorrowedConnections);
+        renderGauge(text, "neptune_gremlin_pool_in_flight_requests",
+                "Requests in flight on the endpoint's connections.",
+                labels, poolMetrics, EndpointConnectionPoolMetrics::getInFlightRequests);
+        renderGauge(text, "neptune_gremlin_pool_pending_acquisitions",
+                "Callers waiting to acquire a connection to the endpoint.",
+                labels, poolMetrics, EndpointConnectionPoolMetrics::getPendingAcquisitions);
+        renderGauge(text, "neptune_gremlin_pool_connections_awaiting_close",
+                "Connections waiting to be closed.",
+                labels, poolMetrics, EndpointConnectionPoolMetrics::getConnectionsAwaitingClose);
+    }
+
+    private static void renderGauge(PrometheusTextBuilder text,
+                                    String name,
+                                    String help,
+                                    List<String[]> labels,
+                                    List<EndpointConnectionPoolMetrics> poolMetrics,
+                                    ToLongFunction<EndpointConnectionPoolMetrics> value) {
+        text.family(name, "gauge", help);
+        for (int i = 0; i < poolMetrics.size(); i++) {
+            text.sample(name, value.applyAsLong(poolMetrics.get(i)), labels.get(i));
+        }
+    }
+
+    private void renderRefreshAgentMetrics(PrometheusTextBuilder text) {
+
+        Map<String, RefreshAgentMetrics> agents = new TreeMap<>();
+        refreshAgents.forEach((name, agent) -> agents.put(name, agent.metrics()));
+
+        text.family("neptune_gremlin_refresh_polls_total", "counter", "Polls made by the refresh agent, by outcome.");
+        agents.forEach((name, metrics) -> {
+            text.sample("neptune_gremlin_refresh_polls_total", metrics.getPollCount() - metrics.getFailedPollCount(), "agent", name, "outcome", "success");
+            text.sample("neptune_gremlin_refresh_polls_total", metrics.getFailedPollCount(), "agent", name, "outcome", "error");
+        });
+        text.family("neptune_gremlin_refresh_poll_duration_seconds", "summary", "Time taken by the refresh agent's polls, by phase (fetch, fan-out).");
+        agents.forEach((name, metrics) -> {
+            text.sample("neptune_gremlin_refresh_poll_duration_seconds_sum", metrics.getTotalFetchMillis() / 1000.0, "agent", name, "phase", "fetch");
+            text.sample("neptune_gremlin_refresh_poll_duration_seconds_count", metrics.getPollCount(), "agent", name, "phase", "fetch");
+            text.sample("neptune_gremlin_refresh_poll_duration_seconds_sum", metrics.getTotalFanOutMillis() / 1000.0, "agent", name, "phase", "fan_out");
+            text.sample("neptune_gremlin_refresh_poll_duration_seconds_count", metrics.getPollCount() - metrics.getFailedPollCount(), "agent", name, "phase", "fan_out");
+        });
+        text.family("neptune_gremlin_refresh_last_poll_duration_seconds", "gauge", "Time taken by the refresh agent's most recent poll, by phase (fetch, fan-out).");
+        agents.forEach((name, metrics) -> {
+            text.sample("neptune_gremlin_refresh_last_poll_duration_seconds", metrics.getLastFetchMillis() / 1000.0, "agent", name, "phase", "fetch");
+            text.sample("neptune_gremlin_refresh_last_poll_duration_seconds", metrics.getLastFanOutMillis() / 1000.0, "agent", name, "phase", "fan_out");
+        });
+        text.family("neptune_gremlin_refresh_last_poll_timestamp_seconds", "gauge", "Time at which the refresh agent's most recent poll completed.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_last_poll_timestamp_seconds", metrics.getLastPollTimestamp() / 1000.0, "agent", name));
+        text.family("neptune_gremlin_refresh_throttled_total", "counter", "Calls to the Neptune Management API that were throttled.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_throttled_total", metrics.getThrottledCount(), "agent", name));
+        text.family("neptune_gremlin_refresh_cached_metadata_fallbacks_total", "counter", "Polls that used previously fetched cluster metadata.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_cached_metadata_fallbacks_total", metrics.getCachedMetadataFallbackCount(), "agent", name));
+        text.family("neptune_gremlin_refresh_cluster_endpoint_changes_total", "counter", "Changes in the target of the cluster endpoint that triggered a refresh.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_cluster_endpoint_changes_total", metrics.getClusterEndpointChangeCount(), "agent", name));
+        text.family("neptune_gremlin_refresh_client_timeouts_total", "counter", "Client refreshes that a poll stopped waiting for because they timed out.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_client_timeouts_total", metrics.getClientRefreshTimeoutCount(), "agent", name));
+        text.family("neptune_gremlin_refresh_client_refreshes_skipped_total", "counter", "Client refreshes skipped because the client had already applied the same endpoints.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_client_refreshes_skipped_total", metrics.getSkippedClientRefreshCount(), "agent", name));
+        text.family("neptune_gremlin_refresh_endpoints_added_total", "counter", "Endpoints added to a selector's results.");
+        agents.forEach((name, metrics) -> metrics.getSelectorMetrics().forEach(selector ->
+                text.sample("neptune_gremlin_refresh_endpoints_added_total", selector.getAddedCount(), "agent", name, "selector", selector.getSelector())));
+        text.family("neptune_gremlin_refresh_endpoints_removed_total", "counter", "Endpoints removed from a selector's results.");
+        agents.forEach((name, metrics) -> metrics.getSelectorMetrics().forEach(selector ->
+                text.sample("neptune_gremlin_refresh_endpoints_removed_total", selector.getRemovedCount(), "agent", name, "selector", selector.getSelector())));
+        text.family("neptune_gremlin_refresh_topology_changes_total", "counter", "Polls in which the endpoints for at least one selector changed.");
+        agents.forEach((name, metrics) ->
+                text.sample("neptune_gremlin_refresh_topology_changes_total", metrics.getTopologyChangeCount(), "agent", name));
+        text.family("neptune_gremlin_refresh_last_topology_change_latency_seconds", "gauge", "Bounds of the time between the most recent topology change and all clients being refreshed.");
+        agents.forEach((name, metrics) -> {
+            text.sample("neptune_gremlin_refresh_last_topology_change_latency_seconds", metrics.getLastTopologyChangeMinLatencyMillis() / 1000.0, "agent", name, "bound", "min");
+            text.sample("neptune_gremlin_refresh_last_topology_change_latency_seconds", metrics.getLastTopologyChangeMaxLatencyMillis() / 1000.0, "agent", name, "bound", "max");
+        });
+    }
+
+    private void renderSnapshot() {
+        try {
+            snapshot = render().getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            logger.error("Error while rendering metrics", e);
+        }
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = snapshot;
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        snapshotExecutor.shutdownNow();
+    }
+}
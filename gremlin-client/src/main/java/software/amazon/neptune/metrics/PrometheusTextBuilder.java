@@ -0,0 +1,69 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds a document in the Prometheus text exposition format. HELP and TYPE lines are written the first
+ * time each metric family is seen.
+ */
+class PrometheusTextBuilder {
+
+    private final StringBuilder builder = new StringBuilder();
+    private final Set<String> families = new HashSet<>();
+
+    PrometheusTextBuilder family(String name, String type, String help) {
+        if (families.add(name)) {
+            builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+        return this;
+    }
+
+    PrometheusTextBuilder sample(String name, double value, String... labels) {
+        builder.append(name);
+        if (labels.length > 0) {
+            builder.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+            builder.append('}');
+        }
+        builder.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
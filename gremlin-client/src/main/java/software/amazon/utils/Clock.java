@@ -12,6 +12,25 @@ permissions and limitations under the License.
 
 package software.amazon.utils;
 
+/**
+ * Source of time. Use {@link #nanoTime()} to measure latencies and deadlines: it is monotonic and unaffected by
+ * changes to the system clock. Use {@link #currentTimeMillis()} only for timestamps.
+ */
 public interface Clock {
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
     long currentTimeMillis();
+
+    long nanoTime();
 }
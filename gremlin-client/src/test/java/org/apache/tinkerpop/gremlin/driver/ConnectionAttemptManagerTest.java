@@ -20,8 +20,10 @@ package org.apache.tinkerpop.gremlin.driver;
 import org.junit.Test;
 import software.amazon.utils.Clock;
 
+import java.util.Collections;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -33,7 +35,7 @@ public class ConnectionAttemptManagerTest {
     public void determinesIfMaxWaitTimeExceeded() throws Exception {
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(millis(5000L));
 
         try (ConnectionAttemptManager connectionAttemptManager = new ConnectionAttemptManager(
                 null,
@@ -44,10 +46,10 @@ public class ConnectionAttemptManagerTest {
                 clock)) {
 
 
-            assertFalse(connectionAttemptManager.maxWaitTimeExceeded(4500L));
-            assertFalse(connectionAttemptManager.maxWaitTimeExceeded(4000L));
+            assertFalse(connectionAttemptManager.maxWaitTimeExceeded(millis(4500L)));
+            assertFalse(connectionAttemptManager.maxWaitTimeExceeded(millis(4000L)));
 
-            assertTrue(connectionAttemptManager.maxWaitTimeExceeded(3500L));
+            assertTrue(connectionAttemptManager.maxWaitTimeExceeded(millis(3500L)));
         }
     }
 
@@ -55,7 +57,7 @@ public class ConnectionAttemptManagerTest {
     public void determinesIfEagerRefreshWaitTimeExceeded() throws Exception {
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(millis(5000L));
 
         try (ConnectionAttemptManager connectionAttemptManager = new ConnectionAttemptManager(
                 null,
@@ -65,10 +67,10 @@ public class ConnectionAttemptManagerTest {
                 -1,
                 clock)) {
 
-            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(4500L));
-            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(4000L));
+            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(millis(4500L)));
+            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(millis(4000L)));
 
-            assertTrue(connectionAttemptManager.eagerRefreshWaitTimeExceeded(3500L));
+            assertTrue(connectionAttemptManager.eagerRefreshWaitTimeExceeded(millis(3500L)));
         }
         ;
 
@@ -78,7 +80,7 @@ public class ConnectionAttemptManagerTest {
     public void alwaysReturnsFalseIfEagerRefreshWaitTimeNotSet() throws Exception {
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(millis(5000L));
 
         try (ConnectionAttemptManager connectionAttemptManager = new ConnectionAttemptManager(
                 null,
@@ -88,9 +90,9 @@ public class ConnectionAttemptManagerTest {
                 -1,
                 clock)) {
 
-            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(4500L));
-            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(4000L));
-            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(3500L));
+            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(millis(4500L)));
+            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(millis(4000L)));
+            assertFalse(connectionAttemptManager.eagerRefreshWaitTimeExceeded(millis(3500L)));
         }
     }
 
@@ -107,10 +109,10 @@ public class ConnectionAttemptManagerTest {
                 -1,
                 null,
                 executorService,
-                0,
+                ConnectionAttemptManager.NEVER_REFRESHED,
                 false)) {
 
-            connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+            assertFalse(connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext()));
 
             verify(executorService, never()).submit(any(Callable.class));
         }
@@ -129,10 +131,10 @@ public class ConnectionAttemptManagerTest {
                 -1,
                 null,
                 executorService,
-                0,
+                ConnectionAttemptManager.NEVER_REFRESHED,
                 false)) {
 
-            connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+            assertTrue(connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext()));
 
             verify(executorService, times(1)).submit(any(ConnectionAttemptManager.RefreshEventTask.class));
         }
@@ -142,7 +144,7 @@ public class ConnectionAttemptManagerTest {
     public void shouldNotSubmitRefreshEventTaskIfWithinBackoffPeriod() throws Exception {
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(millis(5000L));
 
         ExecutorService executorService = mock(ExecutorService.class);
 
@@ -154,10 +156,10 @@ public class ConnectionAttemptManagerTest {
                 1000,
                 clock,
                 executorService,
-                4500,
+                millis(4500),
                 false)) {
 
-            connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+            assertFalse(connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext()));
 
             verify(executorService, never()).submit(any(Callable.class));
         }
@@ -167,7 +169,7 @@ public class ConnectionAttemptManagerTest {
     public void shouldSubmitRefreshEventTaskIfOutsideBackoffPeriod() throws Exception {
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(millis(5000L));
 
         ExecutorService executorService = mock(ExecutorService.class);
 
@@ -179,10 +181,10 @@ public class ConnectionAttemptManagerTest {
                 1000,
                 clock,
                 executorService,
-                3000,
+                millis(3000),
                 false)) {
 
-            connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+            assertTrue(connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext()));
 
             verify(executorService, times(1)).submit(any(ConnectionAttemptManager.RefreshEventTask.class));
         }
@@ -201,13 +203,50 @@ public class ConnectionAttemptManagerTest {
                 -1,
                 null,
                 executorService,
-                0,
+                ConnectionAttemptManager.NEVER_REFRESHED,
                 true)) {
 
-            connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext());
+            assertFalse(connectionAttemptManager.triggerEagerRefresh(new EagerRefreshContext()));
 
             verify(executorService, never()).submit(any(Callable.class));
         }
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void shouldSubmitRefreshEventTaskAfterBurstOfClassifiedErrors() throws Exception {
+
+        Clock clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(millis(5000L));
+
+        ExecutorService executorService = mock(ExecutorService.class);
+
+        ErrorBurstDetector errorBurstDetector = new ErrorBurstDetector(
+                Collections.singletonList(ErrorClassifiers.readOnlyViolation()), 2, 1000);
+
+        try (ConnectionAttemptManager connectionAttemptManager = new ConnectionAttemptManager(
+                null,
+                -1,
+                -1,
+                context -> null,
+                1000,
+                clock,
+                executorService,
+                ConnectionAttemptManager.NEVER_REFRESHED,
+                false,
+                errorBurstDetector)) {
+
+            RuntimeException e = new RuntimeException("ReadOnlyViolationException");
+
+            assertFalse(connectionAttemptManager.onRequestError("address1", new RuntimeException("Some other error")));
+            assertFalse(connectionAttemptManager.onRequestError("address1", e));
+            assertTrue(connectionAttemptManager.onRequestError("address1", e));
+
+            verify(executorService, times(1)).submit(any(ConnectionAttemptManager.RefreshEventTask.class));
+        }
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
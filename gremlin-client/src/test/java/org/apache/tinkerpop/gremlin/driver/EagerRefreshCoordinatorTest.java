@@ -0,0 +1,151 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EagerRefreshCoordinatorTest {
+
+    private static final int CLIENT_COUNT = 20;
+
+    @Test
+    public void shouldCoalesceConcurrentRefreshesIntoSingleFetch() throws Exception {
+
+        EagerRefreshCoordinator coordinator = new EagerRefreshCoordinator();
+        EndpointCollection endpoints = new EndpointCollection(new DatabaseEndpoint().withAddress("new-primary"));
+
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch allWaiting = new CountDownLatch(1);
+
+        OnEagerRefresh onEagerRefresh = coordinator.coalesce("cluster-1:Primary", context -> {
+            fetches.incrementAndGet();
+            try {
+                allWaiting.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return endpoints;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_COUNT);
+
+        try {
+            List<Future<EndpointCollection>> results = new ArrayList<>();
+            for (int i = 0; i < CLIENT_COUNT; i++) {
+                results.add(executor.submit(() -> onEagerRefresh.getEndpoints(new EagerRefreshContext())));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coordinator.coalescedCount() < CLIENT_COUNT - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            allWaiting.countDown();
+
+            for (Future<EndpointCollection> result : results) {
+                assertSame(endpoints, result.get(5, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, fetches.get());
+            assertEquals(1, coordinator.fetchCount());
+            assertEquals(CLIENT_COUNT - 1, coordinator.coalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldFetchAgainOnceInFlightRefreshHasCompleted() {
+
+        EagerRefreshCoordinator coordinator = new EagerRefreshCoordinator();
+        AtomicInteger fetches = new AtomicInteger();
+
+        OnEagerRefresh onEagerRefresh = coordinator.coalesce("cluster-1:Primary", context -> {
+            fetches.incrementAndGet();
+            return new EndpointCollection();
+        });
+
+        onEagerRefresh.getEndpoints(new EagerRefreshContext());
+        onEagerRefresh.getEndpoints(new EagerRefreshContext());
+
+        assertEquals(2, fetches.get());
+        assertEquals(0, coordinator.coalescedCount());
+    }
+
+    @Test
+    public void shouldNotCoalesceRefreshesWithDifferentKeys() throws Exception {
+
+        EagerRefreshCoordinator coordinator = new EagerRefreshCoordinator();
+        CountDownLatch bothFetching = new CountDownLatch(2);
+
+        OnEagerRefresh handler = context -> {
+            bothFetching.countDown();
+            try {
+                assertTrue(bothFetching.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new EndpointCollection();
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<EndpointCollection> primary = executor.submit(() ->
+                    coordinator.coalesce("cluster-1:Primary", handler).getEndpoints(new EagerRefreshContext()));
+            Future<EndpointCollection> readers = executor.submit(() ->
+                    coordinator.coalesce("cluster-1:ReadReplicas", handler).getEndpoints(new EagerRefreshContext()));
+
+            primary.get(5, TimeUnit.SECONDS);
+            readers.get(5, TimeUnit.SECONDS);
+
+            assertEquals(2, coordinator.fetchCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldPropagateFetchErrorToCaller() {
+
+        EagerRefreshCoordinator coordinator = new EagerRefreshCoordinator();
+
+        OnEagerRefresh onEagerRefresh = coordinator.coalesce("cluster-1:Primary", context -> {
+            throw new IllegalStateException("Throttled");
+        });
+
+        try {
+            onEagerRefresh.getEndpoints(new EagerRefreshContext());
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Throttled", e.getMessage());
+        }
+
+        // Failed fetch does not remain in flight
+        assertEquals(0, coordinator.coalesce("cluster-1:Primary", context -> new EndpointCollection())
+                .getEndpoints(new EagerRefreshContext()).size());
+    }
+}
@@ -12,13 +12,19 @@ permissions and limitations under the License.
 
 package org.apache.tinkerpop.gremlin.driver;
 
+import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
 import org.junit.Test;
+import software.amazon.utils.Clock;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class EndpointClientCollectionTest {
     @Test
@@ -45,4 +51,42 @@ public class EndpointClientCollectionTest {
         assertTrue(survivingEndpointClients.contains(endpointClient1));
         assertTrue(survivingEndpointClients.contains(endpointClient3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldTimeConnectionAttemptsUsingClock() throws Exception {
+
+        Cluster cluster = Cluster.build().create();
+        Client client = mock(Client.class);
+        when(client.getCluster()).thenReturn(cluster);
+
+        EndpointClient endpointClient = new EndpointClient(new DatabaseEndpoint().withAddress("address1"), client);
+
+        Clock clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(
+                0L, // collection created
+                0L, // request metrics created
+                0L, // connection attempt started
+                TimeUnit.MILLISECONDS.toNanos(5), // connection attempt completed
+                TimeUnit.SECONDS.toNanos(10)); // collection closed
+
+        EndpointClientCollection endpointClientCollection = new EndpointClientCollection(
+                EndpointClientCollection.builder()
+                        .withEndpointClients(Collections.singletonList(endpointClient))
+                        .setCollectMetrics(true)
+                        .withClock(clock));
+
+        // The endpoint's cluster has no available hosts
+        assertNull(endpointClientCollection.chooseConnection(RequestMessage.build("eval").create(), c -> c.get(0)));
+
+        AtomicReference<ConnectionMetrics> connectionMetrics = new AtomicReference<>();
+        endpointClientCollection.close((conMetrics, reqMetrics) -> connectionMetrics.set(conMetrics));
+
+        EndpointConnectionMetrics endpointMetrics = connectionMetrics.get().getMetrics().iterator().next();
+
+        assertEquals(10_000, connectionMetrics.get().getDurationMillis());
+        assertEquals(1, endpointMetrics.getUnavailableCount());
+        assertEquals(5.0, endpointMetrics.getMaxTimeToAcquireMillis(), 0.0);
+
+        cluster.close();
+    }
+}
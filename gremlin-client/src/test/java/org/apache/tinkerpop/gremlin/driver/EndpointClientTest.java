@@ -12,14 +12,27 @@ permissions and limitations under the License.
 
 package org.apache.tinkerpop.gremlin.driver;
 
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
 import org.junit.Test;
+import org.objenesis.ObjenesisStd;
 
+import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class EndpointClientTest {
     @Test
@@ -48,6 +61,115 @@ public class EndpointClientTest {
         cluster.close();
     }
 
+    @Test
+    public void shouldReturnEmptyPoolMetricsForClientWithNoConnectionPools(){
+        Cluster cluster = Cluster.build().create();
+
+        EndpointClient endpointClient = new EndpointClient(
+                new DatabaseEndpoint().withAddress("address1"),
+                cluster.connect());
+
+        EndpointConnectionPoolMetrics poolMetrics = endpointClient.poolMetrics();
+
+        assertEquals("address1", poolMetrics.getAddress());
+        assertEquals(0, poolMetrics.getOpenConnections());
+        assertEquals(0, poolMetrics.getBorrowedConnections());
+        assertEquals(0, poolMetrics.getInFlightRequests());
+        assertEquals(0, poolMetrics.getPendingAcquisitions());
+
+        cluster.close();
+    }
+
+    @Test
+    public void shouldTrackBorrowedConnectionsUntilTheyAreReturned() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        Connection connection = connection(channel);
+        Client client = mock(Client.class);
+        when(client.chooseConnection(any())).thenReturn(connection);
+
+        EndpointClient endpointClient = new EndpointClient(new DatabaseEndpoint().withAddress("address1"), client);
+
+        connection.borrowed.incrementAndGet();
+        endpointClient.acquireConnection(RequestMessage.build("eval").create());
+        connection.getPending().put(UUID.randomUUID(), new ResultQueue(new LinkedBlockingQueue<>(), new CompletableFuture<>()));
+
+        EndpointConnectionPoolMetrics poolMetrics = endpointClient.poolMetrics();
+
+        assertEquals(1, poolMetrics.getBorrowedConnections());
+        assertEquals(1, poolMetrics.getInFlightRequests());
+        assertEquals(1, poolMetrics.getMaxInFlightPerConnection());
+
+        // Returned to the pool
+        connection.getPending().clear();
+        connection.borrowed.decrementAndGet();
+
+        poolMetrics = endpointClient.poolMetrics();
+
+        assertEquals(0, poolMetrics.getBorrowedConnections());
+        assertEquals(0, poolMetrics.getInFlightRequests());
+        assertEquals(0, poolMetrics.getDeadConnectionsCount());
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void shouldCountBorrowedConnectionThatDiesOrStartsClosingWhileInUse() throws Exception {
+        EmbeddedChannel deadChannel = new EmbeddedChannel();
+        Connection deadConnection = connection(deadChannel);
+        Connection closingConnection = connection(new EmbeddedChannel());
+        Client client = mock(Client.class);
+        when(client.chooseConnection(any())).thenReturn(deadConnection, closingConnection);
+
+        EndpointClient endpointClient = new EndpointClient(new DatabaseEndpoint().withAddress("address1"), client);
+
+        deadConnection.borrowed.incrementAndGet();
+        closingConnection.borrowed.incrementAndGet();
+        endpointClient.acquireConnection(RequestMessage.build("eval").create());
+        endpointClient.acquireConnection(RequestMessage.build("eval").create());
+
+        assertEquals(2, endpointClient.poolMetrics().getBorrowedConnections());
+
+        deadChannel.close();
+        closingConnectionFuture(closingConnection).set(new CompletableFuture<>());
+
+        EndpointConnectionPoolMetrics poolMetrics = endpointClient.poolMetrics();
+
+        assertEquals(0, poolMetrics.getBorrowedConnections());
+        assertEquals(1, poolMetrics.getDeadConnectionsCount());
+        assertEquals(1, poolMetrics.getClosingConnectionsCount());
+
+        // Counted once, however many snapshots are taken
+        poolMetrics = endpointClient.poolMetrics();
+
+        assertEquals(1, poolMetrics.getDeadConnectionsCount());
+        assertEquals(1, poolMetrics.getClosingConnectionsCount());
+    }
+
+    // Connection opens a channel to the server in its constructor, so these tests build one without calling it,
+    // and set just the fields that EndpointClient reads
+    private static Connection connection(EmbeddedChannel channel) throws Exception {
+        Connection connection = new ObjenesisStd().newInstance(Connection.class);
+        setField(connection, "channel", channel);
+        setField(connection, "pending", new ConcurrentHashMap<UUID, ResultQueue>());
+        setField(connection, "borrowed", new AtomicInteger());
+        setField(connection, "isBeingReplaced", new AtomicBoolean());
+        setField(connection, "closeFuture", new AtomicReference<CompletableFuture<Void>>());
+        return connection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReference<CompletableFuture<Void>> closingConnectionFuture(Connection connection) throws Exception {
+        Field field = Connection.class.getDeclaredField("closeFuture");
+        field.setAccessible(true);
+        return (AtomicReference<CompletableFuture<Void>>) field.get(connection);
+    }
+
+    private static void setField(Connection connection, String name, Object value) throws Exception {
+        Field field = Connection.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(connection, value);
+    }
+
     private boolean containsEndpointClientWithEndpoint(List<EndpointClient> endpointClients, Endpoint endpoint){
         for (EndpointClient endpointClient : endpointClients) {
             if (endpointClient.endpoint().getAddress().equals(endpoint.getAddress())){
@@ -0,0 +1,90 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ErrorBurstDetectorTest {
+
+    @Test
+    public void shouldDetectBurstOfClassifiedErrorsWithinWindow() {
+
+        ErrorBurstDetector detector = new ErrorBurstDetector(
+                Collections.singletonList(ErrorClassifiers.readOnlyViolation()), 3, 1000);
+
+        Throwable e = readOnlyViolation();
+
+        assertFalse(detector.recordError("address1", e, millis(0)));
+        assertFalse(detector.recordError("address1", e, millis(400)));
+        assertTrue(detector.recordError("address1", e, millis(800)));
+
+        // Burst resets once detected
+        assertFalse(detector.recordError("address1", e, millis(900)));
+    }
+
+    @Test
+    public void shouldNotDetectBurstIfErrorsAreSpreadBeyondWindow() {
+
+        ErrorBurstDetector detector = new ErrorBurstDetector(
+                Collections.singletonList(ErrorClassifiers.readOnlyViolation()), 3, 1000);
+
+        Throwable e = readOnlyViolation();
+
+        assertFalse(detector.recordError("address1", e, millis(0)));
+        assertFalse(detector.recordError("address1", e, millis(600)));
+        assertFalse(detector.recordError("address1", e, millis(1200)));
+        assertTrue(detector.recordError("address1", e, millis(1500)));
+    }
+
+    @Test
+    public void shouldCountErrorsPerEndpoint() {
+
+        ErrorBurstDetector detector = new ErrorBurstDetector(
+                Collections.singletonList(ErrorClassifiers.readOnlyViolation()), 2, 1000);
+
+        Throwable e = readOnlyViolation();
+
+        assertFalse(detector.recordError("address1", e, millis(0)));
+        assertFalse(detector.recordError("address2", e, millis(10)));
+        assertTrue(detector.recordError("address2", e, millis(20)));
+    }
+
+    @Test
+    public void shouldIgnoreUnclassifiedErrors() {
+
+        ErrorBurstDetector detector = new ErrorBurstDetector(
+                Arrays.asList(ErrorClassifiers.readOnlyViolation(), ErrorClassifiers.connectionReset()), 1, 1000);
+
+        assertFalse(detector.recordError("address1", new RuntimeException("ConstraintViolationException"), millis(0)));
+        assertFalse(detector.recordError("address1", null, millis(0)));
+        assertTrue(detector.recordError("address1", new RuntimeException(new IOException("Connection reset by peer")), millis(0)));
+        assertTrue(detector.recordError("address1", new RuntimeException(new ClosedChannelException()), millis(0)));
+    }
+
+    private static Throwable readOnlyViolation() {
+        return new RuntimeException("{\"code\":\"ReadOnlyViolationException\",\"detailedMessage\":\"The request is rejected because it violates some read-only constraint, such as a designation that only writers may perform the request.\"}");
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -33,11 +33,11 @@ public class RefreshEventTaskTest {
         EndpointCollection endpointCollection = new EndpointCollection();
 
         EagerRefreshContext context = new EagerRefreshContext();
-        AtomicLong latestRefreshTime = new AtomicLong(0);
+        AtomicLong latestRefreshTime = new AtomicLong(ConnectionAttemptManager.NEVER_REFRESHED);
         AtomicBoolean refreshing = new AtomicBoolean(false);
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(5000L);
 
         Refreshable client = mock(Refreshable.class);
         OnEagerRefresh onEagerRefresh = mock(OnEagerRefresh.class);
@@ -72,7 +72,7 @@ public class RefreshEventTaskTest {
         AtomicBoolean refreshing = new AtomicBoolean(true);
 
         Clock clock = mock(Clock.class);
-        when(clock.currentTimeMillis()).thenReturn(5000L);
+        when(clock.nanoTime()).thenReturn(5000L);
 
         Refreshable client = mock(Refreshable.class);
         OnEagerRefresh onEagerRefresh = mock(OnEagerRefresh.class);
@@ -0,0 +1,145 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestMetricsCollectorTest {
+
+    @Test
+    public void shouldAttributeDurationsToEndpoint() {
+
+        Map<String, EndpointRequestMetrics> metrics = new HashMap<>();
+        metrics.put("address1", new EndpointRequestMetrics("address1"));
+        metrics.put("address2", new EndpointRequestMetrics("address2"));
+
+        RequestMetricsCollector collector = new RequestMetricsCollector(metrics);
+
+        for (int i = 0; i < 10000; i++) {
+            collector.registerDuration("address1", 1, null);
+        }
+        collector.registerDuration("address2", 2, new RuntimeException());
+
+        assertEquals(10000, metrics.get("address1").getSuccessCount());
+        assertEquals(1, metrics.get("address2").getErrorCount());
+        assertEquals(10001, collector.totalRequests());
+        assertEquals(1, collector.failedRequests());
+        assertEquals(0, collector.skippedResponses());
+    }
+
+    @Test
+    public void shouldSkipResponsesForUnknownEndpoint() {
+
+        Map<String, EndpointRequestMetrics> metrics = new HashMap<>();
+        metrics.put("address1", new EndpointRequestMetrics("address1"));
+
+        RequestMetricsCollector collector = new RequestMetricsCollector(metrics);
+
+        collector.registerDuration("address2", 1, null);
+
+        assertEquals(0, collector.totalRequests());
+        assertEquals(1, collector.skippedResponses());
+    }
+
+    @Test
+    public void shouldRecordRequestPhasesForEndpoint() {
+
+        Map<String, EndpointRequestMetrics> metrics = new HashMap<>();
+        metrics.put("address1", new EndpointRequestMetrics("address1"));
+
+        RequestMetricsCollector collector = new RequestMetricsCollector(metrics);
+
+        collector.registerRequest("address1", timings(100, 110, 2, 115, 150), null);
+        collector.registerRequest("address1", timings(200, 202, 0, 205, 225), null);
+
+        EndpointRequestMetrics endpointMetrics = metrics.get("address1");
+
+        assertEquals(2, endpointMetrics.getSuccessCount());
+        assertEquals(50.0, endpointMetrics.getMaxLatencyMillis(), 0.0);
+        assertEquals(2, endpointMetrics.getAcquisitionRetries());
+        assertEquals(2.0, endpointMetrics.getAcquisitionMetrics().getMinMillis(), 0.0);
+        assertEquals(10.0, endpointMetrics.getAcquisitionMetrics().getMaxMillis(), 0.0);
+        assertEquals(6.0, endpointMetrics.getAcquisitionMetrics().getAverageMillis(), 0.0);
+        assertEquals(4.0, endpointMetrics.getQueueingMetrics().getAverageMillis(), 0.0);
+        assertEquals(27.5, endpointMetrics.getResponseMetrics().getAverageMillis(), 0.0);
+    }
+
+    @Test
+    public void shouldNotRecordResponsePhaseForRequestThatWasNeverWritten() {
+
+        Map<String, EndpointRequestMetrics> metrics = new HashMap<>();
+        metrics.put("address1", new EndpointRequestMetrics("address1"));
+
+        RequestMetricsCollector collector = new RequestMetricsCollector(metrics);
+
+        collector.registerRequest("address1", timings(100, 110, 0, RequestTimings.NOT_WRITTEN, 130), new RuntimeException());
+
+        EndpointRequestMetrics endpointMetrics = metrics.get("address1");
+
+        assertEquals(1, endpointMetrics.getErrorCount());
+        assertEquals(20.0, endpointMetrics.getQueueingMetrics().getMaxMillis(), 0.0);
+        assertEquals(0, endpointMetrics.getResponseMetrics().getCount());
+    }
+
+    @Test
+    public void shouldCombinePhaseMetricsAcrossEndpoints() {
+
+        EndpointRequestMetrics metrics1 = new EndpointRequestMetrics("address1");
+        EndpointRequestMetrics metrics2 = new EndpointRequestMetrics("address2");
+
+        metrics1.update(timings(0, 5, 1, 6, 20), null);
+        metrics2.update(timings(0, 1, 3, 2, 10), null);
+
+        RequestMetrics requestMetrics = new RequestMetrics(1000, 2, 0, 0, Arrays.asList(metrics1, metrics2));
+
+        assertEquals(4, requestMetrics.getAcquisitionRetries());
+        assertEquals(2, requestMetrics.getAcquisitionMetrics().getCount());
+        assertEquals(1.0, requestMetrics.getAcquisitionMetrics().getMinMillis(), 0.0);
+        assertEquals(5.0, requestMetrics.getAcquisitionMetrics().getMaxMillis(), 0.0);
+        assertEquals(11.0, requestMetrics.getResponseMetrics().getAverageMillis(), 0.0);
+    }
+
+    @Test
+    public void shouldRecordSubMillisecondLatencies() {
+
+        EndpointRequestMetrics metrics = new EndpointRequestMetrics("address1");
+
+        metrics.update(new RequestTimings(0, 50_000, 0, 100_000, 400_000), null);
+        metrics.update(new RequestTimings(0, 50_000, 0, 100_000, 800_000), null);
+
+        assertEquals(0.4, metrics.getMinLatencyMillis(), 0.0);
+        assertEquals(0.8, metrics.getMaxLatencyMillis(), 0.0);
+        assertEquals(0.6, metrics.getAverageLatencyMillis(), 0.000001);
+        assertEquals(0.05, metrics.getAcquisitionMetrics().getAverageMillis(), 0.000001);
+
+        long[] bucketCounts = metrics.getLatencyMetrics().getBucketCounts();
+        assertEquals(1, bucketCounts[2]);
+        assertEquals(1, bucketCounts[3]);
+    }
+
+    private static RequestTimings timings(long startMillis, long acquiredMillis, int retries, long writtenMillis, long completedMillis) {
+        return new RequestTimings(
+                TimeUnit.MILLISECONDS.toNanos(startMillis),
+                TimeUnit.MILLISECONDS.toNanos(acquiredMillis),
+                retries,
+                writtenMillis == RequestTimings.NOT_WRITTEN ? RequestTimings.NOT_WRITTEN : TimeUnit.MILLISECONDS.toNanos(writtenMillis),
+                TimeUnit.MILLISECONDS.toNanos(completedMillis));
+    }
+}
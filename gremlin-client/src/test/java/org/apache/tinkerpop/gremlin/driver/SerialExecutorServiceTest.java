@@ -0,0 +1,107 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SerialExecutorServiceTest {
+
+    @Test
+    public void shouldRunTasksOneAtATimeInSubmissionOrder() throws Exception {
+        ExecutorService sharedExecutor = Executors.newFixedThreadPool(4);
+        try {
+            SerialExecutorService executor = new SerialExecutorService(sharedExecutor);
+
+            List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int value = i;
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    results.add(value);
+                    running.decrementAndGet();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            assertEquals(1, maxRunning.get());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) results.get(i));
+            }
+        } finally {
+            sharedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutdownNowShouldReturnPendingTasksWithoutStoppingSharedExecutor() throws Exception {
+        ExecutorService sharedExecutor = Executors.newFixedThreadPool(2);
+        try {
+            SerialExecutorService executor = new SerialExecutorService(sharedExecutor);
+
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            executor.execute(() -> { });
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals(1, executor.shutdownNow().size());
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(executor.isTerminated());
+
+            assertFalse(sharedExecutor.isShutdown());
+            assertEquals("ok", sharedExecutor.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+        } finally {
+            sharedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRunTasksOnVirtualThreadsOrSharedPool() throws Exception {
+        ExecutorService executor = ExecutionMode.VIRTUAL_THREADS.newSerialExecutor();
+        try {
+            String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+            assertTrue(threadName.startsWith("gremlin-client-task-"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.util.Tokens;
+import org.apache.tinkerpop.gremlin.util.message.RequestMessage;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlowQueryLogTest {
+
+    @Test
+    public void shouldOnlyHandleRequestsOverThreshold() throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        Map<String, SlowQuery> slowQueries = new HashMap<>();
+
+        try (SlowQueryLog slowQueryLog = new SlowQueryLog(100, 1.0, 0, true,
+                Collections.singletonList(slowQuery -> {
+                    slowQueries.put(slowQuery.getAddress(), slowQuery);
+                    latch.countDown();
+                }))) {
+
+            slowQueryLog.record(scriptRequest(), "address1", new RequestTimings(0, millis(5), 0, millis(10), millis(99)), 64, 1, null);
+            slowQueryLog.record(scriptRequest(), "address2", new RequestTimings(0, millis(5), 2, millis(10), millis(150)), 64, 1, null);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, slowQueries.size());
+        SlowQuery slowQuery = slowQueries.get("address2");
+        assertEquals(150.0, slowQuery.getTotalMillis(), 0.0);
+        assertEquals(2, slowQuery.getAcquisitionRetries());
+        assertEquals(140.0, slowQuery.getResponseMillis(), 0.0);
+        assertEquals(64, slowQuery.getBatchSize());
+    }
+
+    @Test
+    public void shouldLimitNumberOfSlowQueriesPerSecond() {
+
+        try (SlowQueryLog slowQueryLog = new SlowQueryLog(100, 1.0, 2, true, Collections.emptyList())) {
+
+            assertTrue(slowQueryLog.tryAcquire(millis(1000)));
+            assertTrue(slowQueryLog.tryAcquire(millis(1500)));
+            assertFalse(slowQueryLog.tryAcquire(millis(1900)));
+            assertTrue(slowQueryLog.tryAcquire(millis(2000)));
+        }
+    }
+
+    @Test
+    public void shouldNotExceedLimitWhenWindowIsResetConcurrently() throws InterruptedException {
+
+        int threads = 8;
+        int maxPerSecond = 5;
+
+        for (int window = 1; window <= 50; window++) {
+            long nowNanos = millis(window * 1000L);
+            AtomicInteger acquired = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+
+            try (SlowQueryLog slowQueryLog = new SlowQueryLog(100, 1.0, maxPerSecond, true, Collections.emptyList())) {
+                slowQueryLog.tryAcquire(nowNanos - millis(1000));
+                for (int i = 0; i < threads; i++) {
+                    new Thread(() -> {
+                        try {
+                            start.await();
+                            for (int j = 0; j < 10; j++) {
+                                if (slowQueryLog.tryAcquire(nowNanos)) {
+                                    acquired.incrementAndGet();
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            done.countDown();
+                        }
+                    }).start();
+                }
+                start.countDown();
+                assertTrue(done.await(5, TimeUnit.SECONDS));
+            }
+
+            assertEquals(maxPerSecond, acquired.get());
+        }
+    }
+
+    @Test
+    public void shouldRedactTraversalArguments() {
+
+        Bytecode bytecode = __.V().has("person", "name", "marko").out("knows").where(__.values("age").is(30)).asAdmin().getBytecode();
+
+        RequestMessage msg = RequestMessage.build(Tokens.OPS_BYTECODE)
+                .addArg(Tokens.ARGS_GREMLIN, bytecode)
+                .addArg(Tokens.ARGS_BATCH_SIZE, 10)
+                .create();
+
+        SlowQuery redacted = new SlowQuery(msg, true, "address1", new RequestTimings(0, 0, 0, 0, 0), 64, 0, null);
+        SlowQuery unredacted = new SlowQuery(msg, false, "address1", new RequestTimings(0, 0, 0, 0, 0), 64, 0, null);
+
+        assertEquals("g.V().has(?, ?, ?).out(?).where(__.values(?).is(?))", redacted.getQuery());
+        assertEquals("g.V().has(person, name, marko).out(knows).where(__.values(age).is(30))", unredacted.getQuery());
+        assertEquals(10, redacted.getBatchSize());
+    }
+
+    @Test
+    public void shouldRedactScriptBindings() {
+
+        Map<String, Object> bindings = new HashMap<>();
+        bindings.put("x", "marko");
+
+        RequestMessage msg = RequestMessage.build(Tokens.OPS_EVAL)
+                .addArg(Tokens.ARGS_GREMLIN, "g.V().has('name', x)")
+                .addArg(Tokens.ARGS_BINDINGS, bindings)
+                .create();
+
+        SlowQuery slowQuery = new SlowQuery(msg, true, "address1", new RequestTimings(0, 0, 0, 0, 0), 64, 0, null);
+
+        assertEquals("g.V().has('name', x) {x=?}", slowQuery.getQuery());
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static RequestMessage scriptRequest() {
+        return RequestMessage.build(Tokens.OPS_EVAL)
+                .addArg(Tokens.ARGS_GREMLIN, "g.V().limit(1)")
+                .create();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package org.apache.tinkerpop.gremlin.driver;
+
+import org.junit.Test;
+import software.amazon.utils.Clock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WriterFailoverManagerTest {
+
+    private static final EndpointCollection OLD_PRIMARY = new EndpointCollection(new DatabaseEndpoint().withAddress("old-primary"));
+    private static final EndpointCollection NEW_PRIMARY = new EndpointCollection(new DatabaseEndpoint().withAddress("new-primary"));
+
+    @Test
+    public void shouldPauseDemotedWriterUntilNewPrimaryIsResolved() throws Exception {
+
+        FakeClient client = new FakeClient();
+        AtomicInteger calls = new AtomicInteger();
+
+        // Metadata continues to report the old primary for the first two attempts
+        OnEagerRefresh onWriterFailover = context -> {
+            assertEquals("old-primary", context.getEndpointAddress());
+            assertTrue(context.isTriggeredByError());
+            return calls.incrementAndGet() < 3 ? OLD_PRIMARY : NEW_PRIMARY;
+        };
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        WriterFailoverManager manager = new WriterFailoverManager(client, onWriterFailover, 10, 20, 5000, Clock.SYSTEM, executor);
+
+        try {
+            long start = System.nanoTime();
+
+            assertTrue(manager.onRequestError("old-primary", readOnlyViolation()));
+            assertTrue(manager.isFailingOver());
+
+            // Subsequent errors from requests already in flight join the existing failover
+            assertTrue(manager.onRequestError("old-primary", readOnlyViolation()));
+
+            assertTrue(client.resumed.await(5, TimeUnit.SECONDS));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(3, calls.get());
+            assertEquals(1, client.refreshes.size());
+            assertEquals("new-primary", client.refreshes.get(0).stream().findFirst().get().getAddress());
+            assertEquals("pause:old-primary, refresh:new-primary, resume:old-primary", String.join(", ", client.events));
+            assertTrue(elapsedMillis >= 30);
+            assertTrue(elapsedMillis < 5000);
+            assertFalse(manager.isFailingOver());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void shouldResumeDemotedWriterIfPrimaryIsNotResolvedWithinTimeout() throws Exception {
+
+        FakeClient client = new FakeClient();
+        AtomicInteger calls = new AtomicInteger();
+
+        OnEagerRefresh onWriterFailover = context -> {
+            calls.incrementAndGet();
+            return OLD_PRIMARY;
+        };
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        WriterFailoverManager manager = new WriterFailoverManager(client, onWriterFailover, 10, 20, 100, Clock.SYSTEM, executor);
+
+        try {
+            assertTrue(manager.onRequestError("old-primary", readOnlyViolation()));
+
+            assertTrue(client.resumed.await(5, TimeUnit.SECONDS));
+
+            assertTrue(calls.get() > 1);
+            assertTrue(client.refreshes.isEmpty());
+            assertEquals("pause:old-primary, resume:old-primary", String.join(", ", client.events));
+            assertFalse(manager.isFailingOver());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void shouldIgnoreErrorsThatAreNotReadOnlyViolations() {
+
+        FakeClient client = new FakeClient();
+
+        WriterFailoverManager manager = new WriterFailoverManager(
+                client, context -> NEW_PRIMARY, 10, 20, 100, Clock.SYSTEM, Executors.newSingleThreadScheduledExecutor());
+
+        try {
+            assertFalse(manager.onRequestError("old-primary", new RuntimeException("ConstraintViolationException")));
+            assertFalse(manager.onRequestError("old-primary", null));
+            assertFalse(WriterFailoverManager.disabled().onRequestError("old-primary", readOnlyViolation()));
+            assertTrue(client.events.isEmpty());
+        } finally {
+            manager.close();
+        }
+    }
+
+    private static Throwable readOnlyViolation() {
+        return new RuntimeException("{\"code\":\"ReadOnlyViolationException\",\"detailedMessage\":\"The request is rejected because it violates some read-only constraint, such as a designation that only writers may perform the request.\"}");
+    }
+
+    private static class FakeClient implements PausableEndpoints {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final List<EndpointCollection> refreshes = new CopyOnWriteArrayList<>();
+        final CountDownLatch resumed = new CountDownLatch(1);
+
+        @Override
+        public void pauseEndpoint(String address) {
+            events.add("pause:" + address);
+        }
+
+        @Override
+        public void resumeEndpoint(String address) {
+            events.add("resume:" + address);
+            resumed.countDown();
+        }
+
+        @Override
+        public void refreshEndpoints(EndpointCollection endpoints) {
+            refreshes.add(endpoints);
+            endpoints.stream().forEach(e -> events.add("refresh:" + e.getAddress()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncRetryTest {
+
+    @Test
+    public void shouldRetryUntilCallSucceeds() {
+
+        AtomicInteger tries = new AtomicInteger();
+
+        CompletableFuture<String> result = AsyncRetry.withRetries(
+                () -> tries.incrementAndGet() < 3 ?
+                        CompletableFuture.failedFuture(new TimeoutException()) :
+                        CompletableFuture.completedFuture("result"),
+                e -> e instanceof TimeoutException,
+                5,
+                10);
+
+        assertEquals("result", result.join());
+        assertEquals(3, tries.get());
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxTries() {
+
+        AtomicInteger tries = new AtomicInteger();
+
+        CompletableFuture<String> result = AsyncRetry.withRetries(
+                () -> {
+                    tries.incrementAndGet();
+                    return CompletableFuture.failedFuture(new TimeoutException());
+                },
+                e -> e instanceof TimeoutException,
+                3,
+                10);
+
+        try {
+            result.join();
+            fail("Expected exception");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(3, tries.get());
+    }
+
+    @Test
+    public void shouldNotRetryNonRetryableFailure() {
+
+        AtomicInteger tries = new AtomicInteger();
+
+        CompletableFuture<String> result = AsyncRetry.withRetries(
+                () -> {
+                    tries.incrementAndGet();
+                    throw new IllegalStateException();
+                },
+                e -> e instanceof TimeoutException,
+                3,
+                10);
+
+        try {
+            result.join();
+            fail("Expected exception");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, tries.get());
+    }
+
+    @Test
+    public void shouldNotBlockCallingThreadWhileBackingOff() {
+
+        long startNanos = System.nanoTime();
+
+        CompletableFuture<String> result = AsyncRetry.withRetries(
+                () -> CompletableFuture.failedFuture(new TimeoutException()),
+                e -> e instanceof TimeoutException,
+                2,
+                1000);
+
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(500));
+        assertFalse(result.isDone());
+        result.cancel(false);
+    }
+}
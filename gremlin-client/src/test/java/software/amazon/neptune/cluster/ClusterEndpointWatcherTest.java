@@ -0,0 +1,145 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClusterEndpointWatcherTest {
+
+    private static final String CLUSTER_ENDPOINT = "my-cluster.cluster-abc.us-east-1.neptune.amazonaws.com";
+
+    @Test
+    public void shouldRefreshWhenClusterEndpointTargetChanges() {
+
+        RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+        AtomicInteger refreshes = new AtomicInteger();
+
+        ClusterEndpointWatcher watcher = new ClusterEndpointWatcher(
+                () -> new NeptuneClusterMetadata().withClusterEndpoint(CLUSTER_ENDPOINT),
+                resolver("instance-1", "instance-1", "instance-2", "instance-2"),
+                refreshes::incrementAndGet,
+                metrics);
+
+        watcher.run();
+        watcher.run();
+        assertEquals(0, refreshes.get());
+
+        watcher.run();
+        assertEquals(1, refreshes.get());
+
+        watcher.run();
+        assertEquals(1, refreshes.get());
+        assertEquals(1, metrics.getClusterEndpointChangeCount());
+    }
+
+    @Test
+    public void shouldIgnoreUnresolvedAndFailedLookups() {
+
+        AtomicInteger refreshes = new AtomicInteger();
+        AtomicInteger lookups = new AtomicInteger();
+
+        HostnameResolver resolver = hostname -> {
+            switch (lookups.incrementAndGet()) {
+                case 1:
+                    return "instance-1";
+                case 2:
+                    return null;
+                case 3:
+                    throw new IllegalStateException("SERVFAIL");
+                default:
+                    return "instance-1";
+            }
+        };
+
+        ClusterEndpointWatcher watcher = new ClusterEndpointWatcher(
+                () -> new NeptuneClusterMetadata().withClusterEndpoint(CLUSTER_ENDPOINT),
+                resolver,
+                refreshes::incrementAndGet,
+                new RefreshAgentMetrics());
+
+        for (int i = 0; i < 4; i++) {
+            watcher.run();
+        }
+
+        assertEquals(4, lookups.get());
+        assertEquals(0, refreshes.get());
+    }
+
+    @Test
+    public void shouldNotResolveUntilClusterMetadataIsAvailable() {
+
+        AtomicReference<NeptuneClusterMetadata> clusterMetadata = new AtomicReference<>();
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger refreshes = new AtomicInteger();
+
+        ClusterEndpointWatcher watcher = new ClusterEndpointWatcher(
+                clusterMetadata::get,
+                hostname -> {
+                    lookups.incrementAndGet();
+                    return "instance-1";
+                },
+                refreshes::incrementAndGet,
+                new RefreshAgentMetrics());
+
+        watcher.run();
+        assertEquals(0, lookups.get());
+
+        clusterMetadata.set(new NeptuneClusterMetadata().withClusterEndpoint(CLUSTER_ENDPOINT));
+        watcher.run();
+        assertEquals(1, lookups.get());
+        assertEquals(0, refreshes.get());
+    }
+
+    @Test
+    public void shouldKeepWatchingWhenClusterMetadataCannotBeRead() {
+
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger lookups = new AtomicInteger();
+
+        ClusterEndpointWatcher watcher = new ClusterEndpointWatcher(
+                () -> {
+                    if (reads.incrementAndGet() == 1) {
+                        throw new IllegalStateException("Metadata unavailable");
+                    }
+                    return new NeptuneClusterMetadata().withClusterEndpoint(CLUSTER_ENDPOINT);
+                },
+                hostname -> {
+                    lookups.incrementAndGet();
+                    return "instance-1";
+                },
+                () -> { },
+                new RefreshAgentMetrics());
+
+        watcher.run();
+        assertEquals(0, lookups.get());
+
+        watcher.run();
+        assertEquals(1, lookups.get());
+    }
+
+    private static HostnameResolver resolver(String... targets) {
+        Deque<String> results = new ArrayDeque<>(Arrays.asList(targets));
+        return hostname -> {
+            assertEquals(CLUSTER_ENDPOINT, hostname);
+            return results.poll();
+        };
+    }
+}
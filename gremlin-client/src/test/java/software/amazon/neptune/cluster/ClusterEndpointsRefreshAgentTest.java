@@ -22,11 +22,28 @@ import org.apache.tinkerpop.gremlin.driver.GremlinClient;
 import org.apache.tinkerpop.gremlin.driver.RefreshTask;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class ClusterEndpointsRefreshAgentTest {
@@ -67,4 +84,263 @@ public class ClusterEndpointsRefreshAgentTest {
         verify(client3).refreshEndpoints(endpoints2);
         verify(client4).refreshEndpoints(endpoints2);
     }
+
+    @Test
+    public void shouldNotDelayOtherClientsWhileOneClientIsSlowToRefresh() throws Exception {
+
+        CountDownLatch releaseSlowClient = new CountDownLatch(1);
+
+        GremlinClient slowClient = mock(GremlinClient.class);
+        GremlinClient client2 = mock(GremlinClient.class);
+        GremlinClient client3 = mock(GremlinClient.class);
+
+        doAnswer(invocation -> {
+            releaseSlowClient.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(slowClient).refreshEndpoints(any(EndpointCollection.class));
+
+        EndpointCollection endpoints = new EndpointCollection();
+
+        Collection<RefreshTask> refreshTasks = Arrays.asList(
+                new RefreshTask(slowClient, EndpointsType.ClusterEndpoint),
+                new RefreshTask(client2, EndpointsType.ClusterEndpoint),
+                new RefreshTask(client3, EndpointsType.ReaderEndpoint)
+        );
+
+        ClusterEndpointsRefreshAgent.EndpointsSupplier endpointsSupplier = selectors -> {
+            HashMap<EndpointsSelector, EndpointCollection> results = new HashMap<>();
+            results.put(EndpointsType.ClusterEndpoint, endpoints);
+            results.put(EndpointsType.ReaderEndpoint, endpoints);
+            return results;
+        };
+
+        RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+        ExecutorService fanOutExecutor = Executors.newFixedThreadPool(3);
+
+        try {
+            ClusterEndpointsRefreshAgent.PollingCommand pollingCommand =
+                    new ClusterEndpointsRefreshAgent.PollingCommand(refreshTasks, endpointsSupplier, metrics, fanOutExecutor, 200);
+
+            CompletableFuture<Void> poll = pollingCommand.poll();
+
+            poll.get(5, TimeUnit.SECONDS);
+
+            verify(client2).refreshEndpoints(endpoints);
+            verify(client3).refreshEndpoints(endpoints);
+            assertEquals(1, metrics.getClientRefreshTimeoutCount());
+            assertEquals(1, metrics.getPollCount());
+        } finally {
+            releaseSlowClient.countDown();
+            fanOutExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldCompletePollExceptionallyIfEndpointsCannotBeFetched() {
+
+        GremlinClient client = mock(GremlinClient.class);
+
+        ClusterEndpointsRefreshAgent.PollingCommand pollingCommand = new ClusterEndpointsRefreshAgent.PollingCommand(
+                Arrays.asList(new RefreshTask(client, EndpointsType.ClusterEndpoint)),
+                selectors -> {
+                    throw new IllegalStateException("Throttled");
+                });
+
+        CompletableFuture<Void> poll = pollingCommand.poll();
+
+        assertTrue(poll.isCompletedExceptionally());
+    }
+
+    @Test
+    public void shouldOnlyRefreshClientsWhoseEndpointsHaveChanged() {
+
+        GremlinClient client1 = mock(GremlinClient.class);
+        GremlinClient client2 = mock(GremlinClient.class);
+
+        Collection<RefreshTask> refreshTasks = Arrays.asList(
+                new RefreshTask(client1, EndpointsType.ReadReplicas),
+                new RefreshTask(client2, EndpointsType.ClusterEndpoint)
+        );
+
+        List<EndpointCollection> readReplicas = Arrays.asList(
+                endpoints("instance-2", "instance-3"),
+                endpoints("instance-3", "instance-2"),
+                endpoints("instance-2", "instance-3", "instance-4"));
+
+        int[] poll = {0};
+        ClusterEndpointsRefreshAgent.EndpointsSupplier endpointsSupplier = selectors -> {
+            HashMap<EndpointsSelector, EndpointCollection> results = new HashMap<>();
+            results.put(EndpointsType.ReadReplicas, readReplicas.get(poll[0]));
+            results.put(EndpointsType.ClusterEndpoint, endpoints("instance-1"));
+            return results;
+        };
+
+        List<TopologyChangeEvent> events = new ArrayList<>();
+
+        ClusterEndpointsRefreshAgent.PollingCommand pollingCommand = new ClusterEndpointsRefreshAgent.PollingCommand(
+                refreshTasks,
+                endpointsSupplier,
+                new RefreshAgentMetrics(),
+                Runnable::run,
+                0,
+                TimeUnit.MINUTES.toMillis(5),
+                Collections.singletonList(events::add));
+
+        for (poll[0] = 0; poll[0] < readReplicas.size(); poll[0]++) {
+            pollingCommand.run();
+        }
+
+        verify(client1).refreshEndpoints(readReplicas.get(0));
+        verify(client1).refreshEndpoints(readReplicas.get(2));
+        verify(client1, times(2)).refreshEndpoints(any(EndpointCollection.class));
+        verify(client2, times(1)).refreshEndpoints(any(EndpointCollection.class));
+
+        assertEquals(1, events.size());
+        assertEquals(EndpointsType.ReadReplicas, events.get(0).getSelector());
+        assertEquals(Collections.singleton("instance-4-endpoint"), events.get(0).getAddedAddresses());
+        assertTrue(events.get(0).getRemovedAddresses().isEmpty());
+    }
+
+    @Test
+    public void shouldRefreshClientsWhenAsynchronousFetchCompletes() {
+
+        GremlinClient client = mock(GremlinClient.class);
+        EndpointCollection endpoints = endpoints("instance-1");
+
+        CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> fetch = new CompletableFuture<>();
+
+        ClusterEndpointsRefreshAgent.EndpointsSupplier endpointsSupplier = new ClusterEndpointsRefreshAgent.EndpointsSupplier() {
+            @Override
+            public Map<? extends EndpointsSelector, EndpointCollection> getRefreshedEndpointsForSelectors(Map<EndpointsSelector, Collection<GremlinClient>> selectors) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getRefreshedEndpointsForSelectorsAsync(Map<EndpointsSelector, Collection<GremlinClient>> selectors) {
+                return fetch;
+            }
+        };
+
+        RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+        ClusterEndpointsRefreshAgent.PollingCommand pollingCommand = new ClusterEndpointsRefreshAgent.PollingCommand(
+                Collections.singletonList(new RefreshTask(client, EndpointsType.ReadReplicas)),
+                endpointsSupplier,
+                metrics);
+
+        CompletableFuture<Void> poll = pollingCommand.poll();
+
+        assertFalse(poll.isDone());
+        verify(client, never()).refreshEndpoints(any(EndpointCollection.class));
+
+        fetch.complete(Collections.singletonMap(EndpointsType.ReadReplicas, endpoints));
+        poll.join();
+
+        verify(client).refreshEndpoints(endpoints);
+        assertEquals(1, metrics.getPollCount());
+    }
+
+    @Test
+    public void shouldNotifyListenersOnPollingThreadWhenFetchCompletesAsynchronously() {
+
+        GremlinClient client = mock(GremlinClient.class);
+        ExecutorService fetchExecutor = Executors.newSingleThreadExecutor();
+        List<EndpointCollection> readReplicas = Arrays.asList(
+                endpoints("instance-1"),
+                endpoints("instance-1", "instance-2"));
+        AtomicInteger polls = new AtomicInteger();
+
+        try {
+            ClusterEndpointsRefreshAgent.EndpointsSupplier endpointsSupplier = new ClusterEndpointsRefreshAgent.EndpointsSupplier() {
+                @Override
+                public Map<? extends EndpointsSelector, EndpointCollection> getRefreshedEndpointsForSelectors(Map<EndpointsSelector, Collection<GremlinClient>> selectors) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public CompletableFuture<Map<? extends EndpointsSelector, EndpointCollection>> getRefreshedEndpointsForSelectorsAsync(Map<EndpointsSelector, Collection<GremlinClient>> selectors) {
+                    return CompletableFuture.supplyAsync(
+                            () -> Collections.singletonMap(EndpointsType.ReadReplicas, readReplicas.get(polls.getAndIncrement())),
+                            fetchExecutor);
+                }
+            };
+
+            List<Thread> listenerThreads = new ArrayList<>();
+
+            ClusterEndpointsRefreshAgent.PollingCommand pollingCommand = new ClusterEndpointsRefreshAgent.PollingCommand(
+                    Collections.singletonList(new RefreshTask(client, EndpointsType.ReadReplicas)),
+                    endpointsSupplier,
+                    new RefreshAgentMetrics(),
+                    Runnable::run,
+                    0,
+                    0,
+                    Collections.singletonList(event -> listenerThreads.add(Thread.currentThread())));
+
+            // The first poll records the endpoints, and the second finds that they have changed
+            pollingCommand.run();
+            pollingCommand.run();
+
+            assertEquals(Collections.singletonList(Thread.currentThread()), listenerThreads);
+            verify(client, times(2)).refreshEndpoints(any(EndpointCollection.class));
+        } finally {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldKeepPollingWithoutExtraFetchesWhenMetadataSourceFails() throws Exception {
+        AtomicInteger refreshCount = new AtomicInteger();
+        AtomicInteger getCount = new AtomicInteger();
+        CountDownLatch polledThreeTimes = new CountDownLatch(3);
+
+        ClusterMetadataSupplier clusterMetadataSupplier = new ClusterMetadataSupplier() {
+            @Override
+            public NeptuneClusterMetadata getClusterMetadata() {
+                getCount.incrementAndGet();
+                throw new IllegalStateException("Metadata source unavailable");
+            }
+
+            @Override
+            public NeptuneClusterMetadata refreshClusterMetadata() {
+                refreshCount.incrementAndGet();
+                polledThreeTimes.countDown();
+                throw new IllegalStateException("Metadata source unavailable");
+            }
+        };
+
+        ClusterEndpointsFetchStrategy fetchStrategy = new ClusterEndpointsFetchStrategy() {
+            @Override
+            public ClusterMetadataSupplier clusterMetadataSupplier() {
+                return clusterMetadataSupplier;
+            }
+
+            @Override
+            public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+                throw new IllegalStateException("Metadata source unavailable");
+            }
+        };
+
+        ClusterEndpointsRefreshAgent agent = new ClusterEndpointsRefreshAgent(fetchStrategy);
+        try {
+            agent.startPollingNeptuneAPI(
+                    clusterMetadata -> { },
+                    PollingSchedule.fixedDelay(10, TimeUnit.MILLISECONDS).withMaxBackoffDelay(10, TimeUnit.MILLISECONDS));
+
+            assertTrue(polledThreeTimes.await(5, TimeUnit.SECONDS));
+            assertEquals(0, getCount.get());
+        } finally {
+            agent.stop();
+        }
+    }
+
+    private static EndpointCollection endpoints(String... instanceIds) {
+        List<NeptuneInstanceMetadata> instances = new ArrayList<>();
+        for (String instanceId : instanceIds) {
+            instances.add(new NeptuneInstanceMetadata()
+                    .withInstanceId(instanceId)
+                    .withAddress(instanceId + "-endpoint")
+                    .withStatus("available")
+                    .withRole("reader"));
+        }
+        return new EndpointCollection(instances);
+    }
 }
@@ -0,0 +1,125 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+import software.amazon.utils.Clock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class InstanceTagCacheTest {
+
+    @Test
+    public void shouldReuseTagsUntilTheyExpire() {
+
+        Clock clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(
+                0L,
+                TimeUnit.SECONDS.toNanos(30),
+                TimeUnit.SECONDS.toNanos(60));
+
+        List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        InstanceTagCache cache = new InstanceTagCache(
+                arn -> {
+                    requests.add(arn);
+                    return Collections.singletonMap("name", arn);
+                },
+                1, TimeUnit.MINUTES, Runnable::run, clock);
+
+        Map<String, List<String>> instances = Collections.singletonMap("cluster-1", Arrays.asList("arn-1", "arn-2"));
+
+        Map<String, Map<String, String>> tags = cache.getTags(instances);
+        assertEquals("arn-2", tags.get("arn-2").get("name"));
+        assertEquals(2, requests.size());
+
+        cache.getTags(instances);
+        assertEquals(2, requests.size());
+
+        tags = cache.getTags(instances);
+        assertEquals("arn-1", tags.get("arn-1").get("name"));
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    public void shouldReloadAllTagsForClusterWhenInstancesChange() {
+
+        List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        InstanceTagCache cache = new InstanceTagCache(
+                arn -> {
+                    requests.add(arn);
+                    return Collections.emptyMap();
+                },
+                1, TimeUnit.HOURS, Runnable::run);
+
+        Map<String, List<String>> instances = new HashMap<>();
+        instances.put("cluster-1", Arrays.asList("arn-1", "arn-2"));
+        instances.put("cluster-2", Collections.singletonList("arn-3"));
+
+        cache.getTags(instances);
+        assertEquals(3, requests.size());
+
+        instances.put("cluster-1", Arrays.asList("arn-1", "arn-2", "arn-4"));
+        requests.clear();
+
+        cache.getTags(instances);
+        assertEquals(3, requests.size());
+        assertTrue(requests.containsAll(Arrays.asList("arn-1", "arn-2", "arn-4")));
+    }
+
+    @Test
+    public void shouldLoadMissingTagsConcurrently() {
+
+        int instanceCount = 4;
+        CountDownLatch allLoading = new CountDownLatch(instanceCount);
+        ExecutorService executor = Executors.newFixedThreadPool(instanceCount);
+
+        try {
+            InstanceTagCache cache = new InstanceTagCache(
+                    arn -> {
+                        allLoading.countDown();
+                        try {
+                            // Only completes if every instance's tags are being loaded at the same time
+                            assertTrue(allLoading.await(5, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        return Collections.singletonMap("name", arn);
+                    },
+                    1, TimeUnit.HOURS, executor);
+
+            Map<String, Map<String, String>> tags = cache.getTags(
+                    Collections.singletonMap("cluster-1", Arrays.asList("arn-1", "arn-2", "arn-3", "arn-4")));
+
+            assertEquals(instanceCount, tags.size());
+            assertEquals("arn-4", tags.get("arn-4").get("name"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
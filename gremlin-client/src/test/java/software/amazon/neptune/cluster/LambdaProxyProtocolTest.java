@@ -0,0 +1,100 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LambdaProxyProtocolTest {
+
+    @Test
+    public void shouldRoundTripVersionInConditionalRequest() {
+        String request = LambdaProxyProtocol.conditionalRequest("0123456789abcdef");
+
+        assertEquals("0123456789abcdef", LambdaProxyProtocol.versionFromRequest(request));
+    }
+
+    @Test
+    public void shouldNotTreatLegacyPayloadsAsProtocolRequests() {
+        assertFalse(LambdaProxyProtocol.isProtocolRequest("\"\""));
+        assertFalse(LambdaProxyProtocol.isProtocolRequest("\"ReadReplicas\""));
+        assertFalse(LambdaProxyProtocol.isProtocolRequest(""));
+        assertTrue(LambdaProxyProtocol.isProtocolRequest(" {}"));
+    }
+
+    @Test
+    public void shouldTreatRequestWithoutVersionAsUnconditional() {
+        assertNull(LambdaProxyProtocol.versionFromRequest("{}"));
+        assertNull(LambdaProxyProtocol.versionFromRequest("{\"ifNoneMatch\":null}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRequestWithUnknownFields() {
+        LambdaProxyProtocol.versionFromRequest("{\"ifModifiedSince\":\"0123456789abcdef\"}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMalformedRequest() {
+        LambdaProxyProtocol.versionFromRequest("{\"ifNoneMatch\":");
+    }
+
+    @Test
+    public void shouldOnlyRecogniseRejectionOfConditionalRequestByLegacyProxy() {
+        String request = LambdaProxyProtocol.conditionalRequest("0123456789abcdef").replace("\"", "");
+        String legacyProxyError = "{\"errorMessage\":\"No enum constant " + EndpointsType.class.getName() + "." + request + "\"}";
+
+        assertTrue(LambdaProxyProtocol.isUnsupportedConditionalRequest(legacyProxyError));
+        assertFalse(LambdaProxyProtocol.isUnsupportedConditionalRequest(
+                "{\"errorMessage\":\"No enum constant " + EndpointsType.class.getName() + ".Unknown\"}"));
+        assertFalse(LambdaProxyProtocol.isUnsupportedConditionalRequest(
+                "{\"errorMessage\":\"No enum constant java.util.concurrent.TimeUnit.{ifNoneMatch:0123456789abcdef}\"}"));
+    }
+
+    @Test
+    public void shouldRecogniseNotModifiedResponse() throws IOException {
+        NeptuneClusterMetadata clusterMetadata = new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.asList(new NeptuneInstanceMetadata().withInstanceId("instance-1").withAddress("endpoint-1")));
+
+        assertTrue(LambdaProxyProtocol.isNotModified(LambdaProxyProtocol.NOT_MODIFIED.getBytes(UTF_8)));
+        assertFalse(LambdaProxyProtocol.isNotModified(clusterMetadata.toJsonString().getBytes(UTF_8)));
+    }
+
+    @Test
+    public void versionOfAnnotatedMetadataShouldMatchVersionParsedByClient() throws IOException {
+        NeptuneClusterMetadata clusterMetadata = new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.asList(
+                        new NeptuneInstanceMetadata().withInstanceId("instance-1").withAddress("endpoint-1").withStatus("available").withRole("writer"),
+                        new NeptuneInstanceMetadata().withInstanceId("instance-2").withAddress("endpoint-2").withStatus("available").withRole("reader")));
+
+        NeptuneClusterMetadata annotated = NeptuneClusterMetadata.fromByteArray(clusterMetadata.toJsonString().getBytes(UTF_8));
+        annotated.getReaderEndpoint().setAnnotation(SuspendedEndpoints.STATE_ANNOTATION, SuspendedEndpoints.SUSPENDED);
+        annotated.getInstances().iterator().next().setAnnotation(SuspendedEndpoints.STATE_ANNOTATION, SuspendedEndpoints.SUSPENDED);
+
+        NeptuneClusterMetadata parsedByClient = NeptuneClusterMetadata.fromByteArray(annotated.toJsonString().getBytes(UTF_8));
+
+        assertEquals(annotated.getVersion(), parsedByClient.getVersion());
+        assertFalse(clusterMetadata.getVersion().equals(annotated.getVersion()));
+    }
+}
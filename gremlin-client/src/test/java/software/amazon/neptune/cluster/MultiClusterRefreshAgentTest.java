@@ -0,0 +1,182 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.apache.tinkerpop.gremlin.driver.GremlinClient;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class MultiClusterRefreshAgentTest {
+
+    @Test
+    public void shouldRefreshClientsForAllClustersUsingOneBatchedFetch() throws Exception {
+
+        Map<String, NeptuneClusterMetadata> clusters = new HashMap<>();
+        clusters.put("cluster-1", metadata("writer-1", "reader-1"));
+        clusters.put("cluster-2", metadata("writer-2", "reader-2"));
+
+        StubBatchSupplier batchSupplier = new StubBatchSupplier(clusters);
+
+        GremlinClient client1 = mock(GremlinClient.class);
+        GremlinClient client2 = mock(GremlinClient.class);
+
+        try (MultiClusterRefreshAgent agent = new MultiClusterRefreshAgent("us-east-1", batchSupplier)) {
+            agent.addClient("cluster-1", client1, EndpointsType.Primary);
+            agent.addClient("cluster-2", client2, EndpointsType.ReadReplicas);
+
+            assertTrue(agent.poll());
+
+            assertEquals(1, batchSupplier.requests.size());
+            assertEquals(2, batchSupplier.requests.get(0).size());
+            assertEquals(1, agent.metrics().getPollCount());
+
+            assertEquals("writer-1-endpoint", refreshedAddress(client1));
+            assertEquals("reader-2-endpoint", refreshedAddress(client2));
+        }
+    }
+
+    @Test
+    public void shouldNotRefreshClientsForClusterMissingFromBatch() throws Exception {
+
+        Map<String, NeptuneClusterMetadata> clusters = new HashMap<>();
+        clusters.put("cluster-1", metadata("writer-1", "reader-1"));
+
+        GremlinClient client1 = mock(GremlinClient.class);
+        GremlinClient client2 = mock(GremlinClient.class);
+
+        try (MultiClusterRefreshAgent agent = new MultiClusterRefreshAgent("us-east-1", new StubBatchSupplier(clusters))) {
+            agent.addClient("cluster-1", client1, EndpointsType.Primary);
+            agent.addClient("cluster-2", client2, EndpointsType.Primary);
+
+            assertTrue(agent.poll());
+
+            verify(client1).refreshEndpoints(any(EndpointCollection.class));
+            verify(client2, never()).refreshEndpoints(any(EndpointCollection.class));
+        }
+    }
+
+    @Test
+    public void shouldServeSingleClusterAgentFromBatchedFetch() throws Exception {
+
+        Map<String, NeptuneClusterMetadata> clusters = new HashMap<>();
+        clusters.put("cluster-1", metadata("writer-1", "reader-1"));
+        clusters.put("cluster-2", metadata("writer-2", "reader-2"));
+
+        StubBatchSupplier batchSupplier = new StubBatchSupplier(clusters);
+
+        try (MultiClusterRefreshAgent agent = new MultiClusterRefreshAgent("us-east-1", batchSupplier)) {
+            agent.addClient("cluster-1", mock(GremlinClient.class), EndpointsType.Primary);
+            agent.addClient("cluster-2", mock(GremlinClient.class), EndpointsType.Primary);
+
+            agent.poll();
+
+            EndpointCollection endpoints = agent.forCluster("cluster-2").getEndpoints(EndpointsType.Primary);
+
+            assertEquals(1, batchSupplier.requests.size());
+            assertEquals("writer-2-endpoint", endpoints.iterator().next().getAddress());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllowSingleClusterAgentToStartPolling() throws Exception {
+
+        Map<String, NeptuneClusterMetadata> clusters = new HashMap<>();
+        clusters.put("cluster-1", metadata("writer-1", "reader-1"));
+
+        try (MultiClusterRefreshAgent agent = new MultiClusterRefreshAgent("us-east-1", new StubBatchSupplier(clusters))) {
+            agent.forCluster("cluster-1").startPollingNeptuneAPI(
+                    mock(GremlinClient.class), EndpointsType.Primary, 15, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void shouldReportFailedBatchedFetch() throws Exception {
+
+        ClusterMetadataBatchSupplier batchSupplier = clusterIds -> {
+            throw new IllegalStateException("Throttled");
+        };
+
+        GremlinClient client = mock(GremlinClient.class);
+
+        try (MultiClusterRefreshAgent agent = new MultiClusterRefreshAgent("us-east-1", batchSupplier)) {
+            agent.addClient("cluster-1", client, EndpointsType.Primary);
+
+            assertFalse(agent.poll());
+            assertEquals(1, agent.metrics().getFailedPollCount());
+
+            verify(client, never()).refreshEndpoints(any(EndpointCollection.class));
+        }
+    }
+
+    private static String refreshedAddress(GremlinClient client) {
+        ArgumentCaptor<EndpointCollection> endpoints = ArgumentCaptor.forClass(EndpointCollection.class);
+        verify(client).refreshEndpoints(endpoints.capture());
+        return endpoints.getValue().iterator().next().getAddress();
+    }
+
+    private static NeptuneClusterMetadata metadata(String writerId, String readerId) {
+        List<NeptuneInstanceMetadata> instances = new ArrayList<>();
+        instances.add(new NeptuneInstanceMetadata()
+                .withInstanceId(writerId)
+                .withAddress(writerId + "-endpoint")
+                .withStatus("available")
+                .withRole("writer"));
+        instances.add(new NeptuneInstanceMetadata()
+                .withInstanceId(readerId)
+                .withAddress(readerId + "-endpoint")
+                .withStatus("available")
+                .withRole("reader"));
+        return new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(instances);
+    }
+
+    private static class StubBatchSupplier implements ClusterMetadataBatchSupplier {
+
+        private final Map<String, NeptuneClusterMetadata> clusters;
+        private final List<Collection<String>> requests = new ArrayList<>();
+
+        private StubBatchSupplier(Map<String, NeptuneClusterMetadata> clusters) {
+            this.clusters = clusters;
+        }
+
+        @Override
+        public synchronized Map<String, NeptuneClusterMetadata> getClusterMetadata(Collection<String> clusterIds) {
+            requests.add(new ArrayList<>(clusterIds));
+            Map<String, NeptuneClusterMetadata> results = new HashMap<>();
+            for (String clusterId : clusterIds) {
+                if (clusters.containsKey(clusterId)) {
+                    results.put(clusterId, clusters.get(clusterId));
+                }
+            }
+            return results;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class NeptuneClusterMetadataTest {
 
@@ -112,4 +113,48 @@ public class NeptuneClusterMetadataTest {
         String address = cluster.getInstances().stream().filter(i -> i.isPrimary()).map(i -> i.getAddress()).findFirst().get();
         assertEquals("neptune-db-1-123456b0.abcdefghijklm.eu-west-2.neptune.amazonaws.com", address);
     }
+
+    @Test
+    public void versionShouldNotDependOnInstanceOrderOrSerialization() throws IOException {
+        NeptuneClusterMetadata cluster1 = new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.asList(instance("instance-1", "available"), instance("instance-2", "available")));
+
+        NeptuneClusterMetadata cluster2 = new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.asList(instance("instance-2", "available"), instance("instance-1", "available")));
+
+        NeptuneClusterMetadata cluster3 = NeptuneClusterMetadata.fromByteArray(cluster1.toJsonString().getBytes());
+
+        assertEquals(cluster1.getVersion(), cluster2.getVersion());
+        assertEquals(cluster1.getVersion(), cluster3.getVersion());
+        assertEquals(cluster1.toJsonString(), cluster3.toJsonString());
+    }
+
+    @Test
+    public void versionShouldChangeWhenInstanceChanges() {
+        NeptuneClusterMetadata cluster = new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.asList(instance("instance-1", "available"), instance("instance-2", "available")));
+
+        String version = cluster.getVersion();
+
+        cluster.setInstances(Arrays.asList(instance("instance-1", "available"), instance("instance-2", "rebooting")));
+
+        assertNotEquals(version, cluster.getVersion());
+    }
+
+    private static NeptuneInstanceMetadata instance(String instanceId, String status) {
+        HashMap<String, String> tags = new HashMap<>();
+        tags.put("name", instanceId);
+        return new NeptuneInstanceMetadata()
+                .withInstanceId(instanceId)
+                .withAddress(instanceId + "-endpoint")
+                .withStatus(status)
+                .withRole("reader")
+                .withTags(tags);
+    }
 }
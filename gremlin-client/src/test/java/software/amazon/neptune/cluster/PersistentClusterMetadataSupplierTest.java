@@ -0,0 +1,190 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentClusterMetadataSupplierTest {
+
+    @Test
+    public void shouldServeSnapshotOnStartupAndRefreshInBackground() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("cluster-metadata.json");
+
+        NeptuneClusterMetadata original = clusterMetadata("instance-1", "instance-2");
+        new PersistentClusterMetadataSupplier(new StubStrategy(original), snapshotFile).refreshClusterMetadata();
+
+        assertTrue(Files.exists(snapshotFile));
+
+        NeptuneClusterMetadata current = clusterMetadata("instance-1", "instance-3");
+        StubStrategy delegate = new StubStrategy(current);
+        delegate.refreshed = new CountDownLatch(1);
+        PersistentClusterMetadataSupplier supplier = new PersistentClusterMetadataSupplier(delegate, snapshotFile);
+
+        assertEquals(original.getVersion(), supplier.getClusterMetadata().getVersion());
+
+        assertTrue(delegate.refreshed.await(5, TimeUnit.SECONDS));
+        waitFor(() -> current.getVersion().equals(persistedVersion(snapshotFile)));
+        assertEquals(current.getVersion(), supplier.getClusterMetadata().getVersion());
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotOlderThanMaxAge() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("cluster-metadata.json");
+        Files.write(snapshotFile, clusterMetadata("instance-1").toJsonString().getBytes());
+        Files.setLastModifiedTime(snapshotFile, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+
+        NeptuneClusterMetadata current = clusterMetadata("instance-2");
+        StubStrategy delegate = new StubStrategy(current);
+        PersistentClusterMetadataSupplier supplier =
+                new PersistentClusterMetadataSupplier(delegate, snapshotFile, 1, TimeUnit.HOURS);
+
+        assertEquals(current.getVersion(), supplier.getClusterMetadata().getVersion());
+        assertEquals(1, delegate.refreshCount.get());
+    }
+
+    @Test
+    public void shouldReturnSnapshotIfFirstRefreshFails() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("cluster-metadata.json");
+        NeptuneClusterMetadata persisted = clusterMetadata("instance-1");
+        Files.write(snapshotFile, persisted.toJsonString().getBytes());
+
+        StubStrategy delegate = new StubStrategy(null);
+        PersistentClusterMetadataSupplier supplier = new PersistentClusterMetadataSupplier(delegate, snapshotFile);
+
+        assertEquals(persisted.getVersion(), supplier.refreshClusterMetadata().getVersion());
+    }
+
+    @Test
+    public void shouldRefreshInBackgroundOnlyOnceWhileServingSnapshot() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("cluster-metadata.json");
+        NeptuneClusterMetadata persisted = clusterMetadata("instance-1");
+        Files.write(snapshotFile, persisted.toJsonString().getBytes());
+
+        StubStrategy delegate = new StubStrategy(null);
+        AtomicInteger backgroundRefreshes = new AtomicInteger();
+        PersistentClusterMetadataSupplier supplier = new PersistentClusterMetadataSupplier(
+                delegate,
+                snapshotFile,
+                1,
+                TimeUnit.DAYS,
+                command -> {
+                    backgroundRefreshes.incrementAndGet();
+                    command.run();
+                });
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(persisted.getVersion(), supplier.getClusterMetadata().getVersion());
+        }
+
+        assertEquals(1, backgroundRefreshes.get());
+        assertEquals(1, delegate.refreshCount.get());
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSnapshot() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("cluster-metadata.json");
+        Files.write(snapshotFile, "{\"instances\": [".getBytes());
+
+        NeptuneClusterMetadata current = clusterMetadata("instance-1");
+        PersistentClusterMetadataSupplier supplier =
+                new PersistentClusterMetadataSupplier(new StubStrategy(current), snapshotFile);
+
+        assertEquals(current.getVersion(), supplier.getClusterMetadata().getVersion());
+        assertEquals(current.getVersion(), NeptuneClusterMetadata.fromByteArray(Files.readAllBytes(snapshotFile)).getVersion());
+        assertNull(Files.list(snapshotFile.getParent()).filter(p -> p.toString().endsWith(".tmp")).findFirst().orElse(null));
+    }
+
+    private static NeptuneClusterMetadata clusterMetadata(String... instanceIds) {
+        NeptuneInstanceMetadata[] instances = Arrays.stream(instanceIds)
+                .map(id -> new NeptuneInstanceMetadata()
+                        .withInstanceId(id)
+                        .withAddress(id + "-endpoint")
+                        .withStatus("available")
+                        .withRole("reader"))
+                .toArray(NeptuneInstanceMetadata[]::new);
+        return new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.asList(instances));
+    }
+
+    private static String persistedVersion(Path snapshotFile) {
+        try {
+            return NeptuneClusterMetadata.fromByteArray(Files.readAllBytes(snapshotFile)).getVersion();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static class StubStrategy implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+
+        private final NeptuneClusterMetadata clusterMetadata;
+        private final AtomicInteger refreshCount = new AtomicInteger();
+        private volatile CountDownLatch refreshed = new CountDownLatch(0);
+
+        private StubStrategy(NeptuneClusterMetadata clusterMetadata) {
+            this.clusterMetadata = clusterMetadata;
+        }
+
+        @Override
+        public ClusterMetadataSupplier clusterMetadataSupplier() {
+            return this;
+        }
+
+        @Override
+        public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NeptuneClusterMetadata getClusterMetadata() {
+            return refreshClusterMetadata();
+        }
+
+        @Override
+        public NeptuneClusterMetadata refreshClusterMetadata() {
+            refreshCount.incrementAndGet();
+            refreshed.countDown();
+            if (clusterMetadata == null) {
+                throw new IllegalStateException("Unable to fetch cluster metadata");
+            }
+            return clusterMetadata;
+        }
+    }
+}
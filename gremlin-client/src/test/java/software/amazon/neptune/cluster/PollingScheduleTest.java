@@ -0,0 +1,91 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PollingScheduleTest {
+
+    @Test
+    public void fixedScheduleShouldAlwaysUseSameDelay() {
+
+        PollingSchedule schedule = PollingSchedule.fixedDelay(15, TimeUnit.SECONDS);
+
+        assertEquals(15000, schedule.nextDelayMillis(0, false, 0.9));
+        assertEquals(15000, schedule.nextDelayMillis(0, true, 0.1));
+        assertEquals(15000, schedule.nextDelayMillis(3, false, 0.5));
+    }
+
+    @Test
+    public void adaptiveScheduleShouldJitterDelayWithinBounds() {
+
+        PollingSchedule schedule = PollingSchedule.adaptive(10, TimeUnit.SECONDS);
+
+        assertEquals(8000, schedule.nextDelayMillis(0, false, 0.0));
+        assertEquals(10000, schedule.nextDelayMillis(0, false, 0.5));
+        assertEquals(11000, schedule.nextDelayMillis(0, false, 0.75));
+    }
+
+    @Test
+    public void adaptiveScheduleShouldBackOffExponentiallyUpToMaximum() {
+
+        PollingSchedule schedule = PollingSchedule.adaptive(10, TimeUnit.SECONDS).withJitter(0.0);
+
+        assertEquals(20000, schedule.nextDelayMillis(1, false, 0.5));
+        assertEquals(40000, schedule.nextDelayMillis(2, true, 0.5));
+        assertEquals(80000, schedule.nextDelayMillis(3, false, 0.5));
+        assertEquals(80000, schedule.nextDelayMillis(10, false, 0.5));
+        assertEquals(80000, schedule.nextDelayMillis(100, false, 0.5));
+
+        PollingSchedule capped = schedule.withMaxBackoffDelay(30, TimeUnit.SECONDS);
+        assertEquals(30000, capped.nextDelayMillis(2, false, 0.5));
+    }
+
+    @Test
+    public void adaptiveScheduleShouldPollFasterWhileTopologyIsChanging() {
+
+        PollingSchedule schedule = PollingSchedule.adaptive(60, TimeUnit.SECONDS).withJitter(0.0);
+
+        assertEquals(5000, schedule.nextDelayMillis(0, true, 0.5));
+        assertEquals(60000, schedule.nextDelayMillis(0, false, 0.5));
+        assertEquals(2000, schedule.withTransitionalDelay(2, TimeUnit.SECONDS).nextDelayMillis(0, true, 0.5));
+    }
+
+    @Test
+    public void shouldDetectTransitionalInstanceStatuses() {
+
+        NeptuneClusterMetadata stable = new NeptuneClusterMetadata().withInstances(Arrays.asList(
+                new NeptuneInstanceMetadata().withInstanceId("instance-1").withStatus("available"),
+                new NeptuneInstanceMetadata().withInstanceId("instance-2").withStatus("available")));
+
+        NeptuneClusterMetadata changing = new NeptuneClusterMetadata().withInstances(Arrays.asList(
+                new NeptuneInstanceMetadata().withInstanceId("instance-1").withStatus("available"),
+                new NeptuneInstanceMetadata().withInstanceId("instance-2").withStatus("Rebooting")));
+
+        assertFalse(PollingSchedule.isTopologyChanging(stable));
+        assertTrue(PollingSchedule.isTopologyChanging(changing));
+        assertFalse(PollingSchedule.isTopologyChanging(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectJitterOfOneOrMore() {
+        PollingSchedule.adaptive(10, TimeUnit.SECONDS).withJitter(1.0);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RefreshAgentMetricsTest {
+
+    @Test
+    public void shouldSplitPollDurationIntoFetchAndFanOut() {
+
+        RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+
+        metrics.fetchCompleted(40, true);
+        metrics.fanOutCompleted(10);
+        metrics.fetchCompleted(20, false);
+
+        assertEquals(2, metrics.getPollCount());
+        assertEquals(1, metrics.getFailedPollCount());
+        assertEquals(60, metrics.getTotalFetchMillis());
+        assertEquals(40, metrics.getMaxFetchMillis());
+        assertEquals(20, metrics.getLastFetchMillis());
+        assertEquals(10, metrics.getTotalFanOutMillis());
+        assertEquals(70, metrics.getTotalPollMillis());
+    }
+
+    @Test
+    public void shouldAccumulateEndpointChangesPerSelector() {
+
+        RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+
+        metrics.endpointsChanged("readers", 0, 0, 2);
+        metrics.endpointsChanged("readers", 1, 0, 3);
+        metrics.endpointsChanged("readers", 0, 2, 1);
+        metrics.endpointsChanged("writer", 0, 0, 1);
+
+        assertEquals(2, metrics.getSelectorMetrics().size());
+
+        SelectorRefreshMetrics readers = metrics.getSelectorMetrics().stream()
+                .filter(m -> m.getSelector().equals("readers"))
+                .findFirst()
+                .get();
+
+        assertEquals(1, readers.getAddedCount());
+        assertEquals(2, readers.getRemovedCount());
+        assertEquals(1, readers.getEndpointCount());
+    }
+
+    @Test
+    public void shouldRecordTopologyChangeLatencyBounds() {
+
+        RefreshAgentMetrics metrics = new RefreshAgentMetrics();
+
+        metrics.topologyChangeRefreshed(50, 5050);
+        metrics.topologyChangeRefreshed(30, 3030);
+        metrics.throttled();
+        metrics.cachedMetadataFallback();
+
+        assertEquals(2, metrics.getTopologyChangeCount());
+        assertEquals(30, metrics.getLastTopologyChangeMinLatencyMillis());
+        assertEquals(3030, metrics.getLastTopologyChangeMaxLatencyMillis());
+        assertEquals(5050, metrics.getMaxTopologyChangeMaxLatencyMillis());
+        assertEquals(1, metrics.getThrottledCount());
+        assertEquals(1, metrics.getCachedMetadataFallbackCount());
+    }
+}
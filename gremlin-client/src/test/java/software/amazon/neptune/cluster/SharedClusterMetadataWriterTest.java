@@ -0,0 +1,116 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.cluster;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SharedClusterMetadataWriterTest {
+
+    @Test
+    public void shouldReadPublishedMetadataUntilItChanges() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("cluster-metadata");
+
+        try (SharedClusterMetadataWriter writer = new SharedClusterMetadataWriter(file)) {
+            GetEndpointsFromSharedFile reader = new GetEndpointsFromSharedFile(file);
+
+            NeptuneClusterMetadata clusterMetadata = clusterMetadata(2);
+            writer.apply(clusterMetadata);
+
+            NeptuneClusterMetadata first = reader.getClusterMetadata();
+            NeptuneClusterMetadata second = reader.getClusterMetadata();
+
+            assertEquals(clusterMetadata.getVersion(), first.getVersion());
+            assertSame(first, second);
+
+            writer.apply(clusterMetadata(3));
+
+            assertEquals(3, reader.getClusterMetadata().getInstances().size());
+        }
+    }
+
+    @Test
+    public void shouldRemapWhenWriterGrowsFile() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("cluster-metadata");
+
+        try (SharedClusterMetadataWriter writer = new SharedClusterMetadataWriter(file, 16)) {
+            GetEndpointsFromSharedFile reader = new GetEndpointsFromSharedFile(file);
+
+            writer.apply(clusterMetadata(1));
+            assertEquals(1, reader.getClusterMetadata().getInstances().size());
+
+            NeptuneClusterMetadata larger = clusterMetadata(50);
+            writer.apply(larger);
+
+            assertTrue(Files.size(file) > 16);
+            assertEquals(larger.getVersion(), reader.getClusterMetadata().getVersion());
+        }
+    }
+
+    @Test
+    public void shouldContinueSequenceAfterWriterRestarts() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("cluster-metadata");
+        GetEndpointsFromSharedFile reader = new GetEndpointsFromSharedFile(file);
+
+        try (SharedClusterMetadataWriter writer = new SharedClusterMetadataWriter(file)) {
+            writer.apply(clusterMetadata(2));
+        }
+
+        assertEquals(2, reader.getClusterMetadata().getInstances().size());
+
+        try (SharedClusterMetadataWriter writer = new SharedClusterMetadataWriter(file)) {
+            writer.apply(clusterMetadata(4));
+        }
+
+        assertEquals(4, reader.getClusterMetadata().getInstances().size());
+    }
+
+    @Test
+    public void shouldAllowOnlyOneWriterPerFile() throws IOException {
+        Path file = Files.createTempDirectory("shared").resolve("cluster-metadata");
+
+        try (SharedClusterMetadataWriter writer = new SharedClusterMetadataWriter(file)) {
+            try {
+                new SharedClusterMetadataWriter(file);
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+
+    private static NeptuneClusterMetadata clusterMetadata(int instanceCount) {
+        return new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(IntStream.range(0, instanceCount)
+                        .mapToObj(i -> new NeptuneInstanceMetadata()
+                                .withInstanceId("instance-" + i)
+                                .withAddress("instance-" + i + "-endpoint")
+                                .withStatus("available")
+                                .withAvailabilityZone("eu-west-1a")
+                                .withRole(i == 0 ? "writer" : "reader")
+                                .withAnnotation(SuspendedEndpoints.STATE_ANNOTATION, "active"))
+                        .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.neptune.metrics;
+
+import org.apache.tinkerpop.gremlin.driver.RequestTimings;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusMetricsExporterTest {
+
+    @Test
+    public void shouldRenderCumulativeLatencyHistogram() {
+
+        EndpointMetricsAggregate aggregate = new EndpointMetricsAggregate("address1");
+        aggregate.addRequest(timings(3), null);
+        aggregate.addRequest(timings(30), new IllegalStateException());
+        aggregate.addRequest(timings(3000), null);
+
+        PrometheusTextBuilder text = new PrometheusTextBuilder();
+        aggregate.renderRequests(text);
+        aggregate.renderErrors(text);
+        aggregate.renderLatencies(text);
+
+        String output = text.toString();
+
+        assertTrue(output.contains("# TYPE neptune_gremlin_requests_total counter\n"));
+        assertTrue(output.contains("neptune_gremlin_requests_total{endpoint=\"address1\",outcome=\"success\"} 2\n"));
+        assertTrue(output.contains("neptune_gremlin_requests_total{endpoint=\"address1\",outcome=\"error\"} 1\n"));
+        assertTrue(output.contains("neptune_gremlin_request_errors_total{endpoint=\"address1\",error=\"IllegalStateException\"} 1\n"));
+        assertTrue(output.contains("neptune_gremlin_request_duration_seconds_bucket{endpoint=\"address1\",phase=\"total\",le=\"0.005\"} 1\n"));
+        assertTrue(output.contains("neptune_gremlin_request_duration_seconds_bucket{endpoint=\"address1\",phase=\"total\",le=\"0.05\"} 2\n"));
+        assertTrue(output.contains("neptune_gremlin_request_duration_seconds_bucket{endpoint=\"address1\",phase=\"total\",le=\"2.5\"} 2\n"));
+        assertTrue(output.contains("neptune_gremlin_request_duration_seconds_bucket{endpoint=\"address1\",phase=\"total\",le=\"+Inf\"} 3\n"));
+        assertTrue(output.contains("neptune_gremlin_request_duration_seconds_sum{endpoint=\"address1\",phase=\"total\"} 3.033\n"));
+        assertTrue(output.contains("neptune_gremlin_request_duration_seconds_count{endpoint=\"address1\",phase=\"total\"} 3\n"));
+    }
+
+    @Test
+    public void shouldAccumulateAsRequestsCompleteWithoutWaitingForPublishedMetrics() throws Exception {
+
+        try (PrometheusMetricsExporter exporter = PrometheusMetricsExporter.start(
+                new InetSocketAddress("localhost", 0), 1, TimeUnit.SECONDS)) {
+
+            exporter.onConnectionAttempt("address1", "succeeded");
+            exporter.onRequestCompleted("address1", timings(3), null);
+            exporter.onConnectionAttempt("address1", "succeeded");
+            exporter.onRequestCompleted("address1", timings(30), new IllegalStateException());
+
+            String output = exporter.render();
+
+            assertTrue(output.contains("neptune_gremlin_requests_total{endpoint=\"address1\",outcome=\"success\"} 1\n"));
+            assertTrue(output.contains("neptune_gremlin_requests_total{endpoint=\"address1\",outcome=\"error\"} 1\n"));
+            assertTrue(output.contains("neptune_gremlin_connection_acquisitions_total{endpoint=\"address1\",outcome=\"succeeded\"} 2\n"));
+            assertTrue(output.contains("neptune_gremlin_connection_acquisitions_total{endpoint=\"address1\",outcome=\"dead\"} 0\n"));
+        }
+    }
+
+    @Test
+    public void shouldEscapeLabelValues() {
+        assertEquals("a\\\"b\\\\c\\nd", PrometheusTextBuilder.escape("a\"b\\c\nd"));
+        assertEquals("1", PrometheusTextBuilder.format(1.0));
+        assertEquals("0.25", PrometheusTextBuilder.format(0.25));
+    }
+
+    @Test
+    public void shouldServeSnapshotOverHttp() throws Exception {
+
+        try (PrometheusMetricsExporter exporter = PrometheusMetricsExporter.start(
+                new InetSocketAddress("localhost", 0), 1, TimeUnit.SECONDS)) {
+
+            URL url = new URL(String.format("http://localhost:%s/metrics", exporter.address().getPort()));
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            readFully(connection.getInputStream());
+        }
+    }
+
+    private static RequestTimings timings(long totalMillis) {
+        return new RequestTimings(0, 0, 0, 0, TimeUnit.MILLISECONDS.toNanos(totalMillis));
+    }
+
+    private static String readFully(InputStream inputStream) throws IOException {
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
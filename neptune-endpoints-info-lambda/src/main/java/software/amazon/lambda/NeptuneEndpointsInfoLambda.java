@@ -19,11 +19,13 @@ import org.apache.tinkerpop.gremlin.driver.Endpoint;
 import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.neptune.cluster.*;
+import software.amazon.utils.Clock;
 import software.amazon.utils.EnvironmentVariableUtils;
 import software.amazon.utils.RegionUtils;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -34,36 +36,80 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class NeptuneEndpointsInfoLambda implements RequestStreamHandler {
 
     private final ClusterEndpointsRefreshAgent refreshAgent;
-    private final AtomicReference<NeptuneClusterMetadata> neptuneClusterMetadata = new AtomicReference<>();
+    private final AtomicReference<AnnotatedClusterMetadata> neptuneClusterMetadata = new AtomicReference<>();
     private final String suspendedEndpoints;
+    private final boolean staleWhileRevalidate;
+    private final long revalidateAfterNanos;
+    private final long maxStalenessNanos;
+    private final AtomicReference<CompletableFuture<Void>> revalidation = new AtomicReference<>(CompletableFuture.completedFuture(null));
+    private final Clock clock;
 
     private static final String SUSPENDED_KEY = "neptune:suspended";
     private static final String SUSPENDED_VALUE = "true";
+    private static final byte[] NOT_MODIFIED_BYTES = LambdaProxyProtocol.NOT_MODIFIED.getBytes(UTF_8);
 
     public NeptuneEndpointsInfoLambda() {
         this(
                 EnvironmentVariableUtils.getMandatoryEnv("clusterId"),
                 Integer.parseInt(EnvironmentVariableUtils.getOptionalEnv("pollingIntervalSeconds", "15")),
-                EnvironmentVariableUtils.getOptionalEnv("suspended", "none")
+                EnvironmentVariableUtils.getOptionalEnv("suspended", "none"),
+                Boolean.parseBoolean(EnvironmentVariableUtils.getOptionalEnv("staleWhileRevalidate", "false")),
+                Integer.parseInt(EnvironmentVariableUtils.getOptionalEnv("maxStalenessSeconds", "300"))
         );
     }
 
     public NeptuneEndpointsInfoLambda(String clusterId, int pollingIntervalSeconds, String suspendedEndpoints) {
+        this(clusterId, pollingIntervalSeconds, suspendedEndpoints, false, 0);
+    }
+
+    public NeptuneEndpointsInfoLambda(String clusterId,
+                                      int pollingIntervalSeconds,
+                                      String suspendedEndpoints,
+                                      boolean staleWhileRevalidate,
+                                      int maxStalenessSeconds) {
+        this(ClusterEndpointsRefreshAgent.managementApi(clusterId,
+                        RegionUtils.getCurrentRegionName(),
+                        DefaultCredentialsProvider.create()),
+                clusterId,
+                pollingIntervalSeconds,
+                suspendedEndpoints,
+                staleWhileRevalidate,
+                maxStalenessSeconds,
+                Clock.SYSTEM);
+    }
+
+    NeptuneEndpointsInfoLambda(ClusterEndpointsRefreshAgent refreshAgent,
+                               String clusterId,
+                               int pollingIntervalSeconds,
+                               String suspendedEndpoints,
+                               boolean staleWhileRevalidate,
+                               int maxStalenessSeconds,
+                               Clock clock) {
 
-        this.refreshAgent = ClusterEndpointsRefreshAgent.managementApi(clusterId,
-                RegionUtils.getCurrentRegionName(),
-                DefaultCredentialsProvider.create());
-        this.neptuneClusterMetadata.set(refreshAgent.getClusterMetadata());
+        this.refreshAgent = refreshAgent;
+        this.clock = clock;
         this.suspendedEndpoints = suspendedEndpoints.toLowerCase();
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.revalidateAfterNanos = TimeUnit.SECONDS.toNanos(pollingIntervalSeconds);
+        this.maxStalenessNanos = TimeUnit.SECONDS.toNanos(Math.max(maxStalenessSeconds, pollingIntervalSeconds));
+        this.neptuneClusterMetadata.set(annotate(refreshAgent.getClusterMetadata()));
 
         System.out.println(String.format("clusterId: %s", clusterId));
         System.out.println(String.format("pollingIntervalSeconds: %s", pollingIntervalSeconds));
         System.out.println(String.format("suspendedEndpoints: %s", this.suspendedEndpoints));
+        System.out.println(String.format("staleWhileRevalidate: %s", staleWhileRevalidate));
+        if (staleWhileRevalidate) {
+            System.out.println(String.format("maxStalenessSeconds: %s", TimeUnit.NANOSECONDS.toSeconds(maxStalenessNanos)));
+        }
 
         refreshAgent.startPollingNeptuneAPI(
                 (OnNewClusterMetadata) metadata -> {
-                    neptuneClusterMetadata.set(metadata);
-                    System.out.println("Refreshed cluster metadata");
+                    AnnotatedClusterMetadata annotatedClusterMetadata = annotate(metadata);
+                    AnnotatedClusterMetadata previous = neptuneClusterMetadata.getAndSet(annotatedClusterMetadata);
+                    System.out.println(String.format("Refreshed cluster metadata [version: %s]", annotatedClusterMetadata.version));
+                    if (!annotatedClusterMetadata.version.equals(previous.version)) {
+                        System.out.println(String.format("Cluster metadata: %s", new String(annotatedClusterMetadata.bytes, UTF_8)));
+                    }
                 },
                 pollingIntervalSeconds,
                 TimeUnit.SECONDS);
@@ -75,50 +121,120 @@ public class NeptuneEndpointsInfoLambda implements RequestStreamHandler {
         LambdaLogger logger = context.getLogger();
 
         EndpointsType endpointsType = null;
+        String clientVersion = null;
 
-        Scanner scanner = new Scanner(input);
-        if (scanner.hasNext()) {
-            String param = scanner.next().replace("\"", "");
+        String payload = new String(input.readAllBytes(), UTF_8).trim();
+        if (LambdaProxyProtocol.isProtocolRequest(payload)) {
+            clientVersion = LambdaProxyProtocol.versionFromRequest(payload);
+        } else {
+            String param = payload.replace("\"", "");
             if (!param.isEmpty()) {
-                endpointsType = EndpointsType.valueOf(param);
+                endpointsType = legacyEndpointsType(param);
             }
         }
 
-        try {
-            refreshAgent.awake();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Failed to awake refresh agent", e);
+        if (staleWhileRevalidate) {
+            revalidateIfStale(logger);
+        } else {
+            try {
+                refreshAgent.awake();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException("Failed to awake refresh agent", e);
+            }
         }
 
         if (endpointsType != null) {
             returnEndpointListForLegacyClient(endpointsType, logger, output);
         } else {
-            returnClusterMetadata(logger, output);
+            returnClusterMetadata(clientVersion, logger, output);
         }
     }
 
-    private void returnClusterMetadata(LambdaLogger logger, OutputStream output) throws IOException {
+    private static EndpointsType legacyEndpointsType(String param) {
+        try {
+            return EndpointsType.valueOf(param);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unsupported request payload: %s. Expected a JSON object, an empty string, or one of: %s",
+                    param, Arrays.toString(EndpointsType.values())));
+        }
+    }
 
-        logger.log("Returning cluster metadata");
+    /**
+     * Returns the cached metadata without waiting for the refresh agent, unless the metadata is older than the
+     * maximum staleness, which is typically the case when the function is thawed after being frozen for a
+     * while. Metadata older than the polling interval is refreshed in the background, so that a slow call to
+     * the Management API doesn't hold up concurrent requests.
+     */
+    private void revalidateIfStale(LambdaLogger logger) {
 
-        NeptuneClusterMetadata clusterMetadata = addAnnotations(neptuneClusterMetadata.get());
-        String results = clusterMetadata.toJsonString();
+        long age = clock.nanoTime() - neptuneClusterMetadata.get().refreshedAtNanos;
 
-        logger.log("Results: " + results);
+        if (age <= revalidateAfterNanos) {
+            return;
+        }
 
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8))) {
-            writer.write(results);
-            writer.flush();
+        CompletableFuture<Void> refresh = revalidate();
+
+        if (age > maxStalenessNanos) {
+            logger.log("Cluster metadata is " + TimeUnit.NANOSECONDS.toSeconds(age) + " seconds old, waiting for refresh");
+            try {
+                refresh.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for refresh agent", e);
+            } catch (ExecutionException e) {
+                logger.log("Refresh failed, returning stale cluster metadata: " + e.getCause());
+            }
         }
     }
 
+    // At most one revalidation is in flight, however many requests find the metadata stale
+    private CompletableFuture<Void> revalidate() {
+        while (true) {
+            CompletableFuture<Void> current = revalidation.get();
+            if (!current.isDone()) {
+                return current;
+            }
+            CompletableFuture<Void> next = new CompletableFuture<>();
+            if (revalidation.compareAndSet(current, next)) {
+                try {
+                    refreshAgent.pollNow().whenComplete((r, e) -> {
+                        if (e != null) {
+                            next.completeExceptionally(e);
+                        } else {
+                            next.complete(null);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    next.completeExceptionally(e);
+                }
+                return next;
+            }
+        }
+    }
+
+    private void returnClusterMetadata(String clientVersion, LambdaLogger logger, OutputStream output) throws IOException {
+
+        AnnotatedClusterMetadata clusterMetadata = neptuneClusterMetadata.get();
+
+        if (clusterMetadata.version.equals(clientVersion)) {
+            logger.log("Cluster metadata not modified [version: " + clientVersion + "]");
+            output.write(NOT_MODIFIED_BYTES);
+        } else {
+            logger.log("Returning cluster metadata [version: " + clusterMetadata.version + ", bytes: " + clusterMetadata.bytes.length + "]");
+            output.write(clusterMetadata.bytes);
+        }
+
+        output.flush();
+    }
+
     private void returnEndpointListForLegacyClient(EndpointsType endpointsType,
                                                    LambdaLogger logger,
                                                    OutputStream output) throws IOException {
 
         logger.log("Returning list of endpoints for EndpointsType: " + endpointsType);
 
-        NeptuneClusterMetadata clusterMetadata = addAnnotations(neptuneClusterMetadata.get());
+        NeptuneClusterMetadata clusterMetadata = neptuneClusterMetadata.get().clusterMetadata;
         EndpointCollection endpoints = endpointsType.getEndpoints(clusterMetadata);
 
         Collection<String> addresses = new ArrayList<>();
@@ -135,6 +251,19 @@ public class NeptuneEndpointsInfoLambda implements RequestStreamHandler {
         }
     }
 
+    // Annotates a copy of the refresh agent's metadata, so that the version of the copy, which is compared with
+    // the version sent by clients, is calculated over the annotations the clients receive. The copy is serialized
+    // once here, rather than for every request.
+    private AnnotatedClusterMetadata annotate(NeptuneClusterMetadata clusterMetadata) {
+        try {
+            NeptuneClusterMetadata annotated = addAnnotations(
+                    NeptuneClusterMetadata.fromByteArray(clusterMetadata.toJsonString().getBytes(UTF_8)));
+            return new AnnotatedClusterMetadata(annotated, annotated.toJsonString().getBytes(UTF_8), clock.nanoTime());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private NeptuneClusterMetadata addAnnotations(NeptuneClusterMetadata clusterMetadata) {
 
         List<String> suspended = Arrays.stream(suspendedEndpoints.split(","))
@@ -180,4 +309,18 @@ public class NeptuneEndpointsInfoLambda implements RequestStreamHandler {
         endpoint.setAnnotation(SuspendedEndpoints.STATE_ANNOTATION, SuspendedEndpoints.SUSPENDED);
     }
 
+    private static class AnnotatedClusterMetadata {
+        private final NeptuneClusterMetadata clusterMetadata;
+        private final String version;
+        private final byte[] bytes;
+        private final long refreshedAtNanos;
+
+        private AnnotatedClusterMetadata(NeptuneClusterMetadata clusterMetadata, byte[] bytes, long refreshedAtNanos) {
+            this.clusterMetadata = clusterMetadata;
+            this.version = clusterMetadata.getVersion();
+            this.bytes = bytes;
+            this.refreshedAtNanos = refreshedAtNanos;
+        }
+    }
+
 }
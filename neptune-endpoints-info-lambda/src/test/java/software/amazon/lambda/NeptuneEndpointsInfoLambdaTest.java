@@ -0,0 +1,288 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.junit.Test;
+import software.amazon.neptune.cluster.ClusterEndpointsFetchStrategy;
+import software.amazon.neptune.cluster.ClusterEndpointsRefreshAgent;
+import software.amazon.neptune.cluster.ClusterMetadataSupplier;
+import software.amazon.neptune.cluster.EndpointsSelector;
+import software.amazon.neptune.cluster.LambdaProxyProtocol;
+import software.amazon.neptune.cluster.NeptuneClusterMetadata;
+import software.amazon.neptune.cluster.NeptuneInstanceMetadata;
+import software.amazon.utils.Clock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NeptuneEndpointsInfoLambdaTest {
+
+    private static final int POLLING_INTERVAL_SECONDS = 60;
+    private static final int MAX_STALENESS_SECONDS = 300;
+
+    @Test
+    public void shouldNotPollWhileMetadataIsFresh() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        StubClock clock = new StubClock();
+        ClusterEndpointsRefreshAgent refreshAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        try {
+            NeptuneEndpointsInfoLambda lambda = lambda(refreshAgent, clock);
+
+            clock.advance(POLLING_INTERVAL_SECONDS - 1);
+            NeptuneClusterMetadata clusterMetadata = NeptuneClusterMetadata.fromByteArray(invoke(lambda, "{}"));
+
+            assertEquals(2, clusterMetadata.getInstances().size());
+            assertEquals(0, strategy.refreshCount.get());
+        } finally {
+            refreshAgent.close();
+        }
+    }
+
+    @Test
+    public void shouldReturnNotModifiedIfClientHasCurrentVersion() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        ClusterEndpointsRefreshAgent refreshAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        try {
+            NeptuneEndpointsInfoLambda lambda = lambda(refreshAgent, new StubClock());
+
+            String version = NeptuneClusterMetadata.fromByteArray(invoke(lambda, "{}")).getVersion();
+            byte[] response = invoke(lambda, LambdaProxyProtocol.conditionalRequest(version));
+
+            assertEquals(LambdaProxyProtocol.NOT_MODIFIED, new String(response, UTF_8));
+        } finally {
+            refreshAgent.close();
+        }
+    }
+
+    @Test
+    public void shouldStartOneBackgroundPollForConcurrentRequestsWhenMetadataIsStale() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        StubClock clock = new StubClock();
+        ClusterEndpointsRefreshAgent refreshAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        int requestCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requestCount);
+
+        try {
+            NeptuneEndpointsInfoLambda lambda = lambda(refreshAgent, clock);
+
+            strategy.clusterMetadata.set(clusterMetadata("instance-1", "instance-2", "instance-3"));
+            strategy.blockRefreshes();
+            clock.advance(POLLING_INTERVAL_SECONDS + 1);
+
+            List<Future<byte[]>> responses = new ArrayList<>();
+            for (int i = 0; i < requestCount; i++) {
+                responses.add(executor.submit(() -> invoke(lambda, "{}")));
+            }
+
+            // Every request is answered with the stale metadata while the refresh is still blocked
+            for (Future<byte[]> response : responses) {
+                assertEquals(2, NeptuneClusterMetadata.fromByteArray(response.get(5, TimeUnit.SECONDS)).getInstances().size());
+            }
+            assertTrue(strategy.refreshStarted.await(5, TimeUnit.SECONDS));
+
+            strategy.unblockRefreshes();
+            refreshAgent.awake();
+
+            assertEquals(1, strategy.refreshCount.get());
+            assertEquals(3, NeptuneClusterMetadata.fromByteArray(invoke(lambda, "{}")).getInstances().size());
+        } finally {
+            executor.shutdownNow();
+            refreshAgent.close();
+        }
+    }
+
+    @Test
+    public void shouldWaitForRefreshWhenMetadataIsOlderThanMaxStaleness() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        StubClock clock = new StubClock();
+        ClusterEndpointsRefreshAgent refreshAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        try {
+            NeptuneEndpointsInfoLambda lambda = lambda(refreshAgent, clock);
+
+            strategy.clusterMetadata.set(clusterMetadata("instance-1", "instance-2", "instance-3"));
+            clock.advance(MAX_STALENESS_SECONDS + 1);
+
+            NeptuneClusterMetadata clusterMetadata = NeptuneClusterMetadata.fromByteArray(invoke(lambda, "{}"));
+
+            assertEquals(3, clusterMetadata.getInstances().size());
+            assertEquals(1, strategy.refreshCount.get());
+        } finally {
+            refreshAgent.close();
+        }
+    }
+
+    @Test
+    public void shouldReturnStaleMetadataIfRefreshFailsWhenMetadataIsOlderThanMaxStaleness() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        StubClock clock = new StubClock();
+        ClusterEndpointsRefreshAgent refreshAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        try {
+            NeptuneEndpointsInfoLambda lambda = lambda(refreshAgent, clock);
+
+            strategy.failRefreshes();
+            clock.advance(MAX_STALENESS_SECONDS + 1);
+
+            NeptuneClusterMetadata clusterMetadata = NeptuneClusterMetadata.fromByteArray(invoke(lambda, "{}"));
+
+            assertEquals(2, clusterMetadata.getInstances().size());
+            assertEquals(1, strategy.refreshCount.get());
+        } finally {
+            refreshAgent.close();
+        }
+    }
+
+    private static NeptuneEndpointsInfoLambda lambda(ClusterEndpointsRefreshAgent refreshAgent, Clock clock) {
+        return new NeptuneEndpointsInfoLambda(
+                refreshAgent,
+                "cluster-1",
+                POLLING_INTERVAL_SECONDS,
+                "none",
+                true,
+                MAX_STALENESS_SECONDS,
+                clock);
+    }
+
+    private static byte[] invoke(NeptuneEndpointsInfoLambda lambda, String payload) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        lambda.handleRequest(new ByteArrayInputStream(payload.getBytes(UTF_8)), output, context());
+        return output.toByteArray();
+    }
+
+    // Context and LambdaLogger have several methods, none of which matter here except getLogger() and log()
+    private static Context context() {
+        LambdaLogger logger = (LambdaLogger) Proxy.newProxyInstance(
+                LambdaLogger.class.getClassLoader(),
+                new Class<?>[]{LambdaLogger.class},
+                (proxy, method, args) -> null);
+        return (Context) Proxy.newProxyInstance(
+                Context.class.getClassLoader(),
+                new Class<?>[]{Context.class},
+                (proxy, method, args) -> method.getName().equals("getLogger") ? logger : null);
+    }
+
+    private static NeptuneClusterMetadata clusterMetadata(String... instanceIds) {
+        return new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.stream(instanceIds)
+                        .map(instanceId -> new NeptuneInstanceMetadata()
+                                .withInstanceId(instanceId)
+                                .withAddress(instanceId + "-endpoint")
+                                .withStatus("available")
+                                .withRole(instanceId.equals("instance-1") ? "writer" : "reader"))
+                        .collect(Collectors.toList()));
+    }
+
+    private static class StubClock implements Clock {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        void advance(long seconds) {
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+        }
+
+        @Override
+        public long nanoTime() {
+            return nanos.get();
+        }
+    }
+
+    private static class StubStrategy implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+
+        private final AtomicReference<NeptuneClusterMetadata> clusterMetadata;
+        private final AtomicInteger refreshCount = new AtomicInteger();
+        private final CountDownLatch refreshStarted = new CountDownLatch(1);
+        private volatile CountDownLatch refreshesBlocked = new CountDownLatch(0);
+        private volatile boolean failRefreshes = false;
+
+        private StubStrategy(NeptuneClusterMetadata clusterMetadata) {
+            this.clusterMetadata = new AtomicReference<>(clusterMetadata);
+        }
+
+        void blockRefreshes() {
+            refreshesBlocked = new CountDownLatch(1);
+        }
+
+        void unblockRefreshes() {
+            refreshesBlocked.countDown();
+        }
+
+        void failRefreshes() {
+            failRefreshes = true;
+        }
+
+        @Override
+        public ClusterMetadataSupplier clusterMetadataSupplier() {
+            return this;
+        }
+
+        @Override
+        public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NeptuneClusterMetadata getClusterMetadata() {
+            return clusterMetadata.get();
+        }
+
+        @Override
+        public NeptuneClusterMetadata refreshClusterMetadata() {
+            refreshCount.incrementAndGet();
+            refreshStarted.countDown();
+            try {
+                refreshesBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (failRefreshes) {
+                throw new IllegalStateException("Throttled");
+            }
+            return clusterMetadata.get();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.sidecar;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.neptune.cluster.ClusterEndpointsRefreshAgent;
+import software.amazon.neptune.cluster.EndpointsSidecarProtocol;
+import software.amazon.neptune.cluster.NeptuneClusterMetadata;
+import software.amazon.neptune.cluster.OnNewClusterMetadata;
+import software.amazon.utils.EnvironmentVariableUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Runs a single {@link ClusterEndpointsRefreshAgent} on behalf of every process on a host, and serves the
+ * cluster metadata to those processes over HTTP on the loopback interface. Processes use
+ * {@link ClusterEndpointsRefreshAgent#sidecar()} to fetch the metadata, so that only the sidecar polls the
+ * Management API or Lambda proxy.
+ */
+public class NeptuneEndpointsSidecar implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NeptuneEndpointsSidecar.class);
+
+    public static void main(String[] args) throws IOException {
+
+        int port = Integer.parseInt(EnvironmentVariableUtils.getOptionalEnv("port", String.valueOf(EndpointsSidecarProtocol.DEFAULT_PORT)));
+        int pollingIntervalSeconds = Integer.parseInt(EnvironmentVariableUtils.getOptionalEnv("pollingIntervalSeconds", "15"));
+        String lambdaName = EnvironmentVariableUtils.getOptionalEnv("lambdaName", "");
+
+        ClusterEndpointsRefreshAgent refreshAgent = lambdaName.isEmpty() ?
+                ClusterEndpointsRefreshAgent.managementApi(EnvironmentVariableUtils.getMandatoryEnv("clusterId")) :
+                ClusterEndpointsRefreshAgent.lambdaProxy(lambdaName);
+
+        NeptuneEndpointsSidecar sidecar = new NeptuneEndpointsSidecar(refreshAgent, port, pollingIntervalSeconds);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(sidecar::close));
+    }
+
+    private final ClusterEndpointsRefreshAgent refreshAgent;
+    private final HttpServer server;
+    private final AtomicReference<SerializedClusterMetadata> clusterMetadata = new AtomicReference<>();
+
+    public NeptuneEndpointsSidecar(ClusterEndpointsRefreshAgent refreshAgent, int port, int pollingIntervalSeconds) throws IOException {
+        this.refreshAgent = refreshAgent;
+        this.clusterMetadata.set(serialize(refreshAgent.getClusterMetadata()));
+
+        // Responses are pre-serialized, so the server's dispatcher thread handles requests itself
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext(EndpointsSidecarProtocol.CLUSTER_METADATA_PATH, this::handle);
+
+        refreshAgent.startPollingNeptuneAPI(
+                (OnNewClusterMetadata) metadata -> {
+                    SerializedClusterMetadata serialized = serialize(metadata);
+                    SerializedClusterMetadata previous = clusterMetadata.getAndSet(serialized);
+                    if (!serialized.etag.equals(previous.etag)) {
+                        logger.info("Serving new cluster metadata [version: {}]", metadata.getVersion());
+                    }
+                },
+                pollingIntervalSeconds,
+                TimeUnit.SECONDS);
+
+        this.server.start();
+
+        logger.info("Serving cluster metadata on {}", server.getAddress());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        try {
+            refreshAgent.close();
+        } catch (Exception e) {
+            logger.warn("Error while closing refresh agent", e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            SerializedClusterMetadata current = clusterMetadata.get();
+            exchange.getResponseHeaders().set("ETag", current.etag);
+
+            if (current.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, current.bytes.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(current.bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static SerializedClusterMetadata serialize(NeptuneClusterMetadata clusterMetadata) {
+        try {
+            return new SerializedClusterMetadata(
+                    String.format("\"%s\"", clusterMetadata.getVersion()),
+                    clusterMetadata.toJsonString().getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class SerializedClusterMetadata {
+        private final String etag;
+        private final byte[] bytes;
+
+        private SerializedClusterMetadata(String etag, byte[] bytes) {
+            this.etag = etag;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+Licensed under the Apache License, Version 2.0 (the "License").
+You may not use this file except in compliance with the License.
+A copy of the License is located at
+    http://www.apache.org/licenses/LICENSE-2.0
+or in the "license" file accompanying this file. This file is distributed
+on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+express or implied. See the License for the specific language governing
+permissions and limitations under the License.
+*/
+
+package software.amazon.sidecar;
+
+import org.apache.tinkerpop.gremlin.driver.EndpointCollection;
+import org.junit.Test;
+import software.amazon.neptune.cluster.ClusterEndpointsFetchStrategy;
+import software.amazon.neptune.cluster.ClusterEndpointsRefreshAgent;
+import software.amazon.neptune.cluster.ClusterMetadataSupplier;
+import software.amazon.neptune.cluster.EndpointsSelector;
+import software.amazon.neptune.cluster.EndpointsType;
+import software.amazon.neptune.cluster.NeptuneClusterMetadata;
+import software.amazon.neptune.cluster.NeptuneInstanceMetadata;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class NeptuneEndpointsSidecarTest {
+
+    @Test
+    public void shouldServeClusterMetadataToLocalClients() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        ClusterEndpointsRefreshAgent sidecarAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        try (NeptuneEndpointsSidecar sidecar = new NeptuneEndpointsSidecar(sidecarAgent, 0, 60)) {
+
+            ClusterEndpointsRefreshAgent clientAgent = ClusterEndpointsRefreshAgent.sidecar(sidecar.getPort());
+
+            NeptuneClusterMetadata clusterMetadata = clientAgent.getClusterMetadata();
+
+            assertEquals(strategy.clusterMetadata.get().getVersion(), clusterMetadata.getVersion());
+            assertEquals(2, clientAgent.getEndpoints(EndpointsType.All).size());
+
+            clientAgent.close();
+        }
+    }
+
+    @Test
+    public void shouldServeCachedMetadataUntilClientRefreshes() throws Exception {
+        StubStrategy strategy = new StubStrategy(clusterMetadata("instance-1", "instance-2"));
+        ClusterEndpointsRefreshAgent sidecarAgent = new ClusterEndpointsRefreshAgent(strategy);
+
+        try (NeptuneEndpointsSidecar sidecar = new NeptuneEndpointsSidecar(sidecarAgent, 0, 60)) {
+
+            ClusterEndpointsRefreshAgent clientAgent = ClusterEndpointsRefreshAgent.sidecar(sidecar.getPort());
+
+            NeptuneClusterMetadata first = clientAgent.getClusterMetadata();
+            NeptuneClusterMetadata second = clientAgent.getClusterMetadata();
+
+            assertSame(first, second);
+
+            strategy.clusterMetadata.set(clusterMetadata("instance-1", "instance-2", "instance-3"));
+            sidecarAgent.pollNow().get();
+
+            assertSame(first, clientAgent.getClusterMetadata());
+
+            clientAgent.refreshEndpoints(EndpointsType.All);
+            NeptuneClusterMetadata third = clientAgent.getClusterMetadata();
+
+            assertNotEquals(first.getVersion(), third.getVersion());
+            assertEquals(3, third.getInstances().size());
+
+            clientAgent.close();
+        }
+    }
+
+    private static NeptuneClusterMetadata clusterMetadata(String... instanceIds) {
+        return new NeptuneClusterMetadata()
+                .withClusterEndpoint("cluster-endpoint")
+                .withReaderEndpoint("reader-endpoint")
+                .withInstances(Arrays.stream(instanceIds)
+                        .map(instanceId -> new NeptuneInstanceMetadata()
+                                .withInstanceId(instanceId)
+                                .withAddress(instanceId + "-endpoint")
+                                .withStatus("available")
+                                .withRole(instanceId.equals("instance-1") ? "writer" : "reader"))
+                        .collect(Collectors.toList()));
+    }
+
+    private static class StubStrategy implements ClusterEndpointsFetchStrategy, ClusterMetadataSupplier {
+
+        private final AtomicReference<NeptuneClusterMetadata> clusterMetadata;
+
+        private StubStrategy(NeptuneClusterMetadata clusterMetadata) {
+            this.clusterMetadata = new AtomicReference<>(clusterMetadata);
+        }
+
+        @Override
+        public ClusterMetadataSupplier clusterMetadataSupplier() {
+            return this;
+        }
+
+        @Override
+        public Map<? extends EndpointsSelector, EndpointCollection> getEndpoints(Collection<? extends EndpointsSelector> selectors, boolean refresh) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NeptuneClusterMetadata getClusterMetadata() {
+            return clusterMetadata.get();
+        }
+
+        @Override
+        public NeptuneClusterMetadata refreshClusterMetadata() {
+            return clusterMetadata.get();
+        }
+    }
+}